@@ -0,0 +1,118 @@
+package com.pasc.lib.log;
+
+import com.pasc.lib.log.printer.Printer;
+import com.pasc.lib.log.printer.PrinterSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Printing throughput with 1, 4 and 16 threads, reading the printers from the volatile
+ * {@link PrinterSet} snapshot of {@link Logger}, against taking a read lock around every call as
+ * {@link Logger} once did.
+ */
+public class PrinterSnapshotBenchmark {
+
+  private static final int LOGS = 400000;
+  private static final int[] THREADS = {1, 4, 16};
+
+  @Test public void printThroughput() throws Exception {
+    System.out.println("PrinterSnapshotBenchmark, ns per log, " + LOGS + " logs, "
+        + Runtime.getRuntime().availableProcessors() + " CPUs");
+    System.out.println(String.format("%-22s%10s%10s%10s", "printer", "1", "4", "16"));
+    for (int round = 0; round < 2; round++) {
+      // The first round warms up.
+      boolean print = round == 1;
+      run("volatile snapshot", new Path() {
+        volatile Printer printer = new PrinterSet(counter);
+
+        @Override void println(String msg) {
+          Printer printer = this.printer;
+          if (printer != null) {
+            printer.println(LogLevel.DEBUG, "TAG", msg);
+          }
+        }
+      }, print);
+      run("read lock per call", new Path() {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        Printer printer = new PrinterSet(counter);
+
+        @Override void println(String msg) {
+          lock.readLock().lock();
+          if (printer != null) {
+            printer.println(LogLevel.DEBUG, "TAG", msg);
+          }
+          lock.readLock().unlock();
+        }
+      }, print);
+    }
+  }
+
+  private static void run(String name, Path path, boolean print) throws Exception {
+    StringBuilder line = new StringBuilder(String.format("%-22s", name));
+    long expected = 0;
+    for (int threads : THREADS) {
+      long nanos = print(path, threads);
+      expected += LOGS / threads * threads;
+      line.append(String.format("%10.1f", (double) nanos / LOGS));
+    }
+    assertEquals(expected, path.counter.count.get());
+    if (print) {
+      System.out.println(line);
+    }
+  }
+
+  /**
+   * Print the logs from the threads through the path.
+   *
+   * @return the nanoseconds until all threads finished
+   */
+  private static long print(final Path path, int threads) throws Exception {
+    final int logsPerThread = LOGS / threads;
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      workers[t] = new Thread() {
+        @Override public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < logsPerThread; i++) {
+            path.println("message");
+          }
+        }
+      };
+      workers[t].start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return System.nanoTime() - begin;
+  }
+
+  /**
+   * A way from the printing threads to the printer.
+   */
+  private abstract static class Path {
+
+    final CountingPrinter counter = new CountingPrinter();
+
+    abstract void println(String msg);
+  }
+
+  private static class CountingPrinter implements Printer {
+
+    final AtomicLong count = new AtomicLong();
+
+    @Override public void println(int logLevel, String tag, String msg) {
+      count.incrementAndGet();
+    }
+  }
+}
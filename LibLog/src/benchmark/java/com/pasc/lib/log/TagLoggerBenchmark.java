@@ -0,0 +1,71 @@
+package com.pasc.lib.log;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bytes allocated and time taken by each {@code PascLog.Log.d(tag, msg)}, going through the
+ * cached tag loggers, against building a new logger for every call as the facade used to.
+ */
+public class TagLoggerBenchmark {
+
+  private static final int CALLS = 200000;
+  private static final String TAG = "Benchmark";
+
+  @Before public void setUp() {
+    RecordingPrinter.initPascLog();
+    RecordingPrinter.PASC_LOG.dropping = true;
+  }
+
+  @After public void tearDown() {
+    RecordingPrinter.PASC_LOG.dropping = false;
+  }
+
+  @Test public void cachedLoggerAllocation() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+
+    long[] cached = null;
+    long[] rebuilt = null;
+    for (int round = 0; round < 2; round++) {
+      // The first round warms up.
+      cached = measure(bean, new Runnable() {
+        @Override public void run() {
+          PascLog.Log.d(TAG, "message");
+        }
+      });
+      rebuilt = measure(bean, new Runnable() {
+        @Override public void run() {
+          PascLog.tag(TAG).build().d(TAG, "message");
+        }
+      });
+    }
+    System.out.println("TagLoggerBenchmark, per call of d(tag, msg), " + CALLS + " calls");
+    System.out.println(String.format("  cached logger:       %6d B %8.1f ns", cached[0] / CALLS,
+        (double) cached[1] / CALLS));
+    System.out.println(String.format("  logger per call:     %6d B %8.1f ns", rebuilt[0] / CALLS,
+        (double) rebuilt[1] / CALLS));
+    assertTrue(cached[0] < rebuilt[0]);
+  }
+
+  /**
+   * @return the bytes allocated and the nanoseconds taken by all the calls
+   */
+  private static long[] measure(com.sun.management.ThreadMXBean bean, Runnable call) {
+    long threadId = Thread.currentThread().getId();
+    long bytes = bean.getThreadAllocatedBytes(threadId);
+    long begin = System.nanoTime();
+    for (int i = 0; i < CALLS; i++) {
+      call.run();
+    }
+    long nanos = System.nanoTime() - begin;
+    return new long[]{bean.getThreadAllocatedBytes(threadId) - bytes, nanos};
+  }
+}
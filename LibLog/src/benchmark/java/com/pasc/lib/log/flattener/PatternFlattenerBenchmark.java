@@ -0,0 +1,110 @@
+package com.pasc.lib.log.flattener;
+
+import com.pasc.lib.log.LogLevel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Nanoseconds per log of {@link PatternFlattener} over a range of message lengths, next to the
+ * old approach of one {@link String#replace} per parameter of the pattern.
+ */
+public class PatternFlattenerBenchmark {
+
+  private static final String PATTERN = "{d} {l}/{t}: {m}";
+  private static final int[] MESSAGE_LENGTHS = {64, 1024, 4096, 65536};
+  private static final int CHARS_PER_ROUND = 64 * 1024 * 1024;
+
+  @Test public void flattenTime() {
+    PatternFlattener compiled = new PatternFlattener(PATTERN);
+    ReplacingFlattener replacing = new ReplacingFlattener(PATTERN);
+    StringBuilder buffer = new StringBuilder();
+
+    // Without the date, the two implementations give the same result.
+    String message = message(100);
+    assertEquals(new ReplacingFlattener("{l}/{t}: {m}").flatten(LogLevel.INFO, "tag", message),
+        new PatternFlattener("{l}/{t}: {m}").flatten(LogLevel.INFO, "tag", message).toString());
+
+    System.out.println("PatternFlattenerBenchmark, ns per log, pattern " + PATTERN);
+    System.out.println(String.format("%-12s%12s%12s%12s", "msg length", "replace", "compiled",
+        "appending"));
+    for (int round = 0; round < 2; round++) {
+      // The first round warms up.
+      for (int length : MESSAGE_LENGTHS) {
+        message = message(length);
+        int logs = Math.max(1000, CHARS_PER_ROUND / length / 8);
+        long sink = 0;
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < logs; i++) {
+          sink += replacing.flatten(LogLevel.INFO, "tag", message).length();
+        }
+        long replaceNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < logs; i++) {
+          sink += compiled.flatten(LogLevel.INFO, "tag", message).length();
+        }
+        long compiledNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < logs; i++) {
+          buffer.setLength(0);
+          compiled.flatten(LogLevel.INFO, "tag", message, buffer);
+          sink += buffer.length();
+        }
+        long appendingNanos = System.nanoTime() - begin;
+
+        assertTrue(sink > 0);
+        if (round == 1) {
+          System.out.println(String.format("%-12d%12.0f%12.0f%12.0f", length,
+              (double) replaceNanos / logs, (double) compiledNanos / logs,
+              (double) appendingNanos / logs));
+        }
+      }
+    }
+  }
+
+  private static String message(int length) {
+    StringBuilder sb = new StringBuilder(length);
+    while (sb.length() < length) {
+      sb.append("message ").append(sb.length()).append(' ');
+    }
+    sb.setLength(length);
+    return sb.toString();
+  }
+
+  /**
+   * The previous implementation of {@link PatternFlattener}, supporting the date, level, tag and
+   * message parameters, each replaced in the whole line in turn.
+   */
+  private static class ReplacingFlattener implements Flattener {
+
+    private final String pattern;
+
+    private final ThreadLocal<SimpleDateFormat> threadLocalDateFormat =
+        new ThreadLocal<SimpleDateFormat>() {
+          @Override protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat(PatternFlattener.DEFAULT_DATE_FORMAT, Locale.US);
+          }
+        };
+
+    ReplacingFlattener(String pattern) {
+      this.pattern = pattern;
+    }
+
+    @Override public CharSequence flatten(int logLevel, String tag, String message) {
+      String flattenedLog = pattern;
+      if (flattenedLog.contains("{d}")) {
+        flattenedLog =
+            flattenedLog.replace("{d}", threadLocalDateFormat.get().format(new Date()));
+      }
+      flattenedLog = flattenedLog.replace("{l}", LogLevel.getShortLevelName(logLevel));
+      flattenedLog = flattenedLog.replace("{t}", tag);
+      return flattenedLog.replace("{m}", message);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.pasc.lib.log.formatter.message.json;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Time and memory per format of a 10 KB and a 1 MB JSON document, by {@link StreamingJsonFormatter}
+ * and by {@link DefaultJsonFormatter}, which builds an org.json tree first.
+ */
+public class StreamingJsonFormatterBenchmark {
+
+  private static final int[] JSON_LENGTHS = {10 * 1024, 1024 * 1024};
+  private static final int CHARS_PER_ROUND = 8 * 1024 * 1024;
+
+  @Test public void formatTimeAndAllocation() {
+    JsonFormatter streaming = new StreamingJsonFormatter();
+    JsonFormatter tree = new DefaultJsonFormatter();
+
+    System.out.println("StreamingJsonFormatterBenchmark, per format");
+    System.out.println(String.format("%-10s%-12s%14s%14s", "input", "formatter", "time",
+        "allocated"));
+    for (int round = 0; round < 2; round++) {
+      // The first round warms up.
+      for (int length : JSON_LENGTHS) {
+        String json = json(length);
+        assertEquals(json, removeWhitespace(streaming.format(json)));
+
+        int times = Math.max(5, CHARS_PER_ROUND / length);
+        String streamingResult = measure(streaming, json, times);
+        String treeResult = measure(tree, json, times);
+        if (round == 1) {
+          String input = length / 1024 + " KB";
+          System.out.println(String.format("%-10s%-12s%s", input, "streaming", streamingResult));
+          System.out.println(String.format("%-10s%-12s%s", input, "org.json", treeResult));
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the time and the bytes allocated per format, formatted in columns
+   */
+  private static String measure(JsonFormatter formatter, String json, int times) {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    com.sun.management.ThreadMXBean bean =
+        threadMXBean instanceof com.sun.management.ThreadMXBean
+            ? (com.sun.management.ThreadMXBean) threadMXBean : null;
+    long threadId = Thread.currentThread().getId();
+    long bytes = bean != null ? bean.getThreadAllocatedBytes(threadId) : 0;
+    long begin = System.nanoTime();
+    long sink = 0;
+    for (int i = 0; i < times; i++) {
+      sink += formatter.format(json).length();
+    }
+    long nanos = System.nanoTime() - begin;
+    assertTrue(sink > 0);
+    String allocated = bean != null
+        ? String.format("%11d KB", (bean.getThreadAllocatedBytes(threadId) - bytes) / times / 1024)
+        : String.format("%14s", "n/a");
+    return String.format("%11.1f us%s", nanos / 1000.0 / times, allocated);
+  }
+
+  /**
+   * Build a compact JSON array of records, about the given length.
+   */
+  private static String json(int length) {
+    StringBuilder sb = new StringBuilder(length + 256);
+    sb.append('[');
+    for (int i = 0; sb.length() < length; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append("{\"id\":").append(i)
+          .append(",\"name\":\"user_").append(i).append("\\\"quoted\\\"\"")
+          .append(",\"score\":").append(i * 0.25)
+          .append(",\"active\":").append(i % 2 == 0)
+          .append(",\"tags\":[\"a\",\"b\",{\"level\":").append(i % 7).append("}]")
+          .append(",\"empty\":{}}");
+    }
+    sb.append(']');
+    return sb.toString();
+  }
+
+  /**
+   * Remove the whitespace added by formatting, the JSON built by {@link #json(int)} has no
+   * whitespace in its strings.
+   */
+  private static String removeWhitespace(String formatted) {
+    StringBuilder sb = new StringBuilder(formatted.length());
+    for (int i = 0; i < formatted.length(); i++) {
+      char c = formatted.charAt(i);
+      if (c != ' ' && c != '\n') {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+}
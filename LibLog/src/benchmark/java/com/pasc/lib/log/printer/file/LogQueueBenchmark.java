@@ -0,0 +1,121 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.printer.file.overflow.BlockOverflowPolicy;
+import com.pasc.lib.log.printer.file.ring.BlockingWaitStrategy;
+import com.pasc.lib.log.printer.file.ring.ParkingWaitStrategy;
+import com.pasc.lib.log.printer.file.ring.YieldingWaitStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Hand-off cost of the log queues of {@link FilePrinter}, from 1, 4 and 16 printing threads to a
+ * worker draining in batches, printed as a table of nanoseconds per log.
+ */
+public class LogQueueBenchmark {
+
+  private static final int LOGS = 200000;
+  private static final int CAPACITY = 1024;
+  private static final int BATCH_SIZE = 64;
+  private static final int[] PRODUCERS = {1, 4, 16};
+
+  @Test public void handOffThroughput() throws Exception {
+    System.out.println("LogQueueBenchmark, ns per log, " + LOGS + " logs, "
+        + Runtime.getRuntime().availableProcessors() + " CPUs");
+    System.out.println(String.format("%-26s%10s%10s%10s", "queue", "1", "4", "16"));
+    for (int round = 0; round < 2; round++) {
+      // The first round warms up.
+      boolean print = round == 1;
+      run("LinkedLogQueue", new Factory() {
+        @Override public LogQueue create() {
+          return new LinkedLogQueue();
+        }
+      }, print);
+      run("BoundedLogQueue(block)", new Factory() {
+        @Override public LogQueue create() {
+          return new BoundedLogQueue(CAPACITY, 0, new BlockOverflowPolicy(Long.MAX_VALUE));
+        }
+      }, print);
+      run("RingLogQueue(blocking)", new Factory() {
+        @Override public LogQueue create() {
+          return new RingLogQueue(CAPACITY, new BlockingWaitStrategy());
+        }
+      }, print);
+      run("RingLogQueue(parking)", new Factory() {
+        @Override public LogQueue create() {
+          return new RingLogQueue(CAPACITY, new ParkingWaitStrategy());
+        }
+      }, print);
+      run("RingLogQueue(yielding)", new Factory() {
+        @Override public LogQueue create() {
+          return new RingLogQueue(CAPACITY, new YieldingWaitStrategy());
+        }
+      }, print);
+    }
+  }
+
+  private static void run(String name, Factory factory, boolean print) throws Exception {
+    StringBuilder line = new StringBuilder(String.format("%-26s", name));
+    for (int producers : PRODUCERS) {
+      long nanos = handOff(factory.create(), producers);
+      line.append(String.format("%10.1f", (double) nanos / LOGS));
+    }
+    if (print) {
+      System.out.println(line);
+    }
+  }
+
+  /**
+   * Hand off the logs from the producers to the consumer.
+   *
+   * @return the nanoseconds until the consumer took all logs
+   */
+  private static long handOff(final LogQueue queue, int producers) throws Exception {
+    final int logsPerProducer = LOGS / producers;
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[producers];
+    for (int p = 0; p < producers; p++) {
+      threads[p] = new Thread() {
+        @Override public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < logsPerProducer; i++) {
+              queue.put(LogLevel.INFO, "TAG", "message", null, i, this, i);
+            }
+          } catch (InterruptedException e) {
+            // Test over.
+          }
+        }
+      };
+      threads[p].start();
+    }
+
+    List<LogItem> batch = new ArrayList<>(BATCH_SIZE);
+    int total = logsPerProducer * producers;
+    int taken = 0;
+    long begin = System.nanoTime();
+    start.countDown();
+    while (taken < total) {
+      batch.add(queue.take());
+      queue.drainTo(batch, BATCH_SIZE - 1);
+      taken += batch.size();
+      queue.recycle(batch);
+      batch.clear();
+    }
+    long nanos = System.nanoTime() - begin;
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(total, taken);
+    return nanos * LOGS / total;
+  }
+
+  private interface Factory {
+
+    LogQueue create();
+  }
+}
@@ -0,0 +1,161 @@
+package com.pasc.lib.log;
+
+import com.pasc.lib.log.internal.CallSite;
+
+/**
+ * The replacement of {@link android.util.Log}, calls to which are redirected here by the
+ * LibLogPlugin transform at build time if {@code redirectAndroidLog} is enabled, do not call it
+ * directly.
+ * <p>
+ * Logs are printed through {@link PascLog.Log}, or printed by {@link android.util.Log} as before
+ * if PascLog is not initialized yet.
+ */
+@SuppressWarnings("deprecation")
+public final class AndroidLogBridge {
+
+  private AndroidLogBridge() {
+  }
+
+  /**
+   * Whether the logs should be printed by {@link android.util.Log} directly, the call site kept
+   * for the log is dropped in that case.
+   */
+  private static boolean fallback() {
+    if (PascLog.sIsInitialized) {
+      return false;
+    }
+    CallSite.discard();
+    return true;
+  }
+
+  public static int v(String tag, String msg) {
+    if (fallback()) {
+      return android.util.Log.v(tag, msg);
+    }
+    PascLog.Log.v(tag, msg);
+    return 0;
+  }
+
+  public static int v(String tag, String msg, Throwable tr) {
+    if (fallback()) {
+      return android.util.Log.v(tag, msg, tr);
+    }
+    PascLog.Log.v(tag, msg, tr);
+    return 0;
+  }
+
+  public static int d(String tag, String msg) {
+    if (fallback()) {
+      return android.util.Log.d(tag, msg);
+    }
+    PascLog.Log.d(tag, msg);
+    return 0;
+  }
+
+  public static int d(String tag, String msg, Throwable tr) {
+    if (fallback()) {
+      return android.util.Log.d(tag, msg, tr);
+    }
+    PascLog.Log.d(tag, msg, tr);
+    return 0;
+  }
+
+  public static int i(String tag, String msg) {
+    if (fallback()) {
+      return android.util.Log.i(tag, msg);
+    }
+    PascLog.Log.i(tag, msg);
+    return 0;
+  }
+
+  public static int i(String tag, String msg, Throwable tr) {
+    if (fallback()) {
+      return android.util.Log.i(tag, msg, tr);
+    }
+    PascLog.Log.i(tag, msg, tr);
+    return 0;
+  }
+
+  public static int w(String tag, String msg) {
+    if (fallback()) {
+      return android.util.Log.w(tag, msg);
+    }
+    PascLog.Log.w(tag, msg);
+    return 0;
+  }
+
+  public static int w(String tag, String msg, Throwable tr) {
+    if (fallback()) {
+      return android.util.Log.w(tag, msg, tr);
+    }
+    PascLog.Log.w(tag, msg, tr);
+    return 0;
+  }
+
+  public static int w(String tag, Throwable tr) {
+    if (fallback()) {
+      return android.util.Log.w(tag, tr);
+    }
+    PascLog.Log.w(tag, tr);
+    return 0;
+  }
+
+  public static int e(String tag, String msg) {
+    if (fallback()) {
+      return android.util.Log.e(tag, msg);
+    }
+    PascLog.Log.e(tag, msg);
+    return 0;
+  }
+
+  public static int e(String tag, String msg, Throwable tr) {
+    if (fallback()) {
+      return android.util.Log.e(tag, msg, tr);
+    }
+    PascLog.Log.e(tag, msg, tr);
+    return 0;
+  }
+
+  public static int wtf(String tag, String msg) {
+    if (fallback()) {
+      return android.util.Log.wtf(tag, msg);
+    }
+    PascLog.Log.wtf(tag, msg);
+    return 0;
+  }
+
+  public static int wtf(String tag, Throwable tr) {
+    if (fallback()) {
+      return android.util.Log.wtf(tag, tr);
+    }
+    PascLog.Log.wtf(tag, tr);
+    return 0;
+  }
+
+  public static int wtf(String tag, String msg, Throwable tr) {
+    if (fallback()) {
+      return android.util.Log.wtf(tag, msg, tr);
+    }
+    PascLog.Log.wtf(tag, msg, tr);
+    return 0;
+  }
+
+  public static int println(int priority, String tag, String msg) {
+    if (fallback()) {
+      return android.util.Log.println(priority, tag, msg);
+    }
+    PascLog.Log.println(priority, tag, msg);
+    return 0;
+  }
+
+  public static boolean isLoggable(String tag, int level) {
+    if (!PascLog.sIsInitialized) {
+      return android.util.Log.isLoggable(tag, level);
+    }
+    return PascLog.Log.isLoggable(tag, level);
+  }
+
+  public static String getStackTraceString(Throwable tr) {
+    return PascLog.Log.getStackTraceString(tr);
+  }
+}
@@ -0,0 +1,40 @@
+package com.pasc.lib.log;
+
+import com.pasc.lib.log.formatter.Formatter;
+
+/**
+ * A JSON or XML payload pretty-printed only when the message is needed, maybe by the worker
+ * thread of a printer, the payload is kept as it is if it can not be formatted.
+ */
+/*package*/ class FormattedMessage implements MessageSupplier {
+
+  private final Formatter<String> formatter;
+  private final String payload;
+
+  private volatile String message;
+
+  /**
+   * Constructor.
+   *
+   * @param formatter the formatter to pretty-print the payload
+   * @param payload   the raw payload
+   */
+  FormattedMessage(Formatter<String> formatter, String payload) {
+    this.formatter = formatter;
+    this.payload = payload;
+  }
+
+  @Override
+  public String get() {
+    String message = this.message;
+    if (message == null) {
+      try {
+        message = formatter.format(payload);
+      } catch (Exception e) {
+        message = payload;
+      }
+      this.message = message;
+    }
+    return message;
+  }
+}
@@ -46,6 +46,11 @@ public class LogConfiguration {
    */
   public final boolean withStackTrace;
 
+  /**
+   * Whether the stack trace is only the call site, found and formatted by the fast path.
+   */
+  public final boolean withCallSite;
+
   /**
    * The origin of stack trace elements from which we should not log when logging with stack trace,
    * it can be a package name like "com.elvishew.xlog", a class name like "com.yourdomain.logWrapper",
@@ -68,6 +73,31 @@ public class LogConfiguration {
    */
   public final boolean withBorder;
 
+  /**
+   * Whether the format of a message uses "{}" placeholders instead of {@link String#format}
+   * specifiers, arguments of such messages are captured when logging, and may be filled in
+   * later by a {@link com.pasc.lib.log.printer.DeferredPrinter}.
+   */
+  public final boolean withPlaceholder;
+
+  /**
+   * Whether JSON and XML payloads are pretty-printed when the message is needed, by the worker
+   * thread of a {@link com.pasc.lib.log.printer.DeferredPrinter} if possible, rather than by the
+   * logging thread.
+   */
+  public final boolean withDeferredFormat;
+
+  /**
+   * The max length of a JSON or XML payload to be pretty-printed, longer payloads are logged raw,
+   * or truncated to this length if {@link #truncateOverLimit}.
+   */
+  public final int formatLimit;
+
+  /**
+   * Whether JSON and XML payloads longer than {@link #formatLimit} are truncated.
+   */
+  public final boolean truncateOverLimit;
+
   /**
    * The JSON formatter used to format the JSON string when log a JSON string.
    */
@@ -119,9 +149,14 @@ public class LogConfiguration {
 
     withThread = builder.withThread;
     withStackTrace = builder.withStackTrace;
+    withCallSite = builder.withCallSite;
     stackTraceOrigin = builder.stackTraceOrigin;
     stackTraceDepth = builder.stackTraceDepth;
     withBorder = builder.withBorder;
+    withPlaceholder = builder.withPlaceholder;
+    withDeferredFormat = builder.withDeferredFormat;
+    formatLimit = builder.formatLimit;
+    truncateOverLimit = builder.truncateOverLimit;
 
     jsonFormatter = builder.jsonFormatter;
     xmlFormatter = builder.xmlFormatter;
@@ -207,6 +242,11 @@ public class LogConfiguration {
      */
     private boolean withStackTrace;
 
+    /**
+     * Whether the stack trace is only the call site.
+     */
+    private boolean withCallSite;
+
     /**
      * The origin of stack trace elements from which we should NOT log when logging with stack trace,
      * it can be a package name like "com.elvishew.xlog", a class name like "com.yourdomain.logWrapper",
@@ -227,6 +267,26 @@ public class LogConfiguration {
      */
     private boolean withBorder;
 
+    /**
+     * Whether the format of a message uses "{}" placeholders.
+     */
+    private boolean withPlaceholder;
+
+    /**
+     * Whether JSON and XML payloads are pretty-printed when the message is needed.
+     */
+    private boolean withDeferredFormat;
+
+    /**
+     * The max length of a JSON or XML payload to be pretty-printed.
+     */
+    private int formatLimit = Integer.MAX_VALUE;
+
+    /**
+     * Whether JSON and XML payloads over the format limit are truncated.
+     */
+    private boolean truncateOverLimit;
+
     /**
      * The JSON formatter used to format the JSON string when log a JSON string.
      */
@@ -285,9 +345,14 @@ public class LogConfiguration {
 
       withThread = logConfiguration.withThread;
       withStackTrace = logConfiguration.withStackTrace;
+      withCallSite = logConfiguration.withCallSite;
       stackTraceOrigin = logConfiguration.stackTraceOrigin;
       stackTraceDepth = logConfiguration.stackTraceDepth;
       withBorder = logConfiguration.withBorder;
+      withPlaceholder = logConfiguration.withPlaceholder;
+      withDeferredFormat = logConfiguration.withDeferredFormat;
+      formatLimit = logConfiguration.formatLimit;
+      truncateOverLimit = logConfiguration.truncateOverLimit;
 
       jsonFormatter = logConfiguration.jsonFormatter;
       xmlFormatter = logConfiguration.xmlFormatter;
@@ -375,11 +440,37 @@ public class LogConfiguration {
      */
     public Builder stackTraceEnable(String stackTraceOrigin, int depth) {
       this.withStackTrace = true;
+      this.withCallSite = false;
       this.stackTraceOrigin = stackTraceOrigin;
       this.stackTraceDepth = depth;
       return this;
     }
 
+    /**
+     * Enable the call site, that is, a stack trace with only the frame calling the logger, which is
+     * found and formatted much faster than a stack trace with {@link #stackTraceEnable(int)}: the
+     * stack is scanned from the top and stops at the caller, and the formatted call sites are
+     * cached, so logs from the same line reuse the same string.
+     *
+     * @return the builder
+     */
+    public Builder callSiteEnable() {
+      return callSiteEnable(null);
+    }
+
+    /**
+     * Enable the call site, see {@link #callSiteEnable()}.
+     *
+     * @param stackTraceOrigin the origin of stack trace elements from which we should NOT log,
+     *                         see {@link #stackTraceEnable(String, int)}
+     * @return the builder
+     */
+    public Builder callSiteEnable(String stackTraceOrigin) {
+      stackTraceEnable(stackTraceOrigin, 1);
+      this.withCallSite = true;
+      return this;
+    }
+
     /**
      * Disable stack trace.
      *
@@ -387,6 +478,7 @@ public class LogConfiguration {
      */
     public Builder stackTraceDisable() {
       this.withStackTrace = false;
+      this.withCallSite = false;
       this.stackTraceOrigin = null;
       this.stackTraceDepth = 0;
       return this;
@@ -412,6 +504,73 @@ public class LogConfiguration {
       return this;
     }
 
+    /**
+     * Use "{}" placeholders in the format of messages, like "user {} logged in", instead of
+     * {@link String#format} specifiers.
+     * <p>
+     * Immutable arguments are captured as they are, others are formatted to strings right away,
+     * the message itself is built only if the log is going to be printed, and by the worker
+     * thread of the printer if all printers are {@link com.pasc.lib.log.printer.DeferredPrinter}s
+     * and there is no thread info, stack trace, border or interceptor.
+     *
+     * @return the builder
+     */
+    public Builder placeholderEnable() {
+      this.withPlaceholder = true;
+      return this;
+    }
+
+    /**
+     * Use {@link String#format} specifiers in the format of messages, this is the default.
+     *
+     * @return the builder
+     */
+    public Builder placeholderDisable() {
+      this.withPlaceholder = false;
+      return this;
+    }
+
+    /**
+     * Pretty-print JSON and XML payloads only when the message is needed, by the worker thread of
+     * the printer if all printers are {@link com.pasc.lib.log.printer.DeferredPrinter}s and there
+     * is no thread info, stack trace, border or interceptor, so that formatting a large payload
+     * doesn't block the logging thread.
+     *
+     * @return the builder
+     * @see #formatLimit(int, boolean)
+     */
+    public Builder deferredFormatEnable() {
+      this.withDeferredFormat = true;
+      return this;
+    }
+
+    /**
+     * Pretty-print JSON and XML payloads on the logging thread, this is the default.
+     *
+     * @return the builder
+     */
+    public Builder deferredFormatDisable() {
+      this.withDeferredFormat = false;
+      return this;
+    }
+
+    /**
+     * Set the max length of a JSON or XML payload to be pretty-printed, longer payloads are
+     * logged without formatting, no limit by default.
+     *
+     * @param maxLength the max length of a payload to be pretty-printed
+     * @param truncate  whether to truncate longer payloads to the max length
+     * @return the builder
+     */
+    public Builder formatLimit(int maxLength, boolean truncate) {
+      if (maxLength < 0) {
+        throw new IllegalArgumentException("maxLength should not be negative");
+      }
+      this.formatLimit = maxLength;
+      this.truncateOverLimit = truncate;
+      return this;
+    }
+
     /**
      * Set the JSON formatter used when log a JSON string.
      *
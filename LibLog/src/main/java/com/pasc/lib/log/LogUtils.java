@@ -1,12 +1,18 @@
 
 package com.pasc.lib.log;
 
+import com.pasc.lib.log.printer.file.DeflateLogInputStream;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -85,6 +91,51 @@ public class LogUtils {
     return PascLog.sLogConfiguration.borderFormatter.format(segments);
   }
 
+  /**
+   * Open a log file for reading, a log file compressed by
+   * {@link com.pasc.lib.log.printer.file.FilePrinter.Builder#compressBackup(boolean)}, with the
+   * ".gz" suffix, or written by
+   * {@link com.pasc.lib.log.printer.file.FilePrinter.Builder#compressLog(boolean)}, is
+   * decompressed transparently.
+   * <p>
+   * Should be call in background thread.
+   *
+   * @param file the log file
+   * @return the stream of the uncompressed content
+   * @throws IOException if any error occurs
+   */
+  public static InputStream openLogInputStream(File file) throws IOException {
+    InputStream in = new BufferedInputStream(new FileInputStream(file), 8 * 1024);
+    try {
+      if (file.getName().endsWith(".gz")) {
+        return new GZIPInputStream(in, 8 * 1024);
+      }
+      in.mark(4);
+      DataInputStream header = new DataInputStream(in);
+      boolean deflated = file.length() >= 4 && header.readInt() == DeflateLogInputStream.MAGIC;
+      in.reset();
+      return deflated ? new DeflateLogInputStream(in) : in;
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Open a log file for reading line by line, compressed log files are decompressed
+   * transparently, the logs are decoded as UTF-8, as they are written.
+   * <p>
+   * Should be call in background thread.
+   *
+   * @param file the log file
+   * @return the reader of the uncompressed content
+   * @throws IOException if any error occurs
+   * @see #openLogInputStream(File)
+   */
+  public static BufferedReader openLogReader(File file) throws IOException {
+    return new BufferedReader(new InputStreamReader(openLogInputStream(file), "UTF-8"));
+  }
+
   /**
    * Compress all files under the specific folder to a single zip file.
    * <p>
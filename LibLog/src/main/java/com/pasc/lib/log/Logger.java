@@ -3,6 +3,7 @@ package com.pasc.lib.log;
 
 import android.text.TextUtils;
 
+import com.pasc.lib.log.formatter.Formatter;
 import com.pasc.lib.log.formatter.border.BorderFormatter;
 import com.pasc.lib.log.formatter.message.json.JsonFormatter;
 import com.pasc.lib.log.formatter.message.object.ObjectFormatter;
@@ -11,9 +12,11 @@ import com.pasc.lib.log.formatter.message.xml.XmlFormatter;
 import com.pasc.lib.log.formatter.stacktrace.StackTraceFormatter;
 import com.pasc.lib.log.formatter.thread.ThreadFormatter;
 import com.pasc.lib.log.interceptor.Interceptor;
+import com.pasc.lib.log.internal.CallSite;
 import com.pasc.lib.log.internal.DefaultsFactory;
 import com.pasc.lib.log.internal.SystemCompat;
 import com.pasc.lib.log.internal.util.StackTraceUtil;
+import com.pasc.lib.log.printer.DeferredPrinter;
 import com.pasc.lib.log.printer.Printer;
 import com.pasc.lib.log.printer.PrinterSet;
 import java.util.ArrayList;
@@ -40,9 +43,9 @@ public class Logger {
   private LogConfiguration logConfiguration;
 
   /**
-   * The log printer used to print the logs.
+   * The log printer used to print the logs, replaced as a whole by {@link #setPrinter(Printer)}.
    */
-  private Printer printer;
+  private volatile Printer printer;
 
   /**
    * Construct a logger.
@@ -84,7 +87,9 @@ public class Logger {
       }
     }
     if (builder.stackTraceSet) {
-      if (builder.withStackTrace) {
+      if (builder.withCallSite) {
+        logConfigBuilder.callSiteEnable(builder.stackTraceOrigin);
+      } else if (builder.withStackTrace) {
         logConfigBuilder.stackTraceEnable(builder.stackTraceOrigin, builder.stackTraceDepth);
       } else {
         logConfigBuilder.stackTraceDisable();
@@ -170,6 +175,15 @@ public class Logger {
     println(tag, LogLevel.VERBOSE, msg);
   }
 
+  /**
+   * Log a message supplied lazily with level {@link LogLevel#VERBOSE}.
+   *
+   * @param supplier the supplier of the message to log, called only if the log is loggable
+   */
+  public void v(String tag, MessageSupplier supplier) {
+    println(tag, LogLevel.VERBOSE, supplier);
+  }
+
   /**
    * Log a message and a throwable with level {@link LogLevel#VERBOSE}.
    *
@@ -219,6 +233,15 @@ public class Logger {
     println(tag, LogLevel.DEBUG, msg);
   }
 
+  /**
+   * Log a message supplied lazily with level {@link LogLevel#DEBUG}.
+   *
+   * @param supplier the supplier of the message to log, called only if the log is loggable
+   */
+  public void d(String tag, MessageSupplier supplier) {
+    println(tag, LogLevel.DEBUG, supplier);
+  }
+
   /**
    * Log a message and a throwable with level {@link LogLevel#DEBUG}.
    *
@@ -268,6 +291,15 @@ public class Logger {
     println(tag, LogLevel.INFO, msg);
   }
 
+  /**
+   * Log a message supplied lazily with level {@link LogLevel#INFO}.
+   *
+   * @param supplier the supplier of the message to log, called only if the log is loggable
+   */
+  public void i(String tag, MessageSupplier supplier) {
+    println(tag, LogLevel.INFO, supplier);
+  }
+
   /**
    * Log a message and a throwable with level {@link LogLevel#INFO}.
    *
@@ -317,6 +349,15 @@ public class Logger {
     println(tag, LogLevel.WARN, msg);
   }
 
+  /**
+   * Log a message supplied lazily with level {@link LogLevel#WARN}.
+   *
+   * @param supplier the supplier of the message to log, called only if the log is loggable
+   */
+  public void w(String tag, MessageSupplier supplier) {
+    println(tag, LogLevel.WARN, supplier);
+  }
+
   /**
    * Log a message and a throwable with level {@link LogLevel#WARN}.
    *
@@ -366,6 +407,15 @@ public class Logger {
     println(tag, LogLevel.ERROR, msg);
   }
 
+  /**
+   * Log a message supplied lazily with level {@link LogLevel#ERROR}.
+   *
+   * @param supplier the supplier of the message to log, called only if the log is loggable
+   */
+  public void e(String tag, MessageSupplier supplier) {
+    println(tag, LogLevel.ERROR, supplier);
+  }
+
   /**
    * Log a message and a throwable with level {@link LogLevel#ERROR}.
    *
@@ -422,6 +472,16 @@ public class Logger {
     println(tag, logLevel, msg);
   }
 
+  /**
+   * Log a message supplied lazily with specific log level.
+   *
+   * @param logLevel the specific log level
+   * @param supplier the supplier of the message to log, called only if the log is loggable
+   */
+  public void log(String tag, int logLevel, MessageSupplier supplier) {
+    println(tag, logLevel, supplier);
+  }
+
   /**
    * Log a message and a throwable with specific log level.
    *
@@ -442,16 +502,17 @@ public class Logger {
    *
    */
   public void json(String tag, int logLevel, String json) {
-    if (logLevel < logConfiguration.logLevel) {
+    if (!isLoggable(logLevel)) {
       return;
     }
+    CallSite callSite = CallSite.take();
+    String site = callSite != null ? callSite.site : null;
+    tag = tagOf(tag, callSite);
     try {
-      json = logConfiguration.jsonFormatter.format(json);
-    }catch (Exception e) {
-
+      printlnFormatted(tag, site, logLevel, logConfiguration.jsonFormatter, json);
+    } finally {
+      CallSite.discard();
     }
-
-    printlnInternal(tag, logLevel, json);
   }
 
   /**
@@ -460,15 +521,46 @@ public class Logger {
    * @param xml the XML string to log
    */
   public void xml(String tag, String xml) {
-    if (LogLevel.DEBUG < logConfiguration.logLevel) {
+    if (!isLoggable(LogLevel.DEBUG)) {
       return;
     }
-    try{
-      xml = logConfiguration.xmlFormatter.format(xml);
-    }catch (Exception e) {
+    CallSite callSite = CallSite.take();
+    String site = callSite != null ? callSite.site : null;
+    tag = tagOf(tag, callSite);
+    try {
+      printlnFormatted(tag, site, LogLevel.DEBUG, logConfiguration.xmlFormatter, xml);
+    } finally {
+      CallSite.discard();
+    }
+  }
 
+  /**
+   * Print a JSON or XML payload in a new line, pretty-printed if not longer than the format limit,
+   * and by the printer if formatting is deferred and the printer is able to.
+   *
+   * @param tag       the resolved tag of the printing payload
+   * @param site      the injected call site of the printing payload, null if not injected
+   * @param logLevel  the log level of the printing payload
+   * @param formatter the formatter to pretty-print the payload
+   * @param payload   the payload to print
+   */
+  private void printlnFormatted(String tag, String site, int logLevel,
+                                Formatter<String> formatter, String payload) {
+    int formatLimit = logConfiguration.formatLimit;
+    if (payload != null && payload.length() > formatLimit) {
+      printlnInternal(tag, site, logLevel, logConfiguration.truncateOverLimit
+          ? payload.substring(0, formatLimit) + "... (" + (payload.length() - formatLimit)
+          + " chars truncated)"
+          : payload);
+      return;
+    }
+    MessageSupplier message = new FormattedMessage(formatter, payload);
+    Printer printer = this.printer;
+    if (logConfiguration.withDeferredFormat && isDeferrable(printer)) {
+      ((DeferredPrinter) printer).println(logLevel, tag, message);
+    } else {
+      printlnInternal(tag, site, logLevel, message.get());
     }
-    printlnInternal(tag, LogLevel.DEBUG, xml);
   }
 
   /**
@@ -478,21 +570,28 @@ public class Logger {
    * @param object   the object to print
    */
   private <T> void println(String tag, int logLevel, T object) {
-    if (logLevel < logConfiguration.logLevel) {
+    if (!isLoggable(logLevel)) {
       return;
     }
-    String objectString;
-    if (object != null) {
-      ObjectFormatter<? super T> objectFormatter = logConfiguration.getObjectFormatter(object);
-      if (objectFormatter != null) {
-        objectString = objectFormatter.format(object);
+    CallSite callSite = CallSite.take();
+    String site = callSite != null ? callSite.site : null;
+    tag = tagOf(tag, callSite);
+    try {
+      String objectString;
+      if (object != null) {
+        ObjectFormatter<? super T> objectFormatter = logConfiguration.getObjectFormatter(object);
+        if (objectFormatter != null) {
+          objectString = objectFormatter.format(object);
+        } else {
+          objectString = object.toString();
+        }
       } else {
-        objectString = object.toString();
+        objectString = "null";
       }
-    } else {
-      objectString = "null";
+      printlnInternal(tag, site, logLevel, objectString);
+    } finally {
+      CallSite.discard();
     }
-    printlnInternal(tag, logLevel, objectString);
   }
 
   /**
@@ -502,10 +601,17 @@ public class Logger {
    * @param array    the array to print
    */
   private void println(String tag, int logLevel, Object[] array) {
-    if (logLevel < logConfiguration.logLevel) {
+    if (!isLoggable(logLevel)) {
       return;
     }
-    printlnInternal(tag, logLevel, Arrays.deepToString(array));
+    CallSite callSite = CallSite.take();
+    String site = callSite != null ? callSite.site : null;
+    tag = tagOf(tag, callSite);
+    try {
+      printlnInternal(tag, site, logLevel, Arrays.deepToString(array));
+    } finally {
+      CallSite.discard();
+    }
   }
 
   /**
@@ -516,10 +622,97 @@ public class Logger {
    * @param args     the arguments of the printing log
    */
   private void println(String tag, int logLevel, String format, Object... args) {
-    if (logLevel < logConfiguration.logLevel) {
+    if (!isLoggable(logLevel)) {
+      return;
+    }
+    CallSite callSite = CallSite.take();
+    String site = callSite != null ? callSite.site : null;
+    tag = tagOf(tag, callSite);
+    try {
+      if (!logConfiguration.withPlaceholder) {
+        printlnInternal(tag, site, logLevel, formatArgs(format, args));
+        return;
+      }
+      MessageSupplier message = new ParameterizedMessage(format,
+          ParameterizedMessage.snapshot(logConfiguration, args));
+      Printer printer = this.printer;
+      if (isDeferrable(printer)) {
+        ((DeferredPrinter) printer).println(logLevel, tag, message);
+      } else {
+        printlnInternal(tag, site, logLevel, message.get());
+      }
+    } finally {
+      CallSite.discard();
+    }
+  }
+
+  /**
+   * Print a log supplied lazily in a new line.
+   *
+   * @param logLevel the log level of the printing log
+   * @param supplier the supplier of the message, called only if the log is loggable
+   */
+  private void println(String tag, int logLevel, MessageSupplier supplier) {
+    if (!isLoggable(logLevel)) {
       return;
     }
-    printlnInternal(tag, logLevel, formatArgs(format, args));
+    CallSite callSite = CallSite.take();
+    String site = callSite != null ? callSite.site : null;
+    tag = tagOf(tag, callSite);
+    try {
+      printlnInternal(tag, site, logLevel, supplier.get());
+    } finally {
+      CallSite.discard();
+    }
+  }
+
+  /**
+   * Whether logs with specific level is loggable, the call site injected for the log is dropped if
+   * not loggable.
+   * <p>
+   * If loggable, the call site must be taken right after, before building the message, as the
+   * message building may log too, and the call site is kept per thread. The call sites injected
+   * for such nested logs and never taken are dropped once the log is printed.
+   *
+   * @param logLevel the level of the log
+   * @return true if loggable, false otherwise
+   */
+  private boolean isLoggable(int logLevel) {
+    if (logLevel >= logConfiguration.logLevel) {
+      return true;
+    }
+    CallSite.discard();
+    return false;
+  }
+
+  /**
+   * Resolve the tag of a log, the tag injected for the call site is used if no tag is given, and
+   * the default tag if none injected either.
+   *
+   * @param tag      the tag given for the log, maybe empty
+   * @param callSite the call site taken for the log, maybe null
+   * @return the tag to print
+   */
+  private String tagOf(String tag, CallSite callSite) {
+    if (!TextUtils.isEmpty(tag)) {
+      return tag;
+    }
+    return callSite != null && callSite.tag != null ? callSite.tag : logConfiguration.tag;
+  }
+
+  /**
+   * Whether the message can be handed to the printer without building it, that is, the printer
+   * builds it by itself, and nothing else needs the built message before printing.
+   *
+   * @param printer the printer to print the log
+   * @return true if the message building can be deferred to the printer
+   */
+  private boolean isDeferrable(Printer printer) {
+    return printer instanceof DeferredPrinter
+        && !logConfiguration.withThread
+        && !logConfiguration.withStackTrace
+        && !logConfiguration.withBorder
+        && logConfiguration.interceptors == null;
   }
 
   /**
@@ -529,10 +722,17 @@ public class Logger {
    * @param msg      the message you would like to log
    */
     /*package*/ void println(String tag, int logLevel, String msg) {
-    if (logLevel < logConfiguration.logLevel) {
+    if (!isLoggable(logLevel)) {
       return;
     }
-    printlnInternal(tag, logLevel, msg);
+    CallSite callSite = CallSite.take();
+    String site = callSite != null ? callSite.site : null;
+    tag = tagOf(tag, callSite);
+    try {
+      printlnInternal(tag, site, logLevel, msg);
+    } finally {
+      CallSite.discard();
+    }
   }
 
   /**
@@ -543,34 +743,50 @@ public class Logger {
    * @param tr       a throwable object to log
    */
   private void println(String tag, int logLevel, String msg, Throwable tr) {
-    if (logLevel < logConfiguration.logLevel) {
+    if (!isLoggable(logLevel)) {
       return;
     }
-    printlnInternal(tag, logLevel, ((msg == null || msg.length() == 0)
-        ? "" : (msg + SystemCompat.lineSeparator))
-        + logConfiguration.throwableFormatter.format(tr));
+    CallSite callSite = CallSite.take();
+    String site = callSite != null ? callSite.site : null;
+    tag = tagOf(tag, callSite);
+    try {
+      printlnInternal(tag, site, logLevel, ((msg == null || msg.length() == 0)
+          ? "" : (msg + SystemCompat.lineSeparator))
+          + logConfiguration.throwableFormatter.format(tr));
+    } finally {
+      CallSite.discard();
+    }
   }
 
   /**
    * Print a log in a new line internally.
    *
+   * @param tag      the resolved tag of the printing log
+   * @param site     the injected call site of the printing log, null if not injected
    * @param logLevel the log level of the printing log
    * @param msg      the message you would like to log
    */
-  private void printlnInternal(String tag, int logLevel, String msg) {
+  private void printlnInternal(String tag, String site, int logLevel, String msg) {
 //    if(!Log.isLoggable(logConfiguration.tag, logLevel)){
 //      return;
 //    }
-    tag = TextUtils.isEmpty(tag) ? logConfiguration.tag : tag;
     String thread = logConfiguration.withThread
         ? logConfiguration.threadFormatter.format(Thread.currentThread())
         : null;
-    String stackTrace = logConfiguration.withStackTrace
-        ? logConfiguration.stackTraceFormatter.format(
-        StackTraceUtil.getCroppedRealStackTrack(new Throwable().getStackTrace(),
-            logConfiguration.stackTraceOrigin,
-            logConfiguration.stackTraceDepth))
-        : null;
+    String stackTrace;
+    if (logConfiguration.withCallSite) {
+      stackTrace = site != null
+          ? StackTraceUtil.formatInjectedCallSite(site, logConfiguration.stackTraceFormatter)
+          : StackTraceUtil.formatCallSite(logConfiguration.stackTraceOrigin,
+              logConfiguration.stackTraceFormatter);
+    } else if (logConfiguration.withStackTrace) {
+      stackTrace = logConfiguration.stackTraceFormatter.format(
+          StackTraceUtil.getCroppedRealStackTrack(new Throwable().getStackTrace(),
+              logConfiguration.stackTraceOrigin,
+              logConfiguration.stackTraceDepth));
+    } else {
+      stackTrace = null;
+    }
 
     if (logConfiguration.interceptors != null) {
       LogItem log = new LogItem(logLevel, tag, thread, stackTrace, msg);
@@ -597,15 +813,21 @@ public class Logger {
       stackTrace = log.stackTraceInfo;
       msg = log.msg;
     }
-    PascLog.sPrintRWL.readLock().lock();
-    if (printer != null) {
-      printer.println(logLevel, tag, logConfiguration.withBorder
-              ? logConfiguration.borderFormatter.format(new String[]{thread, stackTrace, msg})
-              : ((thread != null ? (thread + SystemCompat.lineSeparator) : "")
-              + (stackTrace != null ? (stackTrace + SystemCompat.lineSeparator) : "")
-              + msg));
+    Printer printer = this.printer;
+    if (printer == null) {
+      return;
+    }
+    if (logConfiguration.withBorder) {
+      printer.println(logLevel, tag,
+          logConfiguration.borderFormatter.format(new String[]{thread, stackTrace, msg}));
+    } else if (thread == null && stackTrace == null) {
+      // The common case, print the message as it is without copying.
+      printer.println(logLevel, tag, msg);
+    } else {
+      printer.println(logLevel, tag, (thread != null ? (thread + SystemCompat.lineSeparator) : "")
+          + (stackTrace != null ? (stackTrace + SystemCompat.lineSeparator) : "")
+          + msg);
     }
-    PascLog.sPrintRWL.readLock().unlock();
   }
 
   /**
@@ -680,6 +902,11 @@ public class Logger {
      */
     private boolean stackTraceSet;
 
+    /**
+     * Whether the stack trace is only the call site.
+     */
+    private boolean withCallSite;
+
     /**
      * Whether we should log with border.
      */
@@ -799,6 +1026,7 @@ public class Logger {
      */
     public Builder stackTraceEnable(int depth) {
       this.withStackTrace = true;
+      this.withCallSite = false;
       this.stackTraceDepth = depth;
       this.stackTraceSet = true;
       return this;
@@ -818,12 +1046,36 @@ public class Logger {
      */
     public Builder stackTraceEnable(String stackTraceOrigin, int depth) {
       this.withStackTrace = true;
+      this.withCallSite = false;
       this.stackTraceOrigin = stackTraceOrigin;
       this.stackTraceDepth = depth;
       this.stackTraceSet = true;
       return this;
     }
 
+    /**
+     * Enable the call site, a fast stack trace with only the frame calling the logger.
+     *
+     * @return the builder
+     * @see LogConfiguration.Builder#callSiteEnable()
+     */
+    public Builder callSiteEnable() {
+      return callSiteEnable(null);
+    }
+
+    /**
+     * Enable the call site, a fast stack trace with only the frame calling the logger.
+     *
+     * @param stackTraceOrigin the origin of stack trace elements from which we should NOT log
+     * @return the builder
+     * @see LogConfiguration.Builder#callSiteEnable(String)
+     */
+    public Builder callSiteEnable(String stackTraceOrigin) {
+      stackTraceEnable(stackTraceOrigin, 1);
+      this.withCallSite = true;
+      return this;
+    }
+
     /**
      * Disable stack trace.
      *
@@ -831,6 +1083,7 @@ public class Logger {
      */
     public Builder stackTraceDisable() {
       this.withStackTrace = false;
+      this.withCallSite = false;
       this.stackTraceOrigin = null;
       this.stackTraceDepth = 0;
       this.stackTraceSet = true;
@@ -1011,6 +1264,13 @@ public class Logger {
       build().v(null, msg);
     }
 
+    /**
+     * Convenience of {@link #build()} and {@link Logger#v(String, MessageSupplier)}.
+     */
+    public void v(MessageSupplier supplier) {
+      build().v(null, supplier);
+    }
+
     /**
      * Convenience of {@link #build()} and {@link Logger#v(String, String, Throwable)}.
      */
@@ -1050,6 +1310,13 @@ public class Logger {
       build().d(null, msg);
     }
 
+    /**
+     * Convenience of {@link #build()} and {@link Logger#d(String, MessageSupplier)}.
+     */
+    public void d(MessageSupplier supplier) {
+      build().d(null, supplier);
+    }
+
     /**
      * Convenience of {@link #build()} and {@link Logger#d(String, String, Throwable)}.
      */
@@ -1089,6 +1356,13 @@ public class Logger {
       build().i(null, msg);
     }
 
+    /**
+     * Convenience of {@link #build()} and {@link Logger#i(String, MessageSupplier)}.
+     */
+    public void i(MessageSupplier supplier) {
+      build().i(null, supplier);
+    }
+
     /**
      * Convenience of {@link #build()} and {@link Logger#i(String, String, Throwable)}.
      */
@@ -1128,6 +1402,13 @@ public class Logger {
       build().w(null, msg);
     }
 
+    /**
+     * Convenience of {@link #build()} and {@link Logger#w(String, MessageSupplier)}.
+     */
+    public void w(MessageSupplier supplier) {
+      build().w(null, supplier);
+    }
+
     /**
      * Convenience of {@link #build()} and {@link Logger#w(String, String, Throwable)}.
      */
@@ -1167,6 +1448,13 @@ public class Logger {
       build().e(null, msg);
     }
 
+    /**
+     * Convenience of {@link #build()} and {@link Logger#e(String, MessageSupplier)}.
+     */
+    public void e(MessageSupplier supplier) {
+      build().e(null, supplier);
+    }
+
     /**
      * Convenience of {@link #build()} and {@link Logger#e(String, String, Throwable)}.
      */
@@ -1210,6 +1498,13 @@ public class Logger {
       build().log(null, logLevel, msg);
     }
 
+    /**
+     * Convenience of {@link #build()} and {@link Logger#log(String, int, MessageSupplier)}.
+     */
+    public void log(int logLevel, MessageSupplier supplier) {
+      build().log(null, logLevel, supplier);
+    }
+
     /**
      * Convenience of {@link #build()} and {@link Logger#log(String, int, String, Throwable)}.
      *
@@ -0,0 +1,19 @@
+package com.pasc.lib.log;
+
+/**
+ * Supply the message of a log lazily, the message is built only if the log is going to be
+ * printed, which saves the cost of building messages of logs below the log level.
+ * <p>
+ * The supplier is called on the logging thread, after the log level is checked.
+ *
+ * @see Logger#d(String, MessageSupplier)
+ */
+public interface MessageSupplier {
+
+  /**
+   * Build the message.
+   *
+   * @return the message of the log
+   */
+  String get();
+}
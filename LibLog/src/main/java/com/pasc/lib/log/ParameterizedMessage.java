@@ -0,0 +1,117 @@
+package com.pasc.lib.log;
+
+import com.pasc.lib.log.formatter.message.object.ObjectFormatter;
+
+import java.util.Arrays;
+
+/**
+ * A message with "{}" placeholders, the arguments are filled into the placeholders only when
+ * the message is needed, maybe by the worker thread of a printer.
+ * <p>
+ * Arguments should be captured by {@link #snapshot(LogConfiguration, Object[])}, so that the
+ * message is the same no matter when and on which thread it is built.
+ */
+/*package*/ class ParameterizedMessage implements MessageSupplier {
+
+  private static final String PLACEHOLDER = "{}";
+
+  private final String pattern;
+  private final Object[] args;
+
+  private volatile String message;
+
+  /**
+   * Constructor.
+   *
+   * @param pattern the pattern with "{}" placeholders, null if just to concat the arguments
+   * @param args    the captured arguments
+   */
+  ParameterizedMessage(String pattern, Object[] args) {
+    this.pattern = pattern;
+    this.args = args;
+  }
+
+  /**
+   * Capture the arguments, immutable arguments are kept as they are, other arguments are
+   * formatted to strings right now, using the {@link ObjectFormatter} if there is one.
+   *
+   * @param logConfiguration the configuration providing the object formatters
+   * @param args             the arguments passed by the caller
+   * @return the captured arguments, safe to be used by any thread later
+   */
+  static Object[] snapshot(LogConfiguration logConfiguration, Object[] args) {
+    if (args == null) {
+      return new Object[0];
+    }
+    // Never touch the array of the caller, it may be reused.
+    Object[] snapshot = args.clone();
+    for (int i = 0; i < snapshot.length; i++) {
+      if (!isImmutable(snapshot[i])) {
+        snapshot[i] = formatArg(logConfiguration, snapshot[i]);
+      }
+    }
+    return snapshot;
+  }
+
+  private static boolean isImmutable(Object arg) {
+    return arg == null
+        || arg instanceof String
+        || arg instanceof Integer
+        || arg instanceof Long
+        || arg instanceof Boolean
+        || arg instanceof Character
+        || arg instanceof Double
+        || arg instanceof Float
+        || arg instanceof Short
+        || arg instanceof Byte
+        || arg instanceof Enum;
+  }
+
+  private static <T> String formatArg(LogConfiguration logConfiguration, T arg) {
+    if (arg instanceof Object[]) {
+      return Arrays.deepToString((Object[]) arg);
+    }
+    ObjectFormatter<? super T> objectFormatter = logConfiguration.getObjectFormatter(arg);
+    return objectFormatter != null ? objectFormatter.format(arg) : String.valueOf(arg);
+  }
+
+  @Override
+  public String get() {
+    String message = this.message;
+    if (message == null) {
+      message = format();
+      this.message = message;
+    }
+    return message;
+  }
+
+  private String format() {
+    StringBuilder sb = new StringBuilder(
+        (pattern != null ? pattern.length() : 0) + 16 * args.length);
+    if (pattern == null) {
+      for (int i = 0, N = args.length; i < N; i++) {
+        if (i != 0) {
+          sb.append(", ");
+        }
+        sb.append(args[i]);
+      }
+      return sb.toString();
+    }
+    int start = 0;
+    for (Object arg : args) {
+      int index = pattern.indexOf(PLACEHOLDER, start);
+      if (index < 0) {
+        break;
+      }
+      sb.append(pattern, start, index).append(arg);
+      start = index + PLACEHOLDER.length();
+    }
+    sb.append(pattern, start, pattern.length());
+    return sb.toString();
+  }
+
+  @Override
+  public String toString() {
+    return get();
+  }
+}
@@ -12,6 +12,7 @@ import com.pasc.lib.log.formatter.message.xml.XmlFormatter;
 import com.pasc.lib.log.formatter.stacktrace.StackTraceFormatter;
 import com.pasc.lib.log.formatter.thread.ThreadFormatter;
 import com.pasc.lib.log.interceptor.Interceptor;
+import com.pasc.lib.log.internal.CallSite;
 import com.pasc.lib.log.internal.DefaultsFactory;
 import com.pasc.lib.log.internal.Platform;
 import com.pasc.lib.log.internal.util.StackTraceUtil;
@@ -153,6 +154,27 @@ public class PascLog {
     public static String mSystemId;
     public static ReentrantReadWriteLock rwl;
     static ReentrantReadWriteLock sPrintRWL;
+
+    /**
+     * Immutable snapshot of {@link #sPrinterList}, republished whenever the list changes so that
+     * readers never need to take {@link #sPrintRWL}.
+     */
+    private static volatile PrinterSet sPrinterSnapshot;
+
+    /**
+     * The max count of loggers cached by {@link #sTagLoggers}.
+     */
+    private static final int MAX_TAG_LOGGERS = 256;
+
+    /**
+     * The loggers used by {@link Log} keyed by tag, cleared when the printers change.
+     */
+    private static final TagLoggerCache sTagLoggers = new TagLoggerCache(MAX_TAG_LOGGERS) {
+        @Override
+        Logger build(String tag) {
+            return tag(tag).build();
+        }
+    };
     private static boolean sIsPrintFile = false;
     private static boolean sIsPrintAndroid = false;
     private static boolean sIsReportLog = false;
@@ -289,6 +311,10 @@ public class PascLog {
                 sFilePrinter = createFilePrinter(context);
                 sPrinterList.add(sFilePrinter);
             }
+            publishPrintSet();
+            if (sFilePrinter != null) {
+                sFilePrinter.recoverMappedLogs();
+            }
             if (sIsCrashLog) {
                 CrashHandler.getInstance()
                         .init(context, sFilePrinter == null ? LOG_FILE_SAVE_TIME : sFilePrinter.getFileSaveTime(), SDCARD_CRASH_LOG_FILE_DIR);
@@ -299,6 +325,7 @@ public class PascLog {
             }
             resetLogLevel(logConfiguration);
             sLogger = new Logger(sLogConfiguration, getPrintSet());
+            clearTagLoggers();
             sIsInitialized = true;
         }
 
@@ -347,30 +374,52 @@ public class PascLog {
         }
         return null;
     }
+    /**
+     * Get the printers currently in use, the returned set is an immutable snapshot and will not
+     * follow later calls to {@link #openAndroidPrinter(boolean)} or
+     * {@link #openFilePrinter(boolean)}.
+     *
+     * @return the printers currently in use, null if there is no printer
+     */
     public static PrinterSet getPrintSet() {
-        sPrintRWL.readLock().lock();
-        int size = sPrinterList == null ? 0 : sPrinterList.size();
-        Printer[] printers = null;
-        if (size > 0) {
-            printers = new Printer[size];
-            sPrinterList.toArray(printers);
-        }
-        sPrintRWL.readLock().unlock();
-        if (printers != null) {
-            return new PrinterSet(printers);
-        }
-        return null;
+        return sPrinterSnapshot;
+    }
+
+    /**
+     * Rebuild and publish {@link #sPrinterSnapshot}, should be called after {@link #sPrinterList}
+     * changed and before releasing the write lock of {@link #sPrintRWL}.
+     */
+    private static void publishPrintSet() {
+        int size = sPrinterList.size();
+        sPrinterSnapshot = size > 0 ? new PrinterSet(sPrinterList.toArray(new Printer[size])) : null;
     }
 
     /**
-     * Throw an IllegalStateException if not initialized.
+     * Keep the call site for the next log of current thread, the calls are injected right before
+     * the log calls by the LibLogPlugin transform at build time, do not call it directly.
+     *
+     * @param site the call site, formatted like {@link StackTraceElement#toString()}, maybe null
+     * @param tag  the tag generated from the calling class, used if the log has no tag, maybe null
+     */
+    public static void callSite(String site, String tag) {
+        CallSite.set(site, tag);
+    }
+
+    /**
+     * Throw an IllegalStateException if not initialized, the call site kept for the failing log is
+     * dropped, so it won't be taken by the next log of current thread.
      */
     static void assertInitialization() {
         if (!sIsInitialized) {
+            CallSite.discard();
             throw new IllegalStateException("Do you forget to initialize PascLog?");
         }
     }
 
+    private static void clearTagLoggers() {
+        sTagLoggers.clear();
+    }
+
     public static void openAndroidPrinter(boolean isOpen) {
         sIsPrintAndroid = isOpen;
         if (sIsInitialized) {
@@ -386,6 +435,9 @@ public class PascLog {
             } else if (sAndroidPrinter != null) {
                 isChanged = sPrinterList.remove(sAndroidPrinter);
             }
+            if (isChanged) {
+                publishPrintSet();
+            }
             sPrintRWL.writeLock().unlock();
             if (isChanged) {
                 if (sLogger != null) {
@@ -393,6 +445,7 @@ public class PascLog {
                 } else {
                     sLogger = new Logger(sLogConfiguration, getPrintSet());
                 }
+                clearTagLoggers();
             }
         }
     }
@@ -412,6 +465,9 @@ public class PascLog {
             } else if (sFilePrinter != null) {
                 isChanged = sPrinterList.remove(sFilePrinter);
             }
+            if (isChanged) {
+                publishPrintSet();
+            }
             sPrintRWL.writeLock().unlock();
             if (isChanged) {
                 if (sLogger != null) {
@@ -419,6 +475,7 @@ public class PascLog {
                 } else {
                     sLogger = new Logger(sLogConfiguration, getPrintSet());
                 }
+                clearTagLoggers();
             }
         }
     }
@@ -515,6 +572,17 @@ public class PascLog {
         return new Logger.Builder().stackTraceEnable(stackTraceOrigin, depth);
     }
 
+    /**
+     * Start to customize a {@link Logger} and enable the call site, a fast stack trace with only
+     * the frame calling the logger.
+     *
+     * @return the {@link Logger.Builder} to build the {@link Logger}
+     * @see LogConfiguration.Builder#callSiteEnable()
+     */
+    public static Logger.Builder callSiteEnable() {
+        return new Logger.Builder().callSiteEnable();
+    }
+
     /**
      * Start to customize a {@link Logger} and disable stack trace.
      *
@@ -725,6 +793,27 @@ public class PascLog {
         sLogger.v(tag, msg);
     }
 
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#VERBOSE}.
+     *
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void v(MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.v(null, supplier);
+    }
+
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#VERBOSE}.
+     *
+     * @param tag      the tag
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void v(String tag, MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.v(tag, supplier);
+    }
+
     /**
      * Log a message and a throwable with level {@link LogLevel#VERBOSE}.
      *
@@ -838,6 +927,27 @@ public class PascLog {
         sLogger.d(tag, msg);
     }
 
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#DEBUG}.
+     *
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void d(MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.d(null, supplier);
+    }
+
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#DEBUG}.
+     *
+     * @param tag      the tag
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void d(String tag, MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.d(tag, supplier);
+    }
+
     /**
      * Log a message and a throwable with level {@link LogLevel#DEBUG}.
      *
@@ -952,6 +1062,27 @@ public class PascLog {
         sLogger.i(tag, msg);
     }
 
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#INFO}.
+     *
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void i(MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.i(null, supplier);
+    }
+
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#INFO}.
+     *
+     * @param tag      the tag
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void i(String tag, MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.i(tag, supplier);
+    }
+
     /**
      * Log a message and a throwable with level {@link LogLevel#INFO}.
      *
@@ -1066,6 +1197,27 @@ public class PascLog {
         sLogger.w(tag, msg);
     }
 
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#WARN}.
+     *
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void w(MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.w(null, supplier);
+    }
+
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#WARN}.
+     *
+     * @param tag      the tag
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void w(String tag, MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.w(tag, supplier);
+    }
+
     /**
      * Log a message and a throwable with level {@link LogLevel#WARN}.
      *
@@ -1179,6 +1331,27 @@ public class PascLog {
         sLogger.e(tag, msg);
     }
 
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#ERROR}.
+     *
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void e(MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.e(null, supplier);
+    }
+
+    /**
+     * Log a message supplied lazily with level {@link LogLevel#ERROR}.
+     *
+     * @param tag      the tag
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void e(String tag, MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.e(tag, supplier);
+    }
+
     /**
      * Log a message and a throwable with level {@link LogLevel#ERROR}.
      *
@@ -1306,6 +1479,29 @@ public class PascLog {
         sLogger.log(tag, logLevel, msg);
     }
 
+    /**
+     * Log a message supplied lazily with specific log level.
+     *
+     * @param logLevel the specific log level
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void log(int logLevel, MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.log(null, logLevel, supplier);
+    }
+
+    /**
+     * Log a message supplied lazily with specific log level.
+     *
+     * @param tag      the tag
+     * @param logLevel the specific log level
+     * @param supplier the supplier of the message to log, called only if the log is loggable
+     */
+    public static void log(String tag, int logLevel, MessageSupplier supplier) {
+        assertInitialization();
+        sLogger.log(tag, logLevel, supplier);
+    }
+
     /**
      * Log a message and a throwable with specific log level.
      *
@@ -1382,81 +1578,88 @@ public class PascLog {
      */
     public static class Log {
 
+        /**
+         * Get the cached logger of the tag, build and cache it if absent.
+         */
+        /*package*/ static Logger logger(String tag) {
+            return sTagLoggers.get(tag);
+        }
+
         /**
          * @deprecated compatible with {@link android.util.Log#v(String, String)}
          */
         public static void v(String tag, String msg) {
-            tag(tag).build().v(tag, msg);
+            logger(tag).v(tag, msg);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#v(String, String, Throwable)}
          */
         public static void v(String tag, String msg, Throwable tr) {
-            tag(tag).build().v(tag, msg, tr);
+            logger(tag).v(tag, msg, tr);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#d(String, String)}
          */
         public static void d(String tag, String msg) {
-            tag(tag).build().d(tag, msg);
+            logger(tag).d(tag, msg);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#d(String, String, Throwable)}
          */
         public static void d(String tag, String msg, Throwable tr) {
-            tag(tag).build().d(tag, msg, tr);
+            logger(tag).d(tag, msg, tr);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#i(String, String)}
          */
         public static void i(String tag, String msg) {
-            tag(tag).build().i(tag, msg);
+            logger(tag).i(tag, msg);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#i(String, String, Throwable)}
          */
         public static void i(String tag, String msg, Throwable tr) {
-            tag(tag).build().i(tag, msg, tr);
+            logger(tag).i(tag, msg, tr);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#w(String, String)}
          */
         public static void w(String tag, String msg) {
-            tag(tag).build().w(tag, msg);
+            logger(tag).w(tag, msg);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#w(String, String, Throwable)}
          */
         public static void w(String tag, String msg, Throwable tr) {
-            tag(tag).build().w(tag, msg, tr);
+            logger(tag).w(tag, msg, tr);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#w(String, Throwable)}
          */
         public static void w(String tag, Throwable tr) {
-            tag(tag).build().w(tag, "", tr);
+            logger(tag).w(tag, "", tr);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#e(String, String)}
          */
         public static void e(String tag, String msg) {
-            tag(tag).build().e(tag, msg);
+            logger(tag).e(tag, msg);
         }
 
         /**
          * @deprecated compatible with {@link android.util.Log#e(String, String, Throwable)}
          */
         public static void e(String tag, String msg, Throwable tr) {
-            tag(tag).build().e(tag, msg, tr);
+            logger(tag).e(tag, msg, tr);
         }
 
         /**
@@ -1484,7 +1687,7 @@ public class PascLog {
          * @deprecated compatible with {@link android.util.Log#println(int, String, String)}
          */
         public static void println(int logLevel, String tag, String msg) {
-            tag(tag).build().println(tag, logLevel, msg);
+            logger(tag).println(tag, logLevel, msg);
         }
 
         /**
@@ -0,0 +1,69 @@
+package com.pasc.lib.log;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The loggers keyed by tag, built on the first use of a tag, and cleared when the printers
+ * change. A logger built concurrently with a clear is not cached, as it may hold the old
+ * printers.
+ */
+/*package*/ abstract class TagLoggerCache {
+
+  private final int maxSize;
+
+  private final ConcurrentHashMap<String, Logger> loggers = new ConcurrentHashMap<>();
+
+  /**
+   * Increased every time the cache is cleared.
+   */
+  private volatile int generation;
+
+  /**
+   * Constructor.
+   *
+   * @param maxSize the max count of cached loggers, loggers of more tags are built but not cached
+   */
+  TagLoggerCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Build the logger of the tag with the current printers.
+   *
+   * @param tag the tag, maybe null
+   * @return the logger
+   */
+  abstract Logger build(String tag);
+
+  /**
+   * Get the cached logger of the tag, build and cache it if absent, a null tag is never cached.
+   *
+   * @param tag the tag, maybe null
+   * @return the logger
+   */
+  Logger get(String tag) {
+    if (tag == null) {
+      return build(null);
+    }
+    Logger logger = loggers.get(tag);
+    if (logger == null) {
+      int generation = this.generation;
+      logger = build(tag);
+      if (loggers.size() < maxSize) {
+        loggers.put(tag, logger);
+        if (generation != this.generation) {
+          loggers.remove(tag, logger);
+        }
+      }
+    }
+    return logger;
+  }
+
+  /**
+   * Clear the cache, should be called after the printers changed.
+   */
+  void clear() {
+    generation++;
+    loggers.clear();
+  }
+}
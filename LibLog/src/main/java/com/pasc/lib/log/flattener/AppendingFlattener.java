@@ -0,0 +1,18 @@
+package com.pasc.lib.log.flattener;
+
+/**
+ * A {@link Flattener} able to flatten the log directly into a given buffer, so that printers
+ * which buffer the logs anyway, like the file printer, don't create a string for each log.
+ */
+public interface AppendingFlattener extends Flattener {
+
+  /**
+   * Flatten the log to the end of the buffer.
+   *
+   * @param logLevel the level of log
+   * @param tag      the tag of log
+   * @param message  the message of log
+   * @param buffer   the buffer to append the flattened log to
+   */
+  void flatten(int logLevel, String tag, String message, StringBuilder buffer);
+}
@@ -1,4 +1,3 @@
-
 package com.pasc.lib.log.flattener;
 
 import com.pasc.lib.log.LogLevel;
@@ -8,13 +7,30 @@ import com.pasc.lib.log.LogLevel;
  *
  * @since 1.3.0
  */
-public class DefaultFlattener implements Flattener {
+public class DefaultFlattener implements RecordFlattener, AppendingFlattener {
 
   @Override
   public CharSequence flatten(int logLevel, String tag, String message) {
-    return Long.toString(System.currentTimeMillis())
-        + '|' + LogLevel.getShortLevelName(logLevel)
-        + '|' + tag
-        + '|' + message;
+    StringBuilder sb = new StringBuilder();
+    flatten(logLevel, tag, message, sb);
+    return sb.toString();
+  }
+
+  @Override
+  public void flatten(int logLevel, String tag, String message, StringBuilder buffer) {
+    flatten(System.currentTimeMillis(), logLevel, tag, message, buffer);
+  }
+
+  @Override
+  public void flatten(LogRecord record, StringBuilder buffer) {
+    flatten(record.timestamp, record.level, record.tag, record.msg, buffer);
+  }
+
+  private static void flatten(long timestamp, int logLevel, String tag, String message,
+                              StringBuilder buffer) {
+    TimestampRenderer.renderEpochMillis(timestamp, buffer);
+    buffer.append('|').append(LogLevel.getShortLevelName(logLevel))
+        .append('|').append(tag)
+        .append('|').append(message);
   }
 }
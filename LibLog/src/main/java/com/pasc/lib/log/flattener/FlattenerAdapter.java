@@ -0,0 +1,46 @@
+package com.pasc.lib.log.flattener;
+
+/**
+ * Adapt a {@link Flattener} to a {@link RecordFlattener}, only the level, tag and message of the
+ * record are passed to the adapted flattener.
+ */
+public class FlattenerAdapter implements RecordFlattener {
+
+  private final Flattener flattener;
+
+  /**
+   * Constructor.
+   *
+   * @param flattener the flattener to be adapted
+   */
+  public FlattenerAdapter(Flattener flattener) {
+    this.flattener = flattener;
+  }
+
+  /**
+   * Adapt the flattener if it is not record-based yet.
+   *
+   * @param flattener the flattener to be adapted
+   * @return the record-based flattener
+   */
+  public static RecordFlattener adapt(Flattener flattener) {
+    if (flattener instanceof RecordFlattener) {
+      return (RecordFlattener) flattener;
+    }
+    return new FlattenerAdapter(flattener);
+  }
+
+  @Override
+  public CharSequence flatten(int logLevel, String tag, String message) {
+    return flattener.flatten(logLevel, tag, message);
+  }
+
+  @Override
+  public void flatten(LogRecord record, StringBuilder buffer) {
+    if (flattener instanceof AppendingFlattener) {
+      ((AppendingFlattener) flattener).flatten(record.level, record.tag, record.msg, buffer);
+    } else {
+      buffer.append(flattener.flatten(record.level, record.tag, record.msg));
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.pasc.lib.log.flattener;
+
+/**
+ * A log to be flattened, with the time and the thread captured when the log is printed, rather
+ * than when it is flattened, which may be much later on a background thread.
+ */
+public class LogRecord {
+
+  /**
+   * The level of log.
+   */
+  public int level;
+
+  /**
+   * The tag of log.
+   */
+  public String tag;
+
+  /**
+   * The message of log.
+   */
+  public String msg;
+
+  /**
+   * The time the log is printed, in milliseconds since epoch.
+   */
+  public long timestamp;
+
+  /**
+   * The id of the thread printing the log.
+   */
+  public long threadId;
+
+  /**
+   * The name of the thread printing the log.
+   */
+  public String threadName;
+
+  /**
+   * The sequence number of the log, increasing in printing order within a printer, 0 if the
+   * printer doesn't number its logs.
+   */
+  public long sequence;
+
+  public LogRecord() {
+  }
+
+  /**
+   * Create a record of a log printed right now in current thread.
+   *
+   * @param level    the level of log
+   * @param tag      the tag of log
+   * @param msg      the message of log
+   * @param sequence the sequence number of log, 0 if not numbered
+   */
+  public LogRecord(int level, String tag, String msg, long sequence) {
+    set(level, tag, msg, sequence);
+  }
+
+  /**
+   * Reset the record to a log printed right now in current thread.
+   *
+   * @param level    the level of log
+   * @param tag      the tag of log
+   * @param msg      the message of log
+   * @param sequence the sequence number of log, 0 if not numbered
+   */
+  public void set(int level, String tag, String msg, long sequence) {
+    Thread thread = Thread.currentThread();
+    this.level = level;
+    this.tag = tag;
+    this.msg = msg;
+    this.timestamp = System.currentTimeMillis();
+    this.threadId = thread.getId();
+    this.threadName = thread.getName();
+    this.sequence = sequence;
+  }
+}
@@ -2,11 +2,8 @@
 package com.pasc.lib.log.flattener;
 
 import com.pasc.lib.log.LogLevel;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,6 +34,12 @@ import java.util.regex.Pattern;
  *   <tr>
  *     <td>{m}
  *     <td>Message of log
+ *   <tr>
+ *     <td>{T}
+ *     <td>Name of the thread printing the log
+ *   <tr>
+ *     <td>{n}
+ *     <td>Sequence number of log, see {@link LogRecord#sequence}
  * </table>
  * </blockquote>
  * <p>
@@ -67,7 +70,7 @@ import java.util.regex.Pattern;
  *
  * @since 1.3.0
  */
-public class PatternFlattener implements Flattener {
+public class PatternFlattener implements RecordFlattener, AppendingFlattener {
 
   private static final String PARAM = "[^{}]*";
   private static final Pattern PARAM_REGEX = Pattern.compile("\\{(" + PARAM + ")\\}");
@@ -77,12 +80,37 @@ public class PatternFlattener implements Flattener {
   private static final String PARAMETER_LEVEL_LONG = "L";
   private static final String PARAMETER_TAG = "t";
   private static final String PARAMETER_MESSAGE = "m";
+  private static final String PARAMETER_THREAD = "T";
+  private static final String PARAMETER_SEQUENCE = "n";
 
   static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd hh:mm:ss.SSS";
 
+  private static final ThreadLocal<StringBuilder> sBuilder = new ThreadLocal<StringBuilder>() {
+    @Override
+    protected StringBuilder initialValue() {
+      return new StringBuilder(256);
+    }
+  };
+
+  /**
+   * The record of a log flattened without a record, printed right now in current thread.
+   */
+  private static final ThreadLocal<LogRecord> sRecord = new ThreadLocal<LogRecord>() {
+    @Override
+    protected LogRecord initialValue() {
+      return new LogRecord();
+    }
+  };
+
   private String pattern;
 
-  private List<ParameterFiller> parameterFillers;
+  /**
+   * The literal texts of the compiled pattern, literals[i] goes before parameterFillers[i], and
+   * the last one goes after all the parameters.
+   */
+  private String[] literals;
+
+  private ParameterFiller[] parameterFillers;
 
   /**
    * Constructor.
@@ -95,44 +123,35 @@ public class PatternFlattener implements Flattener {
     }
     this.pattern = pattern;
 
-    List<String> parameters = parsePattern(pattern);
-    parameterFillers = parseParameters(parameters);
-    if (parameterFillers.size() == 0) {
+    compilePattern(pattern);
+    if (parameterFillers.length == 0) {
       throw new IllegalArgumentException("No recognizable parameter found in the pattern "
           + pattern);
     }
   }
 
   /**
-   * Get the list of parameters from the given pattern.
+   * Compile the given pattern to literal texts and parameter fillers, unrecognizable parameters
+   * are kept in the literal texts as they are.
    *
    * @param pattern the given pattern
-   * @return the parameters list, or empty if no parameter found from the given pattern
    */
-  static List<String> parsePattern(String pattern) {
-    List<String> parameters = new ArrayList<>(4);
+  private void compilePattern(String pattern) {
+    List<String> literals = new ArrayList<>(5);
+    List<ParameterFiller> parameterFillers = new ArrayList<>(4);
     Matcher matcher = PARAM_REGEX.matcher(pattern);
+    int literalStart = 0;
     while (matcher.find()) {
-      parameters.add(matcher.group(1));
-    }
-    return parameters;
-  }
-
-  /**
-   * Get the list of parameter fillers from the given parameters.
-   *
-   * @param parameters the given parameters
-   * @return the parameter fillers, or empty if none of the parameters is recognizable
-   */
-  private static List<ParameterFiller> parseParameters(List<String> parameters) {
-    List<ParameterFiller> parameterFillers = new ArrayList<>(parameters.size());
-    for (String parameter : parameters) {
-      ParameterFiller parameterFiller = parseParameter(parameter);
+      ParameterFiller parameterFiller = parseParameter(matcher.group(1));
       if (parameterFiller != null) {
+        literals.add(pattern.substring(literalStart, matcher.start()));
         parameterFillers.add(parameterFiller);
+        literalStart = matcher.end();
       }
     }
-    return parameterFillers;
+    literals.add(pattern.substring(literalStart));
+    this.literals = literals.toArray(new String[literals.size()]);
+    this.parameterFillers = parameterFillers.toArray(new ParameterFiller[parameterFillers.size()]);
   }
 
   /**
@@ -164,6 +183,16 @@ public class PatternFlattener implements Flattener {
       return parameterFiller;
     }
 
+    parameterFiller = parseThreadParameter(wrappedParameter, trimmedParameter);
+    if (parameterFiller != null) {
+      return parameterFiller;
+    }
+
+    parameterFiller = parseSequenceParameter(wrappedParameter, trimmedParameter);
+    if (parameterFiller != null) {
+      return parameterFiller;
+    }
+
     return null;
   }
 
@@ -221,29 +250,65 @@ public class PatternFlattener implements Flattener {
     return null;
   }
 
+  /**
+   * Try to create a thread filler if the given parameter is a thread parameter.
+   *
+   * @return created thread filler, or null if the given parameter is not a thread parameter
+   */
+  static ThreadFiller parseThreadParameter(String wrappedParameter, String trimmedParameter) {
+    if (trimmedParameter.equals(PARAMETER_THREAD)) {
+      return new ThreadFiller(wrappedParameter, trimmedParameter);
+    }
+    return null;
+  }
+
+  /**
+   * Try to create a sequence filler if the given parameter is a sequence parameter.
+   *
+   * @return created sequence filler, or null if the given parameter is not a sequence parameter
+   */
+  static SequenceFiller parseSequenceParameter(String wrappedParameter, String trimmedParameter) {
+    if (trimmedParameter.equals(PARAMETER_SEQUENCE)) {
+      return new SequenceFiller(wrappedParameter, trimmedParameter);
+    }
+    return null;
+  }
+
   @Override
   public CharSequence flatten(int logLevel, String tag, String message) {
-    String flattenedLog = pattern;
-    for (ParameterFiller parameterFiller : parameterFillers) {
-      flattenedLog = parameterFiller.fill(flattenedLog, logLevel, tag, message);
+    StringBuilder sb = sBuilder.get();
+    sb.setLength(0);
+    flatten(logLevel, tag, message, sb);
+    return sb.toString();
+  }
+
+  @Override
+  public void flatten(int logLevel, String tag, String message, StringBuilder buffer) {
+    LogRecord record = sRecord.get();
+    record.set(logLevel, tag, message, 0);
+    flatten(record, buffer);
+    record.tag = null;
+    record.msg = null;
+  }
+
+  @Override
+  public void flatten(LogRecord record, StringBuilder buffer) {
+    ParameterFiller[] parameterFillers = this.parameterFillers;
+    for (int i = 0; i < parameterFillers.length; i++) {
+      buffer.append(literals[i]);
+      parameterFillers[i].fill(buffer, record);
     }
-    return flattenedLog;
+    buffer.append(literals[parameterFillers.length]);
   }
 
   /**
-   * Fill the original pattern string with formatted date string.
+   * Fill the flattening log with formatted date string.
    */
   static class DateFiller extends ParameterFiller {
 
     String dateFormat;
 
-    private ThreadLocal<SimpleDateFormat> threadLocalDateFormat = new ThreadLocal<SimpleDateFormat>() {
-
-      @Override
-      protected SimpleDateFormat initialValue() {
-        return new SimpleDateFormat(dateFormat, Locale.US);
-      }
-    };
+    private TimestampRenderer timestampRenderer;
 
     DateFiller(String wrappedParameter, String trimmedParameter, String dateFormat) {
       super(wrappedParameter, trimmedParameter);
@@ -251,20 +316,21 @@ public class PatternFlattener implements Flattener {
 
       try {
         // Test the format, will throw an exception if it is a bad format.
-        threadLocalDateFormat.get().format(new Date());
+        timestampRenderer = TimestampRenderer.of(dateFormat);
+        timestampRenderer.render(System.currentTimeMillis());
       } catch (Exception e) {
         throw new IllegalArgumentException("Bad date pattern: " + dateFormat, e);
       }
     }
 
     @Override
-    protected String fill(String pattern, int logLevel, String tag, String message) {
-      return pattern.replace(wrappedParameter, threadLocalDateFormat.get().format(new Date()));
+    protected void fill(StringBuilder buffer, LogRecord record) {
+      timestampRenderer.render(record.timestamp, buffer);
     }
   }
 
   /**
-   * Fill the original pattern string with level name.
+   * Fill the flattening log with level name.
    */
   static class LevelFiller extends ParameterFiller {
 
@@ -276,17 +342,17 @@ public class PatternFlattener implements Flattener {
     }
 
     @Override
-    protected String fill(String pattern, int logLevel, String tag, String message) {
+    protected void fill(StringBuilder buffer, LogRecord record) {
       if (useLongName) {
-        return pattern.replace(wrappedParameter, LogLevel.getLevelName(logLevel));
+        buffer.append(LogLevel.getLevelName(record.level));
       } else {
-        return pattern.replace(wrappedParameter, LogLevel.getShortLevelName(logLevel));
+        buffer.append(LogLevel.getShortLevelName(record.level));
       }
     }
   }
 
   /**
-   * Fill the original pattern string with tag.
+   * Fill the flattening log with tag.
    */
   static class TagFiller extends ParameterFiller {
 
@@ -295,13 +361,13 @@ public class PatternFlattener implements Flattener {
     }
 
     @Override
-    protected String fill(String pattern, int logLevel, String tag, String message) {
-      return pattern.replace(wrappedParameter, tag);
+    protected void fill(StringBuilder buffer, LogRecord record) {
+      buffer.append(record.tag);
     }
   }
 
   /**
-   * Fill the original pattern string with message.
+   * Fill the flattening log with message.
    */
   static class MessageFiller extends ParameterFiller {
 
@@ -310,13 +376,43 @@ public class PatternFlattener implements Flattener {
     }
 
     @Override
-    protected String fill(String pattern, int logLevel, String tag, String message) {
-      return pattern.replace(wrappedParameter, message);
+    protected void fill(StringBuilder buffer, LogRecord record) {
+      buffer.append(record.msg);
+    }
+  }
+
+  /**
+   * Fill the flattening log with thread name.
+   */
+  static class ThreadFiller extends ParameterFiller {
+
+    ThreadFiller(String wrappedParameter, String trimmedParameter) {
+      super(wrappedParameter, trimmedParameter);
+    }
+
+    @Override
+    protected void fill(StringBuilder buffer, LogRecord record) {
+      buffer.append(record.threadName);
+    }
+  }
+
+  /**
+   * Fill the flattening log with sequence number.
+   */
+  static class SequenceFiller extends ParameterFiller {
+
+    SequenceFiller(String wrappedParameter, String trimmedParameter) {
+      super(wrappedParameter, trimmedParameter);
+    }
+
+    @Override
+    protected void fill(StringBuilder buffer, LogRecord record) {
+      buffer.append(record.sequence);
     }
   }
 
   /**
-   * Fill the original pattern string with the value of parameter.
+   * Fill the flattening log with the value of parameter.
    */
   abstract static class ParameterFiller {
 
@@ -337,14 +433,11 @@ public class PatternFlattener implements Flattener {
     }
 
     /**
-     * Fill the original pattern string with the value of parameter.
+     * Append the value of parameter to the flattening log.
      *
-     * @param pattern  the original pattern
-     * @param logLevel the log level of flattening log
-     * @param tag      the tag of flattening log
-     * @param message  the message of the flattening log
-     * @return the filled pattern string
+     * @param buffer the buffer of the flattening log
+     * @param record the record of the flattening log
      */
-    protected abstract String fill(String pattern, int logLevel, String tag, String message);
+    protected abstract void fill(StringBuilder buffer, LogRecord record);
   }
 }
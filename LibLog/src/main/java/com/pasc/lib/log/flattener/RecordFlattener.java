@@ -0,0 +1,19 @@
+package com.pasc.lib.log.flattener;
+
+/**
+ * A {@link Flattener} flattening a {@link LogRecord}, so the time and the thread captured when the
+ * log is printed can be flattened, printers which flatten logs later, like the file printer, use
+ * this if possible.
+ *
+ * @see FlattenerAdapter
+ */
+public interface RecordFlattener extends Flattener {
+
+  /**
+   * Flatten the log record to the end of the buffer.
+   *
+   * @param record the log record, only valid during the call
+   * @param buffer the buffer to append the flattened log to
+   */
+  void flatten(LogRecord record, StringBuilder buffer);
+}
@@ -0,0 +1,193 @@
+package com.pasc.lib.log.flattener;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Render timestamps in a {@link SimpleDateFormat} pattern, the fields other than milliseconds are
+ * formatted once a second and cached, so that only the millisecond digits are rendered for most
+ * logs.
+ * <p>
+ * The renderers are shared by all flatteners using the same pattern, get one by
+ * {@link #of(String)}.
+ */
+public final class TimestampRenderer {
+
+  private static final int MAX_SHARED_RENDERERS = 32;
+
+  private static final ConcurrentHashMap<String, TimestampRenderer> sRenderers =
+      new ConcurrentHashMap<>();
+
+  /**
+   * The cached seconds of {@link #renderEpochMillis(long, StringBuilder)}.
+   */
+  private static volatile Second sEpochSecond;
+
+  /**
+   * The date formats of the pattern segments around the millisecond fields.
+   */
+  private final SimpleDateFormat[] formats;
+
+  /**
+   * The minimum digits of the millisecond fields, millisDigits[i] goes after formats[i].
+   */
+  private final int[] millisDigits;
+
+  private volatile Second cachedSecond;
+
+  /**
+   * Get the renderer of the pattern, shared with other users of the same pattern.
+   *
+   * @param pattern the {@link SimpleDateFormat} pattern
+   * @return the renderer
+   * @throws IllegalArgumentException if the pattern is invalid
+   */
+  public static TimestampRenderer of(String pattern) {
+    TimestampRenderer renderer = sRenderers.get(pattern);
+    if (renderer == null) {
+      renderer = new TimestampRenderer(pattern);
+      if (sRenderers.size() < MAX_SHARED_RENDERERS) {
+        TimestampRenderer existing = sRenderers.putIfAbsent(pattern, renderer);
+        if (existing != null) {
+          renderer = existing;
+        }
+      }
+    }
+    return renderer;
+  }
+
+  /**
+   * Render the timestamp as the milliseconds since epoch, same as
+   * {@link StringBuilder#append(long)}, the digits of seconds are cached.
+   *
+   * @param millis the timestamp
+   * @param buffer the buffer to append the rendered timestamp to
+   */
+  public static void renderEpochMillis(long millis, StringBuilder buffer) {
+    if (millis < 1000) {
+      buffer.append(millis);
+      return;
+    }
+    long second = millis / 1000;
+    Second cached = sEpochSecond;
+    if (cached == null || cached.second != second) {
+      cached = new Second(second, new String[]{Long.toString(second)});
+      sEpochSecond = cached;
+    }
+    buffer.append(cached.texts[0]);
+    appendMillis(buffer, (int) (millis - second * 1000), 3);
+  }
+
+  private TimestampRenderer(String pattern) {
+    List<String> segments = new ArrayList<>(2);
+    List<Integer> digits = new ArrayList<>(1);
+    StringBuilder segment = new StringBuilder();
+    boolean quoted = false;
+    int length = pattern.length();
+    for (int i = 0; i < length; i++) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+        segment.append(c);
+      } else if (c == 'S' && !quoted) {
+        int count = 1;
+        while (i + 1 < length && pattern.charAt(i + 1) == 'S') {
+          count++;
+          i++;
+        }
+        segments.add(segment.toString());
+        digits.add(count);
+        segment.setLength(0);
+      } else {
+        segment.append(c);
+      }
+    }
+    segments.add(segment.toString());
+
+    formats = new SimpleDateFormat[segments.size()];
+    for (int i = 0; i < formats.length; i++) {
+      String segmentPattern = segments.get(i);
+      formats[i] = segmentPattern.isEmpty() ? null : new SimpleDateFormat(segmentPattern, Locale.US);
+    }
+    millisDigits = new int[digits.size()];
+    for (int i = 0; i < millisDigits.length; i++) {
+      millisDigits[i] = digits.get(i);
+    }
+  }
+
+  /**
+   * Render the timestamp.
+   *
+   * @param millis the timestamp
+   * @return the rendered timestamp
+   */
+  public String render(long millis) {
+    StringBuilder sb = new StringBuilder(32);
+    render(millis, sb);
+    return sb.toString();
+  }
+
+  /**
+   * Render the timestamp to the end of the buffer.
+   *
+   * @param millis the timestamp
+   * @param buffer the buffer to append the rendered timestamp to
+   */
+  public void render(long millis, StringBuilder buffer) {
+    long second = millis >= 0 ? millis / 1000 : (millis - 999) / 1000;
+    Second cached = cachedSecond;
+    if (cached == null || cached.second != second) {
+      cached = formatSecond(second);
+      cachedSecond = cached;
+    }
+    String[] texts = cached.texts;
+    int millisOfSecond = (int) (millis - second * 1000);
+    for (int i = 0; i < millisDigits.length; i++) {
+      buffer.append(texts[i]);
+      appendMillis(buffer, millisOfSecond, millisDigits[i]);
+    }
+    buffer.append(texts[millisDigits.length]);
+  }
+
+  /**
+   * Format the fields other than milliseconds of the second.
+   */
+  private synchronized Second formatSecond(long second) {
+    Date date = new Date(second * 1000);
+    String[] texts = new String[formats.length];
+    for (int i = 0; i < formats.length; i++) {
+      texts[i] = formats[i] == null ? "" : formats[i].format(date);
+    }
+    return new Second(second, texts);
+  }
+
+  /**
+   * Append the milliseconds padded with zeros to the minimum digits, the same as
+   * {@link SimpleDateFormat} does.
+   */
+  private static void appendMillis(StringBuilder buffer, int millis, int minDigits) {
+    int digits = millis < 10 ? 1 : millis < 100 ? 2 : 3;
+    for (int i = digits; i < minDigits; i++) {
+      buffer.append('0');
+    }
+    buffer.append(millis);
+  }
+
+  /**
+   * The formatted texts of a second, immutable so that it can be shared between threads.
+   */
+  private static class Second {
+
+    final long second;
+    final String[] texts;
+
+    Second(long second, String[] texts) {
+      this.second = second;
+      this.texts = texts;
+    }
+  }
+}
@@ -38,47 +38,79 @@ public class DefaultBorderFormatter implements BorderFormatter {
       return "";
     }
 
-    String[] nonNullSegments = new String[segments.length];
+    String separator = SystemCompat.lineSeparator;
     int nonNullCount = 0;
+    int capacity = TOP_HORIZONTAL_BORDER.length() + BOTTOM_HORIZONTAL_BORDER.length();
     for (String segment : segments) {
       if (segment != null) {
-        nonNullSegments[nonNullCount++] = segment;
+        nonNullCount++;
+        // The segment, a vertical border for each line, and the separators around the divider.
+        capacity += segment.length() + countLines(segment, separator)
+            + DIVIDER_HORIZONTAL_BORDER.length() + 2 * separator.length();
       }
     }
     if (nonNullCount == 0) {
       return "";
     }
 
-    StringBuilder msgBuilder = new StringBuilder();
-    msgBuilder.append(TOP_HORIZONTAL_BORDER).append(SystemCompat.lineSeparator);
-    for (int i = 0; i < nonNullCount; i++) {
-      msgBuilder.append(appendVerticalBorder(nonNullSegments[i]));
-      if (i != nonNullCount - 1) {
-        msgBuilder.append(SystemCompat.lineSeparator).append(DIVIDER_HORIZONTAL_BORDER)
-            .append(SystemCompat.lineSeparator);
+    StringBuilder msgBuilder = new StringBuilder(capacity);
+    msgBuilder.append(TOP_HORIZONTAL_BORDER).append(separator);
+    int appended = 0;
+    for (String segment : segments) {
+      if (segment == null) {
+        continue;
+      }
+      appendVerticalBorder(msgBuilder, segment, separator);
+      if (++appended != nonNullCount) {
+        msgBuilder.append(separator).append(DIVIDER_HORIZONTAL_BORDER).append(separator);
       } else {
-        msgBuilder.append(SystemCompat.lineSeparator).append(BOTTOM_HORIZONTAL_BORDER);
+        msgBuilder.append(separator).append(BOTTOM_HORIZONTAL_BORDER);
       }
     }
     return msgBuilder.toString();
   }
 
   /**
-   * Add {@value #VERTICAL_BORDER_CHAR} to each line of msg.
+   * Append msg to the builder, with {@value #VERTICAL_BORDER_CHAR} in the start of each line,
+   * trailing empty lines are dropped, the same as splitting the lines by {@link String#split}.
    *
-   * @param msg the message to add border
-   * @return the message with {@value #VERTICAL_BORDER_CHAR} in the start of each line
+   * @param builder   the builder to append to
+   * @param msg       the message to add border
+   * @param separator the line separator
    */
-  private static String appendVerticalBorder(String msg) {
-    StringBuilder borderedMsgBuilder = new StringBuilder(msg.length() + 10);
-    String[] lines = msg.split(SystemCompat.lineSeparator);
-    for (int i = 0, N = lines.length; i < N; i++) {
-      if (i != 0) {
-        borderedMsgBuilder.append(SystemCompat.lineSeparator);
+  private static void appendVerticalBorder(StringBuilder builder, String msg, String separator) {
+    int end = msg.length();
+    if (end == 0) {
+      builder.append(VERTICAL_BORDER_CHAR);
+      return;
+    }
+    while (end >= separator.length() && msg.startsWith(separator, end - separator.length())) {
+      end -= separator.length();
+    }
+    int lineStart = 0;
+    while (lineStart < end) {
+      int lineEnd = msg.indexOf(separator, lineStart);
+      if (lineEnd < 0 || lineEnd > end) {
+        lineEnd = end;
+      }
+      if (lineStart != 0) {
+        builder.append(separator);
       }
-      String line = lines[i];
-      borderedMsgBuilder.append(VERTICAL_BORDER_CHAR).append(line);
+      builder.append(VERTICAL_BORDER_CHAR).append(msg, lineStart, lineEnd);
+      lineStart = lineEnd + separator.length();
+    }
+  }
+
+  /**
+   * Count the lines of msg, without scanning them as a regex.
+   */
+  private static int countLines(String msg, String separator) {
+    int count = 1;
+    int index = msg.indexOf(separator);
+    while (index >= 0) {
+      count++;
+      index = msg.indexOf(separator, index + separator.length());
     }
-    return borderedMsgBuilder.toString();
+    return count;
   }
 }
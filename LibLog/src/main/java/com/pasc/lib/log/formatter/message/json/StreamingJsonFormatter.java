@@ -0,0 +1,228 @@
+package com.pasc.lib.log.formatter.message.json;
+
+import com.pasc.lib.log.formatter.FormatException;
+
+/**
+ * Format the JSON in a single pass over the characters, without building a parse tree, the
+ * indentation is written right into the output, so the memory used is about the size of the
+ * output.
+ * <p>
+ * Keys keep their original order, strings and numbers are copied as they are, and malformed or
+ * truncated JSON is formatted as far as it goes instead of failing. Objects and arrays deeper
+ * than the max depth are elided as "{...}" and "[...]", and the output is cut at the max length.
+ */
+public class StreamingJsonFormatter implements JsonFormatter {
+
+  private static final int DEFAULT_INDENT = 4;
+
+  private static final String SPACES = "                                ";
+
+  private final int indent;
+  private final int maxDepth;
+  private final int maxLength;
+
+  /**
+   * Constructor, with an indent of {@value DEFAULT_INDENT} spaces, no depth limit and no length
+   * limit.
+   */
+  public StreamingJsonFormatter() {
+    this(DEFAULT_INDENT, Integer.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param indent    the count of spaces to indent each level
+   * @param maxDepth  the max depth of objects and arrays to be expanded, deeper ones are elided
+   * @param maxLength the max length of the output, longer output is cut
+   */
+  public StreamingJsonFormatter(int indent, int maxDepth, int maxLength) {
+    if (indent < 0 || maxDepth < 0 || maxLength < 0) {
+      throw new IllegalArgumentException("indent, maxDepth and maxLength should not be negative");
+    }
+    this.indent = indent;
+    this.maxDepth = maxDepth;
+    this.maxLength = maxLength;
+  }
+
+  @Override
+  public String format(String json) {
+    if (json == null) {
+      throw new FormatException("JSON empty.");
+    }
+    int length = json.length();
+    int i = skipWhitespace(json, 0);
+    if (i == length) {
+      throw new FormatException("JSON empty.");
+    }
+    char first = json.charAt(i);
+    if (first != '{' && first != '[') {
+      throw new FormatException("JSON should start with { or [, but found " + json);
+    }
+
+    StringBuilder out = new StringBuilder(Math.min(length + (length >> 1), maxLength) + 32);
+    int depth = 0;
+    while (i < length && out.length() <= maxLength) {
+      char c = json.charAt(i);
+      switch (c) {
+        case '"':
+          i = copyString(json, i, out);
+          break;
+        case '{':
+        case '[':
+          char close = c == '{' ? '}' : ']';
+          int next = skipWhitespace(json, i + 1);
+          if (next < length && json.charAt(next) == close) {
+            out.append(c).append(close);
+            i = next + 1;
+          } else if (depth >= maxDepth) {
+            out.append(c).append("...").append(close);
+            i = skipContainer(json, i);
+          } else {
+            out.append(c);
+            newLine(out, ++depth);
+            i++;
+          }
+          break;
+        case '}':
+        case ']':
+          if (depth > 0) {
+            depth--;
+          }
+          newLine(out, depth);
+          out.append(c);
+          i++;
+          break;
+        case ',':
+          out.append(',');
+          newLine(out, depth);
+          i++;
+          break;
+        case ':':
+          out.append(": ");
+          i++;
+          break;
+        default:
+          if (isWhitespace(c)) {
+            i++;
+          } else {
+            i = copyLiteral(json, i, out);
+          }
+          break;
+      }
+    }
+    if (out.length() > maxLength) {
+      out.setLength(maxLength);
+      out.append("... (").append(length).append(" chars in total)");
+    }
+    return out.toString();
+  }
+
+  /**
+   * Copy the string starting from the quote, up to the max length of output.
+   *
+   * @return the index after the closing quote, or the length of JSON if not closed
+   */
+  private int copyString(String json, int start, StringBuilder out) {
+    int length = json.length();
+    int end = start + 1;
+    while (end < length) {
+      char c = json.charAt(end);
+      if (c == '\\') {
+        end += 2;
+      } else if (c == '"') {
+        end++;
+        break;
+      } else {
+        end++;
+      }
+    }
+    end = Math.min(end, length);
+    append(out, json, start, end);
+    return end;
+  }
+
+  /**
+   * Copy the number, literal or malformed text, until the next structural character, quote or
+   * whitespace.
+   *
+   * @return the index after the copied text
+   */
+  private int copyLiteral(String json, int start, StringBuilder out) {
+    int length = json.length();
+    int end = start + 1;
+    while (end < length) {
+      char c = json.charAt(end);
+      if (c == '{' || c == '}' || c == '[' || c == ']' || c == ',' || c == ':' || c == '"'
+          || isWhitespace(c)) {
+        break;
+      }
+      end++;
+    }
+    append(out, json, start, end);
+    return end;
+  }
+
+  /**
+   * Append the text, at most one char more than the max length of output, so that a huge token
+   * is never copied entirely only to be cut.
+   */
+  private void append(StringBuilder out, String json, int start, int end) {
+    long room = (long) maxLength + 1 - out.length();
+    if (end - start > room) {
+      end = start + (int) Math.max(room, 0);
+    }
+    out.append(json, start, end);
+  }
+
+  /**
+   * Skip the object or array starting from the bracket.
+   *
+   * @return the index after the matching bracket, or the length of JSON if not closed
+   */
+  private static int skipContainer(String json, int start) {
+    int length = json.length();
+    int nesting = 0;
+    int i = start;
+    while (i < length) {
+      char c = json.charAt(i);
+      if (c == '"') {
+        i++;
+        while (i < length && json.charAt(i) != '"') {
+          i += json.charAt(i) == '\\' ? 2 : 1;
+        }
+      } else if (c == '{' || c == '[') {
+        nesting++;
+      } else if (c == '}' || c == ']') {
+        if (--nesting == 0) {
+          return i + 1;
+        }
+      }
+      i++;
+    }
+    return length;
+  }
+
+  private void newLine(StringBuilder out, int depth) {
+    out.append('\n');
+    int spaces = depth * indent;
+    while (spaces > 0) {
+      int count = Math.min(spaces, SPACES.length());
+      out.append(SPACES, 0, count);
+      spaces -= count;
+    }
+  }
+
+  private static int skipWhitespace(String json, int start) {
+    int length = json.length();
+    int i = start;
+    while (i < length && isWhitespace(json.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+  }
+}
@@ -0,0 +1,174 @@
+package com.pasc.lib.log.formatter.message.throwable;
+
+import com.pasc.lib.log.internal.util.StackTraceUtil;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Format the throwable in the same format as {@link Throwable#printStackTrace()}, but with the
+ * count of frames capped, and optionally tagged with a short hash of the trace.
+ * <p>
+ * When the repeat window is set, a throwable with the same trace as one formatted within the
+ * window is formatted as its first line followed by the hash and the count of repeats, instead of
+ * the full trace again. The hash covers the class names and frames of the throwable and all its
+ * causes and suppressed throwables, but not the messages, so it is stable between runs of the
+ * same build.
+ */
+public class CompactThrowableFormatter implements ThrowableFormatter {
+
+  private static final int DEFAULT_MAX_FRAMES = 64;
+
+  /**
+   * The max count of traces remembered for the repeats, the least recently seen one is forgotten
+   * when full.
+   */
+  private static final int MAX_TRACKED_TRACES = 64;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final int maxFrames;
+  private final boolean withHash;
+  private final long repeatWindowMillis;
+
+  /**
+   * The traces seen within the repeat window, keyed by the hash, accessed with the lock of itself.
+   */
+  private final Map<Long, Repeat> repeats;
+
+  /**
+   * Constructor, with at most {@value DEFAULT_MAX_FRAMES} frames, no hash and no repeat folding.
+   */
+  public CompactThrowableFormatter() {
+    this(DEFAULT_MAX_FRAMES, false, 0);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxFrames          the max count of frames of the throwable and all its causes and
+   *                           suppressed throwables, frames over it are omitted
+   * @param withHash           whether to append the hash of the trace to the formatted throwable
+   * @param repeatWindowMillis the time in milliseconds that a repeated trace is folded since it
+   *                           is formatted in full, 0 to always format in full
+   */
+  public CompactThrowableFormatter(int maxFrames, boolean withHash, long repeatWindowMillis) {
+    if (maxFrames < 0 || repeatWindowMillis < 0) {
+      throw new IllegalArgumentException("maxFrames and repeatWindowMillis should not be negative");
+    }
+    this.maxFrames = maxFrames;
+    this.withHash = withHash;
+    this.repeatWindowMillis = repeatWindowMillis;
+    if (repeatWindowMillis > 0) {
+      repeats = new LinkedHashMap<Long, Repeat>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Repeat> eldest) {
+          return size() > MAX_TRACKED_TRACES;
+        }
+      };
+    } else {
+      repeats = null;
+    }
+  }
+
+  @Override
+  public String format(Throwable tr) {
+    if (tr == null) {
+      return "";
+    }
+    long hash = 0;
+    if (withHash || repeats != null) {
+      hash = hashOf(tr, FNV_OFFSET_BASIS, 0);
+    }
+
+    if (repeats != null) {
+      int count = countRepeat(hash, System.currentTimeMillis());
+      if (count > 0) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(tr).append("\n\t... same trace #");
+        appendHash(sb, hash);
+        sb.append(" repeated ").append(count).append(count == 1 ? " time\n" : " times\n");
+        return sb.toString();
+      }
+    }
+
+    StringBuilder sb = new StringBuilder(1024);
+    StackTraceUtil.appendStackTrace(tr, sb, maxFrames);
+    if (withHash) {
+      sb.append("\ttrace #");
+      appendHash(sb, hash);
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Count the repeat of the trace.
+   *
+   * @return the count of repeats since the trace was formatted in full, or 0 if it should be
+   * formatted in full now
+   */
+  private int countRepeat(long hash, long now) {
+    synchronized (repeats) {
+      Repeat repeat = repeats.get(hash);
+      if (repeat == null || now - repeat.firstMillis >= repeatWindowMillis) {
+        repeats.put(hash, new Repeat(now));
+        return 0;
+      }
+      return ++repeat.count;
+    }
+  }
+
+  /**
+   * Hash the class names and frames of the throwable, its suppressed throwables and causes with
+   * FNV-1a, the depth guards against circular references.
+   */
+  private static long hashOf(Throwable tr, long hash, int depth) {
+    if (depth > 16) {
+      return hash;
+    }
+    hash = hashOf(tr.getClass().getName(), hash);
+    for (StackTraceElement frame : tr.getStackTrace()) {
+      hash = hashOf(frame.getClassName(), hash);
+      hash = hashOf(frame.getMethodName(), hash);
+      hash = (hash ^ frame.getLineNumber()) * FNV_PRIME;
+    }
+    for (Throwable suppressed : tr.getSuppressed()) {
+      hash = hashOf(suppressed, hash, depth + 1);
+    }
+    Throwable cause = tr.getCause();
+    if (cause != null && cause != tr) {
+      hash = hashOf(cause, hash, depth + 1);
+    }
+    return hash;
+  }
+
+  private static long hashOf(String s, long hash) {
+    for (int i = 0, length = s.length(); i < length; i++) {
+      hash = (hash ^ s.charAt(i)) * FNV_PRIME;
+    }
+    return (hash ^ 0xff) * FNV_PRIME;
+  }
+
+  /**
+   * Append the hash as 8 hex digits.
+   */
+  private static void appendHash(StringBuilder sb, long hash) {
+    int folded = (int) (hash ^ (hash >>> 32));
+    String hex = Integer.toHexString(folded);
+    for (int i = hex.length(); i < 8; i++) {
+      sb.append('0');
+    }
+    sb.append(hex);
+  }
+
+  private static class Repeat {
+
+    final long firstMillis;
+    int count;
+
+    Repeat(long firstMillis) {
+      this.firstMillis = firstMillis;
+    }
+  }
+}
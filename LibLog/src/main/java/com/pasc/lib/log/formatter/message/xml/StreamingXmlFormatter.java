@@ -0,0 +1,194 @@
+package com.pasc.lib.log.formatter.message.xml;
+
+import com.pasc.lib.log.formatter.FormatException;
+
+/**
+ * Format the XML by re-indenting it in a single pass over the characters, without building a DOM
+ * or creating a {@link javax.xml.transform.Transformer}, so the memory used is about the size of
+ * the output.
+ * <p>
+ * Each tag goes in a new line, an element with only text, or nothing, stays in one line. Tags,
+ * attributes, comments and CDATA sections are copied as they are, malformed or truncated XML is
+ * formatted as far as it goes instead of failing, and the output is cut at the max length.
+ */
+public class StreamingXmlFormatter implements XmlFormatter {
+
+  private static final int DEFAULT_INDENT = 4;
+
+  private static final String SPACES = "                                ";
+
+  private final int indent;
+  private final int maxLength;
+
+  /**
+   * Constructor, with an indent of {@value DEFAULT_INDENT} spaces and no length limit.
+   */
+  public StreamingXmlFormatter() {
+    this(DEFAULT_INDENT, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param indent    the count of spaces to indent each level
+   * @param maxLength the max length of the output, longer output is cut
+   */
+  public StreamingXmlFormatter(int indent, int maxLength) {
+    if (indent < 0 || maxLength < 0) {
+      throw new IllegalArgumentException("indent and maxLength should not be negative");
+    }
+    this.indent = indent;
+    this.maxLength = maxLength;
+  }
+
+  @Override
+  public String format(String xml) {
+    if (xml == null || xml.trim().length() == 0) {
+      throw new FormatException("XML empty.");
+    }
+    int length = xml.length();
+    int i = skipWhitespace(xml, 0, length);
+    if (xml.charAt(i) != '<') {
+      throw new FormatException("XML should start with <, but found " + xml);
+    }
+
+    StringBuilder out = new StringBuilder(Math.min(length + (length >> 2), maxLength) + 32);
+    int depth = 0;
+    while (i < length && out.length() <= maxLength) {
+      if (xml.charAt(i) != '<') {
+        // Text between tags, in a line of its own.
+        int textEnd = indexOf(xml, '<', i);
+        int textStart = skipWhitespace(xml, i, textEnd);
+        if (textStart < textEnd) {
+          newLine(out, depth);
+          append(out, xml, textStart, trimEnd(xml, textStart, textEnd));
+        }
+        i = textEnd;
+        continue;
+      }
+
+      int tagEnd = tagEnd(xml, i);
+      if (xml.startsWith("</", i)) {
+        if (depth > 0) {
+          depth--;
+        }
+        newLine(out, depth);
+        append(out, xml, i, tagEnd);
+        i = tagEnd;
+        continue;
+      }
+
+      if (out.length() > 0) {
+        newLine(out, depth);
+      }
+      append(out, xml, i, tagEnd);
+      boolean isStartTag = tagEnd - i >= 3 && xml.charAt(tagEnd - 1) == '>'
+          && xml.charAt(i + 1) != '?' && xml.charAt(i + 1) != '!'
+          && xml.charAt(tagEnd - 2) != '/';
+      i = tagEnd;
+      if (!isStartTag) {
+        continue;
+      }
+
+      // Keep an element with only text, or nothing, in one line, the text is kept as it is.
+      int textEnd = indexOf(xml, '<', i);
+      if (xml.startsWith("</", textEnd)) {
+        append(out, xml, i, textEnd);
+        int closeEnd = tagEnd(xml, textEnd);
+        append(out, xml, textEnd, closeEnd);
+        i = closeEnd;
+      } else {
+        depth++;
+      }
+    }
+    if (out.length() > maxLength) {
+      out.setLength(maxLength);
+      out.append("... (").append(length).append(" chars in total)");
+    }
+    return out.toString();
+  }
+
+  /**
+   * Find the end of the tag, comment, CDATA section, processing instruction or DOCTYPE starting
+   * from the "<", quoted attribute values may contain ">".
+   *
+   * @return the index after the closing ">", or the length of XML if not closed
+   */
+  private static int tagEnd(String xml, int start) {
+    int length = xml.length();
+    if (xml.startsWith("<!--", start)) {
+      return indexAfter(xml, "-->", start + 4);
+    }
+    if (xml.startsWith("<![CDATA[", start)) {
+      return indexAfter(xml, "]]>", start + 9);
+    }
+    char quote = 0;
+    int brackets = 0;
+    for (int i = start + 1; i < length; i++) {
+      char c = xml.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+      } else if (c == '[') {
+        // The internal subset of DOCTYPE.
+        brackets++;
+      } else if (c == ']') {
+        brackets--;
+      } else if (c == '>' && brackets <= 0) {
+        return i + 1;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Append the text, at most one char more than the max length of output, so that a huge text is
+   * never copied entirely only to be cut.
+   */
+  private void append(StringBuilder out, String xml, int start, int end) {
+    long room = (long) maxLength + 1 - out.length();
+    if (end - start > room) {
+      end = start + (int) Math.max(room, 0);
+    }
+    out.append(xml, start, end);
+  }
+
+  private void newLine(StringBuilder out, int depth) {
+    out.append('\n');
+    int spaces = depth * indent;
+    while (spaces > 0) {
+      int count = Math.min(spaces, SPACES.length());
+      out.append(SPACES, 0, count);
+      spaces -= count;
+    }
+  }
+
+  private static int indexOf(String xml, char c, int start) {
+    int index = xml.indexOf(c, start);
+    return index < 0 ? xml.length() : index;
+  }
+
+  private static int indexAfter(String xml, String s, int start) {
+    int index = xml.indexOf(s, start);
+    return index < 0 ? xml.length() : index + s.length();
+  }
+
+  private static int skipWhitespace(String xml, int start, int end) {
+    int i = start;
+    while (i < end && Character.isWhitespace(xml.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int trimEnd(String xml, int start, int end) {
+    int i = end;
+    while (i > start && Character.isWhitespace(xml.charAt(i - 1))) {
+      i--;
+    }
+    return i;
+  }
+}
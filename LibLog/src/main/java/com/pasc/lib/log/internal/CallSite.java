@@ -0,0 +1,79 @@
+package com.pasc.lib.log.internal;
+
+/**
+ * The call site of a log, injected right before the log call at build time by the LibLogPlugin
+ * transform, so that the logger doesn't need to walk the stack to find it.
+ * <p>
+ * The call site is kept per thread until the next log of the same thread takes it.
+ */
+public final class CallSite {
+
+  /**
+   * Whether any call site was ever injected, nothing is kept per thread before that.
+   */
+  private static volatile boolean sInjected;
+
+  private static final ThreadLocal<CallSite> sPending = new ThreadLocal<CallSite>() {
+    @Override
+    protected CallSite initialValue() {
+      return new CallSite();
+    }
+  };
+
+  /**
+   * The call site, formatted like {@link StackTraceElement#toString()}, for example
+   * "com.yourdomain.MainActivity.onCreate(MainActivity.java:42)", null if not injected.
+   */
+  public String site;
+
+  /**
+   * The tag generated from the calling class, null if not injected.
+   */
+  public String tag;
+
+  private boolean pending;
+
+  private CallSite() {
+  }
+
+  /**
+   * Keep the call site for the next log of current thread.
+   *
+   * @param site the formatted call site, maybe null
+   * @param tag  the generated tag, maybe null
+   */
+  public static void set(String site, String tag) {
+    sInjected = true;
+    CallSite callSite = sPending.get();
+    callSite.site = site;
+    callSite.tag = tag;
+    callSite.pending = true;
+  }
+
+  /**
+   * Take the call site kept for current thread.
+   *
+   * @return the call site, valid until the next {@link #set(String, String)} of current thread,
+   * or null if there is none
+   */
+  public static CallSite take() {
+    if (!sInjected) {
+      return null;
+    }
+    CallSite callSite = sPending.get();
+    if (!callSite.pending) {
+      return null;
+    }
+    callSite.pending = false;
+    return callSite;
+  }
+
+  /**
+   * Drop the call site kept for current thread, called when the log is not going to be printed.
+   */
+  public static void discard() {
+    if (sInjected) {
+      sPending.get().pending = false;
+    }
+  }
+}
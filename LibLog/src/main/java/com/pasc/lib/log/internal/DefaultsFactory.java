@@ -7,14 +7,14 @@ import com.pasc.lib.log.flattener.DefaultFlattener;
 import com.pasc.lib.log.flattener.Flattener;
 import com.pasc.lib.log.formatter.border.BorderFormatter;
 import com.pasc.lib.log.formatter.border.DefaultBorderFormatter;
-import com.pasc.lib.log.formatter.message.json.DefaultJsonFormatter;
 import com.pasc.lib.log.formatter.message.json.JsonFormatter;
+import com.pasc.lib.log.formatter.message.json.StreamingJsonFormatter;
 import com.pasc.lib.log.formatter.message.object.BundleFormatter;
 import com.pasc.lib.log.formatter.message.object.IntentFormatter;
 import com.pasc.lib.log.formatter.message.object.ObjectFormatter;
 import com.pasc.lib.log.formatter.message.throwable.DefaultThrowableFormatter;
 import com.pasc.lib.log.formatter.message.throwable.ThrowableFormatter;
-import com.pasc.lib.log.formatter.message.xml.DefaultXmlFormatter;
+import com.pasc.lib.log.formatter.message.xml.StreamingXmlFormatter;
 import com.pasc.lib.log.formatter.message.xml.XmlFormatter;
 import com.pasc.lib.log.formatter.stacktrace.DefaultStackTraceFormatter;
 import com.pasc.lib.log.formatter.stacktrace.StackTraceFormatter;
@@ -26,6 +26,10 @@ import com.pasc.lib.log.printer.file.backup.BackupStrategy;
 import com.pasc.lib.log.printer.file.backup.FileSizeBackupStrategy;
 import com.pasc.lib.log.printer.file.naming.ChangelessFileNameGenerator;
 import com.pasc.lib.log.printer.file.naming.FileNameGenerator;
+import com.pasc.lib.log.printer.file.overflow.DropBelowLevelOverflowPolicy;
+import com.pasc.lib.log.printer.file.overflow.OverflowPolicy;
+import com.pasc.lib.log.printer.file.ring.BlockingWaitStrategy;
+import com.pasc.lib.log.printer.file.ring.WaitStrategy;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -52,14 +56,14 @@ public class DefaultsFactory {
    * Create the default JSON formatter.
    */
   public static JsonFormatter createJsonFormatter() {
-    return new DefaultJsonFormatter();
+    return new StreamingJsonFormatter();
   }
 
   /**
    * Create the default XML formatter.
    */
   public static XmlFormatter createXmlFormatter() {
-    return new DefaultXmlFormatter();
+    return new StreamingXmlFormatter();
   }
 
   /**
@@ -118,6 +122,20 @@ public class DefaultsFactory {
     return new FileSizeBackupStrategy(DEFAULT_LOG_FILE_MAX_SIZE);
   }
 
+  /**
+   * Create the default overflow policy for the bounded queue of {@link FilePrinter}.
+   */
+  public static OverflowPolicy createOverflowPolicy() {
+    return new DropBelowLevelOverflowPolicy();
+  }
+
+  /**
+   * Create the default wait strategy for the ring buffer of {@link FilePrinter}.
+   */
+  public static WaitStrategy createWaitStrategy() {
+    return new BlockingWaitStrategy();
+  }
+
   /**
    * Get the builtin object formatters.
    *
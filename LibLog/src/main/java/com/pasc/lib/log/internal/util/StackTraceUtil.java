@@ -2,9 +2,14 @@
 package com.pasc.lib.log.internal.util;
 
 import com.pasc.lib.log.PascLog;
+import com.pasc.lib.log.formatter.stacktrace.DefaultStackTraceFormatter;
+import com.pasc.lib.log.formatter.stacktrace.StackTraceFormatter;
 import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility related with stack trace.
@@ -13,6 +18,22 @@ public class StackTraceUtil {
 
   private static final String XLOG_STACK_TRACE_ORIGIN;
 
+  /**
+   * The max count of call sites cached by {@link #sCallSites}, the cache is cleared when full.
+   */
+  private static final int MAX_CACHED_CALL_SITES = 1024;
+
+  /**
+   * The max depth of causes searched for an {@link UnknownHostException}.
+   */
+  private static final int MAX_CAUSE_DEPTH = 64;
+
+  /**
+   * The call sites formatted by {@link DefaultStackTraceFormatter}, keyed by the frame, which is
+   * equal for the same class, method, file and line, or by the call site injected at build time.
+   */
+  private static final ConcurrentHashMap<Object, String> sCallSites = new ConcurrentHashMap<>();
+
   static {
     // Let's start from xlog library.
     String xlogClassName = PascLog.class.getName();
@@ -30,20 +51,200 @@ public class StackTraceUtil {
     }
 
     // This is to reduce the amount of log spew that apps do in the non-error
-    // condition of the network being unavailable.
+    // condition of the network being unavailable. The depth guards against circular causes.
     Throwable t = tr;
-    while (t != null) {
+    for (int depth = 0; t != null && depth < MAX_CAUSE_DEPTH; depth++) {
       if (t instanceof UnknownHostException) {
         return "";
       }
       t = t.getCause();
     }
 
-    StringWriter sw = new StringWriter();
-    PrintWriter pw = new PrintWriter(sw);
-    tr.printStackTrace(pw);
-    pw.flush();
-    return sw.toString();
+    StringBuilder sb = new StringBuilder(1024);
+    appendStackTrace(tr, sb, Integer.MAX_VALUE);
+    return sb.toString();
+  }
+
+  /**
+   * Append the stack trace of the throwable to the builder, in the same format as
+   * {@link Throwable#printStackTrace()}, but without going through a {@link PrintWriter}. The
+   * causes and suppressed throwables are appended too, frames in common with the enclosing trace
+   * are folded as "... N more".
+   *
+   * @param tr        the throwable
+   * @param sb        the builder to append the stack trace to
+   * @param maxFrames the max count of frames appended for the throwable and all its causes and
+   *                  suppressed throwables, frames over it are folded as "... N omitted"
+   */
+  public static void appendStackTrace(Throwable tr, StringBuilder sb, int maxFrames) {
+    Set<Throwable> dejaVu = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+    dejaVu.add(tr);
+    sb.append(tr).append('\n');
+    StackTraceElement[] trace = tr.getStackTrace();
+    int budget = appendFrames(trace, 0, "", sb, maxFrames);
+    for (Throwable suppressed : tr.getSuppressed()) {
+      budget = appendEnclosedStackTrace(suppressed, trace, "Suppressed: ", "\t", sb, budget, dejaVu);
+    }
+    Throwable cause = tr.getCause();
+    if (cause != null) {
+      appendEnclosedStackTrace(cause, trace, "Caused by: ", "", sb, budget, dejaVu);
+    }
+  }
+
+  /**
+   * Append the stack trace of a cause or suppressed throwable, same as
+   * Throwable#printEnclosedStackTrace().
+   *
+   * @return the count of frames still allowed
+   */
+  private static int appendEnclosedStackTrace(Throwable tr, StackTraceElement[] enclosingTrace,
+                                              String caption, String prefix, StringBuilder sb,
+                                              int budget, Set<Throwable> dejaVu) {
+    if (!dejaVu.add(tr)) {
+      sb.append(prefix).append("\t[CIRCULAR REFERENCE:").append(tr).append("]\n");
+      return budget;
+    }
+    StackTraceElement[] trace = tr.getStackTrace();
+    int m = trace.length - 1;
+    int n = enclosingTrace.length - 1;
+    while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+      m--;
+      n--;
+    }
+    int framesInCommon = trace.length - 1 - m;
+
+    sb.append(prefix).append(caption).append(tr).append('\n');
+    budget = appendFrames(trace, framesInCommon, prefix, sb, budget);
+    if (framesInCommon != 0) {
+      sb.append(prefix).append("\t... ").append(framesInCommon).append(" more\n");
+    }
+    for (Throwable suppressed : tr.getSuppressed()) {
+      budget = appendEnclosedStackTrace(suppressed, trace, "Suppressed: ", prefix + "\t", sb,
+          budget, dejaVu);
+    }
+    Throwable cause = tr.getCause();
+    if (cause != null) {
+      budget = appendEnclosedStackTrace(cause, trace, "Caused by: ", prefix, sb, budget, dejaVu);
+    }
+    return budget;
+  }
+
+  /**
+   * Append the frames except the last ones in common with the enclosing trace, at most the
+   * budget.
+   *
+   * @return the count of frames still allowed
+   */
+  private static int appendFrames(StackTraceElement[] trace, int framesInCommon, String prefix,
+                                  StringBuilder sb, int budget) {
+    int unique = trace.length - framesInCommon;
+    int count = Math.min(unique, budget);
+    for (int i = 0; i < count; i++) {
+      sb.append(prefix).append("\tat ").append(trace[i]).append('\n');
+    }
+    if (count < unique) {
+      sb.append(prefix).append("\t... ").append(unique - count).append(" omitted\n");
+    }
+    return budget - count;
+  }
+
+  /**
+   * Find the frame calling the logger and format it, the formatted string is cached if the
+   * formatter is {@link DefaultStackTraceFormatter}.
+   *
+   * @param stackTraceOrigin the origin of stack trace elements from which we should NOT log
+   * @param formatter        the formatter to format the call site
+   * @return the formatted call site, null if not found
+   */
+  public static String formatCallSite(String stackTraceOrigin, StackTraceFormatter formatter) {
+    StackTraceElement callSite = getCallSite(new Throwable().getStackTrace(), stackTraceOrigin);
+    if (callSite == null) {
+      return null;
+    }
+    if (formatter.getClass() != DefaultStackTraceFormatter.class) {
+      return formatter.format(new StackTraceElement[]{callSite});
+    }
+    return formatCached(callSite, callSite, formatter);
+  }
+
+  /**
+   * Format the call site injected at build time, the formatted string is cached if the formatter
+   * is {@link DefaultStackTraceFormatter}.
+   *
+   * @param site      the call site, formatted like {@link StackTraceElement#toString()}
+   * @param formatter the formatter to format the call site
+   * @return the formatted call site
+   */
+  public static String formatInjectedCallSite(String site, StackTraceFormatter formatter) {
+    if (formatter.getClass() != DefaultStackTraceFormatter.class) {
+      return formatter.format(new StackTraceElement[]{parseCallSite(site)});
+    }
+    String formatted = sCallSites.get(site);
+    return formatted != null ? formatted : formatCached(site, parseCallSite(site), formatter);
+  }
+
+  private static String formatCached(Object key, StackTraceElement callSite,
+                                     StackTraceFormatter formatter) {
+    String formatted = sCallSites.get(key);
+    if (formatted == null) {
+      formatted = formatter.format(new StackTraceElement[]{callSite});
+      if (sCallSites.size() >= MAX_CACHED_CALL_SITES) {
+        sCallSites.clear();
+      }
+      sCallSites.put(key, formatted);
+    }
+    return formatted;
+  }
+
+  /**
+   * Parse the call site formatted like {@link StackTraceElement#toString()}, such as
+   * "com.yourdomain.MainActivity.onCreate(MainActivity.java:42)".
+   */
+  private static StackTraceElement parseCallSite(String site) {
+    int open = site.lastIndexOf('(');
+    int dot = open > 0 ? site.lastIndexOf('.', open) : -1;
+    if (dot < 0 || !site.endsWith(")")) {
+      return new StackTraceElement(site, "", null, -1);
+    }
+    String location = site.substring(open + 1, site.length() - 1);
+    String fileName = location;
+    int lineNumber = -1;
+    int colon = location.lastIndexOf(':');
+    if (colon >= 0) {
+      try {
+        lineNumber = Integer.parseInt(location.substring(colon + 1));
+        fileName = location.substring(0, colon);
+      } catch (NumberFormatException e) {
+        // Not a line number, keep the whole location as file name.
+      }
+    }
+    if ("Unknown Source".equals(fileName)) {
+      fileName = null;
+    }
+    return new StackTraceElement(site.substring(0, dot), site.substring(dot + 1, open), fileName,
+        lineNumber);
+  }
+
+  /**
+   * Get the first frame below the frames of PascLog library, scanning from the top of the stack
+   * and stopping there, rather than scanning the whole stack.
+   *
+   * @param stackTrace the full stack trace
+   * @return the frame calling the logger, null if not found
+   */
+  private static StackTraceElement getCallSite(StackTraceElement[] stackTrace,
+                                               String stackTraceOrigin) {
+    boolean inLibrary = false;
+    for (StackTraceElement element : stackTrace) {
+      String className = element.getClassName();
+      if (className.startsWith(XLOG_STACK_TRACE_ORIGIN)
+          || (stackTraceOrigin != null && className.startsWith(stackTraceOrigin))) {
+        inLibrary = true;
+      } else if (inLibrary) {
+        return element;
+      }
+    }
+    return null;
   }
 
   /**
@@ -0,0 +1,23 @@
+package com.pasc.lib.log.printer;
+
+import com.pasc.lib.log.MessageSupplier;
+
+/**
+ * A {@link Printer} able to build the message later, normally on its own worker thread, so the
+ * logging thread doesn't have to pay for the formatting.
+ * <p>
+ * Only messages whose arguments are already captured are passed to this kind of printer, see
+ * {@link com.pasc.lib.log.LogConfiguration.Builder#placeholderEnable()}.
+ */
+public interface DeferredPrinter extends Printer {
+
+  /**
+   * Print log in new line, the message is built when needed.
+   *
+   * @param logLevel the level of log
+   * @param tag      the tag of log
+   * @param msg      the supplier of the msg of log, can be called on any thread and more than
+   *                 once, always returns the same message
+   */
+  void println(int logLevel, String tag, MessageSupplier msg);
+}
@@ -1,13 +1,20 @@
-
 package com.pasc.lib.log.printer;
 
+import com.pasc.lib.log.MessageSupplier;
+
 /**
  * Represents a group of Printers that should used to print logs in the same time, each printer
  * may probably print the log to different place.
  */
-public class PrinterSet implements Printer {
+public class PrinterSet implements DeferredPrinter {
 
-  private Printer[] printers;
+  private final Printer[] printers;
+
+  /**
+   * Whether all printers are {@link DeferredPrinter}s, if not, a deferred message is built right
+   * away and shared by all printers.
+   */
+  private final boolean deferred;
 
   /**
    * Constructor, pass printers in and will use all these printers to print the same logs.
@@ -16,6 +23,13 @@ public class PrinterSet implements Printer {
    */
   public PrinterSet(Printer... printers) {
     this.printers = printers;
+    boolean deferred = printers != null;
+    if (printers != null) {
+      for (Printer printer : printers) {
+        deferred &= printer instanceof DeferredPrinter;
+      }
+    }
+    this.deferred = deferred;
   }
 
   @Override
@@ -27,4 +41,18 @@ public class PrinterSet implements Printer {
       printer.println(logLevel, tag, msg);
     }
   }
+
+  @Override
+  public void println(int logLevel, String tag, MessageSupplier msg) {
+    if (printers == null) {
+      return;
+    }
+    if (!deferred) {
+      println(logLevel, tag, msg.get());
+      return;
+    }
+    for (Printer printer : printers) {
+      ((DeferredPrinter) printer).println(logLevel, tag, msg);
+    }
+  }
 }
@@ -0,0 +1,162 @@
+
+package com.pasc.lib.log.printer.file;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip the backup log files of {@link FilePrinter} on a low priority background thread.
+ * <p>
+ * A backup file "name.bak" is streamed into "name.bak.gz.tmp", which is renamed to "name.bak.gz"
+ * once completely written and synced, then the backup file is deleted, so there is always a
+ * complete copy of the logs. The backup files left by a previous run are compressed when the
+ * thread starts, see {@link #start()}.
+ */
+/*package*/ class BackupCompressor implements Runnable {
+
+  /**
+   * The suffix of the compressed backup file.
+   */
+  static final String COMPRESSED_SUFFIX = ".gz";
+
+  /**
+   * The suffix of the backup file.
+   */
+  private static final String BACKUP_SUFFIX = ".bak";
+
+  /**
+   * The suffix of the compressed backup file being written.
+   */
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  private final String folderPath;
+  private final RetentionSweeper sweeper;
+
+  private final BlockingQueue<String> backupFiles = new LinkedBlockingQueue<>();
+  private boolean started;
+
+  /**
+   * Constructor.
+   *
+   * @param folderPath the log folder
+   * @param sweeper    the sweeper to be told about the compressed files
+   */
+  BackupCompressor(String folderPath, RetentionSweeper sweeper) {
+    this.folderPath = folderPath;
+    this.sweeper = sweeper;
+  }
+
+  /**
+   * Start the background thread if not started yet, which compresses the backup files left by a
+   * previous run first.
+   */
+  void start() {
+    synchronized (this) {
+      if (!started) {
+        Thread thread = new Thread(this, "PascLog-compressor");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        thread.start();
+        started = true;
+      }
+    }
+  }
+
+  /**
+   * Compress the backup file later in background.
+   *
+   * @param fileName the name of the backup file, relative to the log folder
+   */
+  void compress(String fileName) {
+    start();
+    backupFiles.offer(fileName);
+  }
+
+  @Override
+  public void run() {
+    compressLeftovers();
+    try {
+      while (true) {
+        compressFile(backupFiles.take());
+      }
+    } catch (InterruptedException e) {
+      e.printStackTrace();
+      synchronized (this) {
+        started = false;
+      }
+    }
+  }
+
+  /**
+   * Compress the backup files and delete the temp files left by a previous run.
+   */
+  private void compressLeftovers() {
+    String[] fileNames = new File(folderPath).list();
+    if (fileNames == null) {
+      return;
+    }
+    for (String fileName : fileNames) {
+      if (fileName.endsWith(COMPRESSED_SUFFIX + TEMP_SUFFIX)) {
+        new File(folderPath, fileName).delete();
+      } else if (fileName.endsWith(BACKUP_SUFFIX) && !backupFiles.contains(fileName)) {
+        compressFile(fileName);
+      }
+    }
+  }
+
+  private void compressFile(String fileName) {
+    File source = new File(folderPath, fileName);
+    File temp = new File(folderPath, fileName + COMPRESSED_SUFFIX + TEMP_SUFFIX);
+    File target = new File(folderPath, fileName + COMPRESSED_SUFFIX);
+    if (!source.exists()) {
+      return;
+    }
+    try {
+      InputStream in = new BufferedInputStream(new FileInputStream(source), BUFFER_SIZE);
+      FileOutputStream fos = new FileOutputStream(temp);
+      try {
+        GZIPOutputStream out = new GZIPOutputStream(fos, BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+          out.write(buffer, 0, count);
+        }
+        out.finish();
+        out.flush();
+        fos.getFD().sync();
+      } finally {
+        try {
+          in.close();
+        } catch (IOException e) {
+          // Ignore
+        }
+        try {
+          fos.close();
+        } catch (IOException e) {
+          // Ignore
+        }
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+      temp.delete();
+      return;
+    }
+
+    // The backup file may be deleted by the sweeper meanwhile.
+    if (!source.exists() || !temp.renameTo(target)) {
+      temp.delete();
+      return;
+    }
+    source.delete();
+    sweeper.onFileRenamed(fileName, fileName + COMPRESSED_SUFFIX, target.length());
+  }
+}
@@ -0,0 +1,290 @@
+
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.MessageSupplier;
+import com.pasc.lib.log.printer.file.overflow.OverflowPolicy;
+import com.pasc.lib.log.printer.file.overflow.OverflowQueue;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@link LogQueue} bounded by the count of logs and/or the total bytes of messages, the
+ * {@link OverflowPolicy} decides what to do when it is full.
+ * <p>
+ * The bytes of a message is estimated as 2 bytes per char, the size of its chars in memory.
+ */
+/*package*/ class BoundedLogQueue implements LogQueue, OverflowQueue {
+
+  /**
+   * The max count of recycled logs kept for reusing.
+   */
+  private static final int MAX_RECYCLED = 1024;
+
+  private final int capacity;
+  private final long capacityBytes;
+  private final OverflowPolicy overflowPolicy;
+
+  private final ArrayDeque<LogItem> logs = new ArrayDeque<>();
+
+  /**
+   * The count of queued logs of each level, used to find the lowest level quickly. Counters are
+   * kept even when they drop to 0, so counting never allocates once a level has been seen.
+   */
+  private final TreeMap<Integer, int[]> levelCounts = new TreeMap<>();
+
+  /**
+   * The written logs handed back by {@link #recycle(List)}, reused for new logs.
+   */
+  private final ArrayDeque<LogItem> recycled = new ArrayDeque<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  /**
+   * The count of signals in {@link #logs}, signals do not take any room.
+   */
+  private int signalCount;
+  private long bytes;
+
+  private long dropped;
+  private long totalDropped;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity       the max count of logs, 0 for no limit
+   * @param capacityBytes  the max total bytes of messages, 0 for no limit
+   * @param overflowPolicy the policy when the queue is full
+   */
+  BoundedLogQueue(int capacity, long capacityBytes, OverflowPolicy overflowPolicy) {
+    this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+    this.capacityBytes = capacityBytes > 0 ? capacityBytes : Long.MAX_VALUE;
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  private static long bytesOf(LogItem log) {
+    return 2L * log.length();
+  }
+
+  @Override public void put(int level, String tag, String msg, MessageSupplier deferredMsg,
+      long timestamp, Thread thread, long sequence) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      LogItem log = obtain(level, tag, msg, deferredMsg, timestamp, thread, sequence);
+      long logBytes = bytesOf(log);
+      if (!hasRoom(logBytes) && !overflowPolicy.onOverflow(this, level, logBytes)) {
+        onDropped();
+        release(log);
+        return;
+      }
+      enqueue(log);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override public void putSignal(LogItem signal) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      enqueue(signal);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override public LogItem take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (logs.isEmpty()) {
+        notEmpty.await();
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override public LogItem poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (logs.isEmpty()) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override public int drainTo(List<LogItem> list, int maxElements) {
+    lock.lock();
+    try {
+      int count = 0;
+      while (count < maxElements && !logs.isEmpty()) {
+        list.add(dequeue());
+        count++;
+      }
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override public void recycle(List<LogItem> list) {
+    lock.lock();
+    try {
+      for (int i = 0, size = list.size(); i < size; i++) {
+        release(list.get(i));
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get a log from the recycled ones, or create one if there is none.
+   */
+  private LogItem obtain(int level, String tag, String msg, MessageSupplier deferredMsg,
+      long timestamp, Thread thread, long sequence) {
+    LogItem log = recycled.pollFirst();
+    if (log == null) {
+      return new LogItem(level, tag, msg, deferredMsg, timestamp, thread.getId(),
+          thread.getName(), sequence);
+    }
+    log.set(level, tag, msg, deferredMsg, timestamp, thread.getId(), thread.getName(), sequence);
+    return log;
+  }
+
+  /**
+   * Keep the log not used any more for reusing, at most as many as the capacity.
+   */
+  private void release(LogItem log) {
+    if (log.signal || recycled.size() >= Math.min(capacity, MAX_RECYCLED)) {
+      return;
+    }
+    log.tag = null;
+    log.msg = null;
+    log.threadName = null;
+    log.deferredMsg = null;
+    recycled.addLast(log);
+  }
+
+  @Override public long takeDroppedCount() {
+    lock.lock();
+    try {
+      long count = dropped;
+      dropped = 0;
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override public long getDroppedCount() {
+    lock.lock();
+    try {
+      return totalDropped;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override public boolean hasRoom(long logBytes) {
+    int count = logs.size() - signalCount;
+    return count == 0 || (count < capacity && bytes + logBytes <= capacityBytes);
+  }
+
+  @Override public boolean awaitRoom(long logBytes, long timeoutMillis)
+      throws InterruptedException {
+    long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    while (!hasRoom(logBytes)) {
+      if (nanos <= 0) {
+        return false;
+      }
+      nanos = notFull.awaitNanos(nanos);
+    }
+    return true;
+  }
+
+  @Override public boolean dropOldest() {
+    return dropOldest(null);
+  }
+
+  @Override public boolean dropOldest(int logLevel) {
+    return dropOldest(Integer.valueOf(logLevel));
+  }
+
+  private boolean dropOldest(Integer logLevel) {
+    Iterator<LogItem> iterator = logs.iterator();
+    while (iterator.hasNext()) {
+      LogItem log = iterator.next();
+      if (log.signal || (logLevel != null && log.level != logLevel)) {
+        continue;
+      }
+      iterator.remove();
+      onRemoved(log);
+      onDropped();
+      release(log);
+      return true;
+    }
+    return false;
+  }
+
+  @Override public int lowestLevel() {
+    for (Map.Entry<Integer, int[]> entry : levelCounts.entrySet()) {
+      if (entry.getValue()[0] > 0) {
+        return entry.getKey();
+      }
+    }
+    return LogLevel.NONE;
+  }
+
+  private void onDropped() {
+    dropped++;
+    totalDropped++;
+  }
+
+  private void enqueue(LogItem log) {
+    logs.addLast(log);
+    if (log.signal) {
+      signalCount++;
+    } else {
+      bytes += bytesOf(log);
+      int[] count = levelCounts.get(log.level);
+      if (count == null) {
+        count = new int[1];
+        levelCounts.put(log.level, count);
+      }
+      count[0]++;
+    }
+    notEmpty.signal();
+  }
+
+  private LogItem dequeue() {
+    LogItem log = logs.removeFirst();
+    if (log.signal) {
+      signalCount--;
+    } else {
+      onRemoved(log);
+      notFull.signalAll();
+    }
+    return log;
+  }
+
+  private void onRemoved(LogItem log) {
+    bytes -= bytesOf(log);
+    levelCounts.get(log.level)[0]--;
+  }
+}
@@ -0,0 +1,161 @@
+
+package com.pasc.lib.log.printer.file;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read the log file written by {@link FilePrinter.Builder#compressLog(boolean)}, the decoded
+ * content is the same as the plain log file.
+ * <p>
+ * A truncated or corrupted tail, such as the last frame torn by a crash, is treated as the end of
+ * file, all the logs before it are still readable.
+ *
+ * @see com.pasc.lib.log.LogUtils#openLogInputStream(java.io.File)
+ */
+public class DeflateLogInputStream extends FilterInputStream {
+
+  /**
+   * The magic starting every deflate stream in the file, "PLZ1".
+   */
+  public static final int MAGIC = 0x504c5a31;
+
+  /**
+   * The max length of a frame, a longer frame is treated as corrupted.
+   */
+  private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+  private final DataInputStream input;
+  private Inflater inflater;
+  private byte[] frame = new byte[8 * 1024];
+  private final byte[] buffer = new byte[8 * 1024];
+  private int position;
+  private int limit;
+  private boolean eof;
+
+  /**
+   * Constructor.
+   *
+   * @param in the stream of the compressed log file
+   */
+  public DeflateLogInputStream(InputStream in) {
+    super(in);
+    input = new DataInputStream(in);
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!ensureAvailable()) {
+      return -1;
+    }
+    return buffer[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!ensureAvailable()) {
+      return -1;
+    }
+    int count = Math.min(len, limit - position);
+    System.arraycopy(buffer, position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = 0;
+    while (skipped < n && ensureAvailable()) {
+      int count = (int) Math.min(n - skipped, limit - position);
+      position += count;
+      skipped += count;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return limit - position;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (inflater != null) {
+      inflater.end();
+      inflater = null;
+    }
+    super.close();
+  }
+
+  private boolean ensureAvailable() throws IOException {
+    while (position == limit) {
+      if (eof) {
+        return false;
+      }
+      try {
+        inflate();
+      } catch (DataFormatException e) {
+        eof = true;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Inflate the pending input, or read the next frame.
+   */
+  private void inflate() throws IOException, DataFormatException {
+    position = 0;
+    limit = 0;
+    if (inflater != null && !inflater.needsInput() && !inflater.finished()) {
+      limit = inflater.inflate(buffer);
+      if (limit > 0) {
+        return;
+      }
+    }
+    int header;
+    try {
+      header = input.readInt();
+    } catch (EOFException e) {
+      eof = true;
+      return;
+    }
+    if (header == MAGIC) {
+      if (inflater != null) {
+        inflater.end();
+      }
+      inflater = new Inflater(true);
+      return;
+    }
+    if (inflater == null || header <= 0 || header > MAX_FRAME_LENGTH) {
+      eof = true;
+      return;
+    }
+    if (frame.length < header) {
+      frame = new byte[header];
+    }
+    try {
+      input.readFully(frame, 0, header);
+    } catch (EOFException e) {
+      eof = true;
+      return;
+    }
+    if (!inflater.finished()) {
+      inflater.setInput(frame, 0, header);
+      limit = inflater.inflate(buffer);
+    }
+  }
+}
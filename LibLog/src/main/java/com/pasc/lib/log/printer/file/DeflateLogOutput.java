@@ -0,0 +1,138 @@
+
+package com.pasc.lib.log.printer.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.zip.Deflater;
+
+/**
+ * Write logs to a file compressed by deflate, readable by {@link DeflateLogInputStream}.
+ * <p>
+ * The file is a sequence of frames. Every time the file is opened, a new deflate stream is
+ * started by {@link DeflateLogInputStream#MAGIC}, then every {@link #write(String)} appends a
+ * frame of [length int][deflated bytes ended by a SYNC_FLUSH], so the file is always decodable up
+ * to the last complete frame. A frame torn by a crash is truncated when the file is opened again.
+ */
+/*package*/ final class DeflateLogOutput {
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final FileOutputStream out;
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private final ByteArrayOutputStream frame = new ByteArrayOutputStream(BUFFER_SIZE);
+
+  private DeflateLogOutput(FileOutputStream out) throws IOException {
+    this.out = out;
+    writeInt(DeflateLogInputStream.MAGIC);
+    out.write(frame.toByteArray());
+    frame.reset();
+  }
+
+  /**
+   * Whether the file is empty or written by {@link DeflateLogOutput}.
+   */
+  static boolean isDeflateLog(File file) throws IOException {
+    if (file.length() == 0) {
+      return true;
+    }
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      return raf.length() >= 4 && raf.readInt() == DeflateLogInputStream.MAGIC;
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Open the file to append logs, the frame torn by a crash at the end of file is truncated.
+   *
+   * @param file the file, should be empty or written by {@link DeflateLogOutput}
+   */
+  static DeflateLogOutput open(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      long length = raf.length();
+      long position = 0;
+      while (position + 4 <= length) {
+        raf.seek(position);
+        int header = raf.readInt();
+        if (header == DeflateLogInputStream.MAGIC) {
+          position += 4;
+        } else if (header > 0 && position + 4 + header <= length) {
+          position += 4 + header;
+        } else {
+          break;
+        }
+      }
+      if (position < length) {
+        raf.setLength(position);
+      }
+    } finally {
+      raf.close();
+    }
+    return new DeflateLogOutput(new FileOutputStream(file, true));
+  }
+
+  /**
+   * Deflate the logs and append them as a frame.
+   *
+   * @param logs the flattened logs
+   * @return the bytes appended to the file
+   */
+  long write(String logs) throws IOException {
+    deflater.setInput(logs.getBytes(UTF_8));
+    return writeFrame(Deflater.SYNC_FLUSH);
+  }
+
+  /**
+   * End the deflate stream, and close the file.
+   *
+   * @return the bytes appended to the file
+   */
+  long close() throws IOException {
+    try {
+      deflater.finish();
+      return writeFrame(Deflater.NO_FLUSH);
+    } finally {
+      deflater.end();
+      out.close();
+    }
+  }
+
+  private long writeFrame(int flush) throws IOException {
+    writeInt(0);
+    while (true) {
+      int count = deflater.deflate(buffer, 0, buffer.length, flush);
+      frame.write(buffer, 0, count);
+      if (flush == Deflater.SYNC_FLUSH ? count < buffer.length : deflater.finished()) {
+        break;
+      }
+    }
+    byte[] bytes = frame.toByteArray();
+    frame.reset();
+    int length = bytes.length - 4;
+    if (length == 0) {
+      return 0;
+    }
+    bytes[0] = (byte) (length >>> 24);
+    bytes[1] = (byte) (length >>> 16);
+    bytes[2] = (byte) (length >>> 8);
+    bytes[3] = (byte) length;
+    out.write(bytes);
+    return bytes.length;
+  }
+
+  private void writeInt(int value) {
+    frame.write(value >>> 24);
+    frame.write(value >>> 16);
+    frame.write(value >>> 8);
+    frame.write(value);
+  }
+}
@@ -3,19 +3,35 @@ package com.pasc.lib.log.printer.file;
 
 import android.content.Context;
 import android.text.TextUtils;
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.MessageSupplier;
 import com.pasc.lib.log.PascLog;
 import com.pasc.lib.log.flattener.Flattener;
+import com.pasc.lib.log.flattener.FlattenerAdapter;
+import com.pasc.lib.log.flattener.LogRecord;
+import com.pasc.lib.log.flattener.RecordFlattener;
 import com.pasc.lib.log.internal.DefaultsFactory;
+import com.pasc.lib.log.internal.SystemCompat;
+import com.pasc.lib.log.printer.DeferredPrinter;
 import com.pasc.lib.log.printer.Printer;
 import com.pasc.lib.log.printer.file.backup.BackupStrategy;
+import com.pasc.lib.log.printer.file.backup.BackupStrategyAdapter;
+import com.pasc.lib.log.printer.file.backup.SizeAwareBackupStrategy;
 import com.pasc.lib.log.printer.file.naming.FileNameGenerator;
+import com.pasc.lib.log.printer.file.overflow.OverflowPolicy;
+import com.pasc.lib.log.printer.file.ring.WaitStrategy;
 import com.pasc.lib.log.utils.SDCardUtils;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.pasc.lib.log.PascLog.SDCARD_LOG_FILE_DIR;
 import static com.pasc.lib.log.PascLog.mContext;
@@ -25,13 +41,58 @@ import static com.pasc.lib.log.PascLog.mContext;
  * <p>
  * Use the {@link Builder} to construct a {@link FilePrinter} object.
  */
-public class FilePrinter implements Printer {
+public class FilePrinter implements DeferredPrinter {
 
     /**
      * Use worker, write logs asynchronously.
      */
     private static final boolean USE_WORKER = true;
 
+    /**
+     * Write every log as soon as it is taken from the queue, no batching.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 1;
+
+    /**
+     * The default max chars of a batch, 64K chars.
+     */
+    private static final int DEFAULT_BATCH_BYTES = 64 * 1024;
+
+    /**
+     * The min size of the mmap cache file, 8K bytes.
+     */
+    private static final int MIN_MMAP_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * The suffix of the default mmap cache file, which is next to the log folder.
+     */
+    private static final String MMAP_BUFFER_SUFFIX = ".mmap";
+
+    /**
+     * The min count of slots of the ring buffer.
+     */
+    private static final int MIN_RING_BUFFER_SIZE = 16;
+
+    /**
+     * Keep only one log file opened, reopen when the file name changes.
+     */
+    private static final int DEFAULT_WRITER_POOL_SIZE = 1;
+
+    /**
+     * The default time a pooled log file is kept opened without being written, 1 minute.
+     */
+    private static final long DEFAULT_WRITER_IDLE_TIMEOUT = 60 * 1000;
+
+    /**
+     * The default min time between two sweeps of old log files, 10 minutes.
+     */
+    private static final long DEFAULT_SWEEP_INTERVAL = 10 * 60 * 1000;
+
+    /**
+     * The tag of the log reporting dropped logs.
+     */
+    private static final String DROPPED_LOG_TAG = "FilePrinter";
+
     /**
      * The folder path of log file.
      */
@@ -45,35 +106,173 @@ public class FilePrinter implements Printer {
     /**
      * The backup strategy for log file.
      */
-    private final BackupStrategy backupStrategy;
+    private final SizeAwareBackupStrategy backupStrategy;
     private final int fileSaveTime;
 
+    /**
+     * Delete the old log files by age, count and total bytes.
+     */
+    private final RetentionSweeper sweeper;
+
+    /**
+     * Whether to gzip the backup log files in background.
+     */
+    private final boolean compressBackup;
+
+    /**
+     * Whether to write the log files compressed by deflate.
+     */
+    private final boolean compressLog;
+
+    /**
+     * Gzip the backup log files, created and started once the log folder is known.
+     */
+    private volatile BackupCompressor backupCompressor;
+
+    /**
+     * The max count of logs written by one write and one flush.
+     */
+    private final int batchSize;
+
+    /**
+     * The max chars of logs written by one write and one flush.
+     */
+    private final int batchBytes;
+
+    /**
+     * The max time in milliseconds the worker waits for more logs to fill a batch.
+     */
+    private final long batchLatency;
+
+    /**
+     * The size of the mmap cache file, 0 if logs are not buffered by mmap.
+     */
+    private final int mmapBufferSize;
+
+    /**
+     * The path of the mmap cache file, null to put it next to the log folder.
+     */
+    private final String mmapBufferPath;
+
+    /**
+     * The max count of logs in the queue, 0 for no limit.
+     */
+    private final int queueCapacity;
+
+    /**
+     * The max total bytes of messages in the queue, 0 for no limit.
+     */
+    private final long queueCapacityBytes;
+
+    /**
+     * The policy when the bounded queue is full.
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * The count of slots of the ring buffer, 0 if logs are not handed off by a ring buffer.
+     */
+    private final int ringBufferSize;
+
+    /**
+     * How the worker waits for logs published into the ring buffer.
+     */
+    private final WaitStrategy waitStrategy;
+
     /**
      * The log flattener when print a log.
      */
-    private Flattener flattener;
+    private RecordFlattener flattener;
 
     /**
-     * Log writer.
+     * The sequence number of the last printed log.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Log writer last used.
      */
     private Writer writer;
 
-    private volatile Worker worker;
+    /**
+     * The opened log writers keyed by file name, in the order of last used.
+     */
+    /*package*/ final LinkedHashMap<String, Writer> writers =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The max count of log files kept opened.
+     */
+    private final int writerPoolSize;
+
+    /**
+     * The time in milliseconds a pooled log file is kept opened without being written.
+     */
+    private final long writerIdleTimeout;
+
+    /*package*/ volatile Worker worker;
     private boolean hasChecked = false;
 
+    /**
+     * The crash-safe buffer logs are appended to when mmap is enabled.
+     */
+    private volatile MappedLogBuffer mappedBuffer;
+    private boolean mappedBufferFailed;
+    private final Object mappedBufferLock = new Object();
+
+    /**
+     * Writes the records of {@link #mappedBuffer} to the log file.
+     */
+    private final MappedRecordWriter mappedRecordWriter = new MappedRecordWriter();
+
+    /**
+     * Enqueued to tell the worker there are logs in {@link #mappedBuffer} to be drained.
+     */
+    private final LogItem drainSignal = new LogItem(0, null, "", 0);
+
+    /**
+     * The logs of a batch flattened before taking the write lock of {@link PascLog#rwl}, also
+     * used as the lock of {@link #doPrintln(List)}.
+     */
+    private final StringBuilder flattenedLogs = new StringBuilder();
+
+    /**
+     * The end offset of each log of the batch in {@link #flattenedLogs}.
+     */
+    private int[] flattenedEnds = new int[16];
+
     /*package*/ FilePrinter(Builder builder) {
         folderPath = builder.folderPath;
         fileNameGenerator = builder.fileNameGenerator;
-        backupStrategy = builder.backupStrategy;
-        flattener = builder.flattener;
+        backupStrategy = BackupStrategyAdapter.adapt(builder.backupStrategy);
+        flattener = FlattenerAdapter.adapt(builder.flattener);
         fileSaveTime = builder.fileSaveTime;
+        sweeper = new RetentionSweeper(TimeUnit.DAYS.toMillis(fileSaveTime),
+                builder.maxFileCount, builder.maxTotalFileBytes, builder.sweepInterval);
+        compressLog = builder.compressLog;
+        compressBackup = builder.compressBackup && !compressLog;
+        batchSize = builder.batchSize;
+        batchBytes = builder.batchBytes;
+        batchLatency = builder.batchLatency;
+        mmapBufferSize = builder.mmapBufferSize;
+        mmapBufferPath = builder.mmapBufferPath;
+        queueCapacity = builder.queueCapacity;
+        queueCapacityBytes = builder.queueCapacityBytes;
+        overflowPolicy = builder.overflowPolicy;
+        ringBufferSize = builder.ringBufferSize;
+        waitStrategy = builder.waitStrategy;
+        writerPoolSize = builder.writerPoolSize;
+        writerIdleTimeout = builder.writerIdleTimeout;
+        drainSignal.signal = true;
 
-        writer = new Writer();
         if (USE_WORKER) {
             worker = new Worker();
         }
 
         //checkLogFolder();
+        if (compressBackup && folderPath != null && folderPath.length() > 0) {
+            startBackupCompressor();
+        }
     }
 
     /**
@@ -93,6 +292,23 @@ public class FilePrinter implements Printer {
             }
         }
         hasChecked = true;
+        if (compressBackup) {
+            startBackupCompressor();
+        }
+    }
+
+    /**
+     * Create and start the backup compressor if not started yet, so the backup files left by a
+     * previous run are compressed without waiting for the first backup of this run.
+     *
+     * @return the started backup compressor
+     */
+    private synchronized BackupCompressor startBackupCompressor() {
+        if (backupCompressor == null) {
+            backupCompressor = new BackupCompressor(folderPath, sweeper);
+            backupCompressor.start();
+        }
+        return backupCompressor;
     }
 
     public String getFloderPath() {
@@ -100,149 +316,735 @@ public class FilePrinter implements Printer {
     }
 
     @Override public void println(int logLevel, String tag, String msg) {
+        if (USE_WORKER && mmapBufferSize > 0 && printlnMapped(logLevel, tag, msg)) {
+            return;
+        }
         if (USE_WORKER) {
             if (!worker.isStarted()) {
                 worker.start();
             }
-            worker.enqueue(new LogItem(logLevel, tag, msg));
+            worker.enqueue(logLevel, tag, msg, null);
         } else {
             doPrintln(logLevel, tag, msg);
         }
     }
 
+    /**
+     * Print the log, the message is built by the worker thread, unless mmap buffer is enabled, in
+     * which case the message is built right away and appended to the buffer.
+     */
+    @Override public void println(int logLevel, String tag, MessageSupplier msg) {
+        if (!USE_WORKER || mmapBufferSize > 0) {
+            println(logLevel, tag, msg.get());
+            return;
+        }
+        if (!worker.isStarted()) {
+            worker.start();
+        }
+        worker.enqueue(logLevel, tag, null, msg);
+    }
+
     public int getFileSaveTime() {
         return fileSaveTime;
     }
 
-    /**
-     * Do the real job of writing log to file.
-     */
-    void doPrintln(int logLevel, String tag, String msg) {
-        checkLogFolder();
-        String lastFileName = writer.getLastFileName();
-        if (lastFileName == null || fileNameGenerator.isFileNameChangeable()) {
-            String newFileName =
-                    fileNameGenerator.generateFileName(logLevel, System.currentTimeMillis());
-            if (newFileName == null || newFileName.trim().length() == 0) {
-                throw new IllegalArgumentException("File name should not be empty.");
-            }
-            if (!newFileName.equals(lastFileName)) {
-                if (writer.isOpened()) {
-                    writer.close();
-                }
-                if (!writer.open(newFileName)) {
-                    return;
-                }
-                lastFileName = newFileName;
-            }
+    /**
+     * Get the total count of logs dropped because the bounded queue is full.
+     *
+     * @return the count of dropped logs, always 0 if the queue is not bounded
+     */
+    public long getDroppedCount() {
+        return USE_WORKER ? worker.logs.getDroppedCount() : 0;
+    }
+
+    /**
+     * Recover the logs left in the mmap cache file by a previous run into the log file, should be
+     * called before any new log is printed. Do nothing if mmap is not enabled.
+     */
+    public void recoverMappedLogs() {
+        if (mmapBufferSize > 0) {
+            openMappedBuffer();
+        }
+    }
+
+    /**
+     * Append the log to the mmap buffer, the worker will move it to the log file later.
+     *
+     * @return true if appended, false if the log should be enqueued as usual
+     */
+    private boolean printlnMapped(int logLevel, String tag, String msg) {
+        MappedLogBuffer buffer = openMappedBuffer();
+        if (buffer == null) {
+            return false;
+        }
+        LogRecord record = new LogRecord(logLevel, tag, msg, sequence.incrementAndGet());
+        StringBuilder sb = new StringBuilder(msg.length() + 64);
+        flattener.flatten(record, sb);
+        byte[] data = MappedLogBuffer.encode(sb.toString());
+        buffer.append(logLevel, record.timestamp, data);
+        return true;
+    }
+
+    /**
+     * Open the mmap buffer if not opened yet, logs left by a previous run are written to the log
+     * file at the same time.
+     *
+     * @return the opened buffer, or null if failed to open
+     */
+    private MappedLogBuffer openMappedBuffer() {
+        MappedLogBuffer buffer = mappedBuffer;
+        if (buffer != null) {
+            return buffer;
+        }
+        synchronized (mappedBufferLock) {
+            if (mappedBuffer == null && !mappedBufferFailed) {
+                checkLogFolder();
+                File cacheFile = mmapBufferPath != null
+                        ? new File(mmapBufferPath)
+                        : new File(folderPath + MMAP_BUFFER_SUFFIX);
+                sweeper.keep(cacheFile);
+                PascLog.rwl.writeLock().lock();
+                try {
+                    mappedBuffer = MappedLogBuffer.open(cacheFile, mmapBufferSize,
+                            mappedRecordWriter, mappedRecordWriter);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    mappedBufferFailed = true;
+                } finally {
+                    PascLog.rwl.writeLock().unlock();
+                }
+            }
+            return mappedBuffer;
+        }
+    }
+
+    /**
+     * Do the real job of writing log to file.
+     */
+    void doPrintln(int logLevel, String tag, String msg) {
+        List<LogItem> logs = new ArrayList<>(1);
+        logs.add(new LogItem(logLevel, tag, msg, sequence.incrementAndGet()));
+        doPrintln(logs);
+    }
+
+    /**
+     * Do the real job of writing a batch of logs to file. The deferred messages are built and all
+     * logs are flattened before taking the write lock of {@link PascLog#rwl}, so the lock is only
+     * held for the rotation, the single write and the single flush.
+     */
+    void doPrintln(List<LogItem> logs) {
+        checkLogFolder();
+        synchronized (flattenedLogs) {
+            flattenLogs(logs);
+            PascLog.rwl.writeLock().lock();
+            try {
+                checkWriters();
+                int start = 0;
+                for (int i = 0, size = logs.size(); i < size; i++) {
+                    LogItem log = logs.get(i);
+                    int end = flattenedEnds[i];
+                    if (log == drainSignal) {
+                        mappedBuffer.drain(mappedRecordWriter);
+                    } else {
+                        Writer writer = prepareWriter(log.level, log.timestamp);
+                        if (writer != null) {
+                            writer.appendLog(flattenedLogs, start, end);
+                        }
+                    }
+                    start = end;
+                }
+                flushWriters();
+                closeIdleWriters(System.currentTimeMillis());
+            } finally {
+                PascLog.rwl.writeLock().unlock();
+            }
+        }
+        onClearFile();
+    }
+
+    /**
+     * Build the messages of the logs and flatten them into {@link #flattenedLogs}, one line per
+     * log, a signal takes no chars.
+     */
+    private void flattenLogs(List<LogItem> logs) {
+        int size = logs.size();
+        if (flattenedEnds.length < size) {
+            flattenedEnds = new int[Math.max(size, 2 * flattenedEnds.length)];
+        }
+        StringBuilder sb = flattenedLogs;
+        sb.setLength(0);
+        for (int i = 0; i < size; i++) {
+            LogItem log = logs.get(i);
+            if (!log.signal) {
+                log.msg();
+                flattener.flatten(log, sb);
+                sb.append(SystemCompat.lineSeparator);
+            }
+            flattenedEnds[i] = sb.length();
+        }
+    }
+
+    /**
+     * Make sure the writer is opened on the right log file, and backup the log file if needed.
+     *
+     * @param logLevel  the level of the log going to be written
+     * @param timestamp the timestamp of the log going to be written
+     * @return the writer ready to write the log, or null if failed to open the log file
+     */
+    private Writer prepareWriter(int logLevel, long timestamp) {
+        Writer writer = this.writer;
+        String lastFileName = writer == null ? null : writer.getLastFileName();
+        if (lastFileName == null || fileNameGenerator.isFileNameChangeable()) {
+            String newFileName =
+                    fileNameGenerator.generateFileName(logLevel, timestamp);
+            if (newFileName == null || newFileName.trim().length() == 0) {
+                throw new IllegalArgumentException("File name should not be empty.");
+            }
+            if (!newFileName.equals(lastFileName)) {
+                writer = openWriter(newFileName);
+                if (writer == null) {
+                    return null;
+                }
+                this.writer = writer;
+                lastFileName = newFileName;
+            }
+        }
+        writer.lastUsedTime = timestamp;
+
+        File lastFile = writer.getFile();
+        if (backupStrategy.shouldBackup(lastFile, writer.getBytes(), writer.getLines())) {
+            // Backup the log file, and create a new log file.
+            long lastFileBytes = writer.getBytes();
+            writer.close();
+            String backupFileName = compressBackup
+                    ? lastFileName + System.currentTimeMillis() + ".bak"
+                    : lastFileName + ".bak";
+            File backupFile = new File(folderPath, backupFileName);
+            if (!compressBackup && backupFile.exists()) {
+                String oldBackupFileName = lastFileName + System.currentTimeMillis() + ".bak";
+                long oldBackupFileBytes = backupFile.length();
+                if (backupFile.renameTo(new File(folderPath, oldBackupFileName))) {
+                    sweeper.onFileRenamed(backupFileName, oldBackupFileName, oldBackupFileBytes);
+                }
+            }
+            if (lastFile.renameTo(backupFile)) {
+                sweeper.onFileRenamed(lastFileName, backupFileName, lastFileBytes);
+                if (compressBackup) {
+                    startBackupCompressor().compress(backupFileName);
+                }
+            }
+            sweeper.requestSweep();
+            if (!writer.open(lastFileName)) {
+                writers.remove(lastFileName);
+                this.writer = null;
+                return null;
+            }
+            sweeper.onFileOpened(lastFileName, writer.getBytes());
+        }
+        return writer;
+    }
+
+    /**
+     * Get the pooled writer of the log file, or open it, the least recently used writer is closed
+     * if the pool is full.
+     *
+     * @param fileName the name of the log file
+     * @return the opened writer, or null if failed to open
+     */
+    private Writer openWriter(String fileName) {
+        Writer writer = writers.get(fileName);
+        if (writer != null) {
+            return writer;
+        }
+        Iterator<Writer> iterator = writers.values().iterator();
+        while (writers.size() >= writerPoolSize && iterator.hasNext()) {
+            iterator.next().close();
+            iterator.remove();
+        }
+        writer = new Writer();
+        if (!writer.open(fileName)) {
+            return null;
+        }
+        writers.put(fileName, writer);
+        sweeper.onFileOpened(fileName, writer.getBytes());
+        return writer;
+    }
+
+    /**
+     * Close the writers whose log files were deleted, so the files will be created again by the
+     * next logs. Called once for a batch of logs rather than for every log.
+     */
+    private void checkWriters() {
+        if (writers.size() == 1 && writer != null) {
+            // Only the last used writer is opened, no need to iterate.
+            if (!writer.checkFile()) {
+                writers.clear();
+                writer = null;
+            }
+            return;
+        }
+        Iterator<Writer> iterator = writers.values().iterator();
+        while (iterator.hasNext()) {
+            Writer writer = iterator.next();
+            if (!writer.checkFile()) {
+                iterator.remove();
+                if (writer == this.writer) {
+                    this.writer = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the buffered logs of all opened writers.
+     */
+    private void flushWriters() {
+        if (writers.size() == 1 && writer != null) {
+            writer.flush();
+            return;
+        }
+        for (Writer writer : writers.values()) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Close the pooled writers not used for {@link #writerIdleTimeout}, except the last used one.
+     */
+    private void closeIdleWriters(long now) {
+        if (writers.size() <= 1) {
+            return;
+        }
+        Iterator<Writer> iterator = writers.values().iterator();
+        while (iterator.hasNext()) {
+            Writer writer = iterator.next();
+            if (writer != this.writer && now - writer.lastUsedTime > writerIdleTimeout) {
+                writer.close();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Clear useless files, only sweep the log folder once per sweep interval or after a rotation.
+     */
+    void onClearFile() {
+        if (!sweeper.isEnabled() || !sweeper.isSweepDue()) {
+            return;
+        }
+        PascLog.rwl.readLock().lock();
+        try {
+            Map<String, Long> activeFiles = new HashMap<>();
+            for (Map.Entry<String, Writer> entry : writers.entrySet()) {
+                activeFiles.put(entry.getKey(), entry.getValue().getBytes());
+            }
+            sweeper.sweep(folderPath, activeFiles);
+        } finally {
+            PascLog.rwl.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builder for {@link FilePrinter}.
+     */
+    public static class Builder {
+
+        /**
+         * The folder path of log file.
+         */
+        String folderPath;
+
+        /**
+         * The file name generator for log file.
+         */
+        FileNameGenerator fileNameGenerator;
+
+        /**
+         * The backup strategy for log file.
+         */
+        BackupStrategy backupStrategy;
+
+        /**
+         * The log flattener when print a log.
+         */
+        Flattener flattener;
+
+        /**
+         * files saved time
+         */
+        int fileSaveTime;
+
+        /**
+         * The max count of log files, 0 for no limit.
+         */
+        int maxFileCount;
+
+        /**
+         * The max total bytes of log files, 0 for no limit.
+         */
+        long maxTotalFileBytes;
+
+        /**
+         * The min time in milliseconds between two sweeps of old log files.
+         */
+        long sweepInterval = DEFAULT_SWEEP_INTERVAL;
+
+        /**
+         * The max count of log files kept opened.
+         */
+        int writerPoolSize = DEFAULT_WRITER_POOL_SIZE;
+
+        /**
+         * The time in milliseconds a pooled log file is kept opened without being written.
+         */
+        long writerIdleTimeout = DEFAULT_WRITER_IDLE_TIMEOUT;
+
+        /**
+         * Whether to gzip the backup log files in background.
+         */
+        boolean compressBackup;
+
+        /**
+         * Whether to write the log files compressed by deflate.
+         */
+        boolean compressLog;
+
+        /**
+         * The max count of logs written by one write and one flush.
+         */
+        int batchSize = DEFAULT_BATCH_SIZE;
+
+        /**
+         * The max chars of logs written by one write and one flush.
+         */
+        int batchBytes = DEFAULT_BATCH_BYTES;
+
+        /**
+         * The max time in milliseconds the worker waits for more logs to fill a batch.
+         */
+        long batchLatency;
+
+        /**
+         * The size of the mmap cache file, 0 if logs are not buffered by mmap.
+         */
+        int mmapBufferSize;
+
+        /**
+         * The path of the mmap cache file.
+         */
+        String mmapBufferPath;
+
+        /**
+         * The max count of logs in the queue, 0 for no limit.
+         */
+        int queueCapacity;
+
+        /**
+         * The max total bytes of messages in the queue, 0 for no limit.
+         */
+        long queueCapacityBytes;
+
+        /**
+         * The policy when the bounded queue is full.
+         */
+        OverflowPolicy overflowPolicy;
+
+        /**
+         * The count of slots of the ring buffer, 0 if logs are not handed off by a ring buffer.
+         */
+        int ringBufferSize;
+
+        /**
+         * How the worker waits for logs published into the ring buffer.
+         */
+        WaitStrategy waitStrategy;
+
+        /**
+         * Construct a builder.
+         *
+         * @param folderPath the folder path of log file
+         */
+        public Builder(String folderPath) {
+            this.folderPath = folderPath;
+        }
+
+        /**
+         * Set the file name generator for log file.
+         *
+         * @param fileNameGenerator the file name generator for log file
+         * @return the builder
+         */
+        public Builder fileNameGenerator(FileNameGenerator fileNameGenerator) {
+            this.fileNameGenerator = fileNameGenerator;
+            return this;
+        }
+
+        /**
+         * set log files saved time
+         *
+         * @param fileSaveTime file saved time in days, log files not modified for longer are
+         *                     deleted, 0 for no limit
+         */
+        public Builder fileSaveTime(int fileSaveTime) {
+            this.fileSaveTime = fileSaveTime;
+            return this;
+        }
+
+        /**
+         * Set the max count of files kept in the log folder, the oldest files are deleted first.
+         * <p>
+         * Default to 0, that is, no limit.
+         *
+         * @param maxFileCount the max count of log files
+         * @return the builder
+         */
+        public Builder maxFileCount(int maxFileCount) {
+            this.maxFileCount = maxFileCount;
+            return this;
+        }
+
+        /**
+         * Set the max total bytes of files kept in the log folder, the oldest files are deleted
+         * first.
+         * <p>
+         * Default to 0, that is, no limit.
+         *
+         * @param maxTotalFileBytes the max total bytes of log files
+         * @return the builder
+         */
+        public Builder maxTotalFileBytes(long maxTotalFileBytes) {
+            this.maxTotalFileBytes = maxTotalFileBytes;
+            return this;
+        }
+
+        /**
+         * Set the min time in milliseconds between two sweeps of old log files, a sweep also runs
+         * after every backup of the log file.
+         * <p>
+         * Default to {@value #DEFAULT_SWEEP_INTERVAL}, that is, 10 minutes.
+         *
+         * @param sweepInterval the min time between two sweeps
+         * @return the builder
+         */
+        public Builder sweepInterval(long sweepInterval) {
+            this.sweepInterval = sweepInterval;
+            return this;
+        }
+
+        /**
+         * Set the max count of logs written by one write and one flush, the worker drains all
+         * available logs up to this count instead of flushing the file for every log.
+         * <p>
+         * Default to {@value #DEFAULT_BATCH_SIZE}, that is, flush for every log.
+         *
+         * @param batchSize the max count of logs in a batch
+         * @return the builder
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
         }
 
-        File lastFile = writer.getFile();
-        if(lastFile != null && !lastFile.exists()){
-            try {
-                lastFile.createNewFile();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        /**
+         * Set the max chars of logs written by one write and one flush, a batch is written once
+         * either its count or its chars reach the limit.
+         * <p>
+         * Default to {@value #DEFAULT_BATCH_BYTES}.
+         *
+         * @param batchBytes the max chars of logs in a batch
+         * @return the builder
+         */
+        public Builder batchBytes(int batchBytes) {
+            this.batchBytes = batchBytes;
+            return this;
         }
-        if (backupStrategy.shouldBackup(lastFile)) {
-            // Backup the log file, and create a new log file.
-            writer.close();
-            File backupFile = new File(folderPath, lastFileName + ".bak");
-            if (backupFile.exists()) {
-                backupFile.renameTo(new File(folderPath, lastFileName + System.currentTimeMillis() + ".bak"));
-            }
-            lastFile.renameTo(backupFile);
-            if (!writer.open(lastFileName)) {
-                return;
-            }
+
+        /**
+         * Set the max time in milliseconds the worker waits for more logs to fill a batch, so a
+         * lone log still hits the disk within this time.
+         * <p>
+         * Default to 0, that is, write the available logs immediately without waiting.
+         *
+         * @param batchLatency the max latency in milliseconds
+         * @return the builder
+         */
+        public Builder batchLatency(long batchLatency) {
+            this.batchLatency = batchLatency;
+            return this;
         }
-        String flattenedLog = flattener.flatten(logLevel, tag, msg).toString();
-        writer.appendLog(flattenedLog);
-        onClearFile();
-    }
 
-    /**
-     * clear useless files
-     */
-    void onClearFile() {
-        PascLog.rwl.readLock().lock();
-        File file = writer.getFile();
-        if (file == null) {
-            return;
+        /**
+         * Buffer logs in a memory-mapped cache file next to the log folder, logs are appended to
+         * it directly when printing, and persisted by the OS even if the process is killed, the
+         * worker moves them to the log file later.
+         * <p>
+         * Logs left in the cache file by a previous run are recovered into the log file when
+         * {@link PascLog} is initialized.
+         *
+         * @param bufferSize the size of the cache file in bytes
+         * @return the builder
+         */
+        public Builder mmapBuffer(int bufferSize) {
+            return mmapBuffer(null, bufferSize);
         }
-        File parentFile = file.getParentFile();
-        if (parentFile != null && parentFile.exists()) {
-            File[] files = file.listFiles();
-            if (files != null && files.length > fileSaveTime) {
-                for (File temp : files) {
-                    long time = System.currentTimeMillis() - temp.lastModified();
-                    if (time / 1000 > 3600 * 24 * fileSaveTime ) {
-                        temp.delete();
-                    }
-                }
-            }
+
+        /**
+         * Buffer logs in a memory-mapped cache file.
+         *
+         * @param cachePath  the path of the cache file, null to put it next to the log folder
+         * @param bufferSize the size of the cache file in bytes
+         * @return the builder
+         * @see #mmapBuffer(int)
+         */
+        public Builder mmapBuffer(String cachePath, int bufferSize) {
+            this.mmapBufferPath = cachePath;
+            this.mmapBufferSize = bufferSize;
+            return this;
         }
-        PascLog.rwl.readLock().unlock();
-    }
 
-    /**
-     * Builder for {@link FilePrinter}.
-     */
-    public static class Builder {
+        /**
+         * Bound the queue of logs waiting to be written by the count of logs, so a slow disk
+         * can not make the queue grow without limit, the {@link OverflowPolicy} decides what to
+         * do when it is full.
+         * <p>
+         * Default to 0, that is, the queue is unbounded.
+         *
+         * @param queueCapacity the max count of logs in the queue
+         * @return the builder
+         * @see #overflowPolicy(OverflowPolicy)
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
 
         /**
-         * The folder path of log file.
+         * Bound the queue of logs waiting to be written by the total bytes of messages, a message
+         * takes 2 bytes per char. Can be used together with {@link #queueCapacity(int)}.
+         * <p>
+         * Default to 0, that is, the queue is unbounded.
+         *
+         * @param queueCapacityBytes the max total bytes of messages in the queue
+         * @return the builder
+         * @see #overflowPolicy(OverflowPolicy)
          */
-        String folderPath;
+        public Builder queueCapacityBytes(long queueCapacityBytes) {
+            this.queueCapacityBytes = queueCapacityBytes;
+            return this;
+        }
 
         /**
-         * The file name generator for log file.
+         * Set the policy when the bounded queue is full, the count of dropped logs is written to
+         * the log file after the batch of logs being written.
+         * <p>
+         * Default to {@link com.pasc.lib.log.printer.file.overflow.DropBelowLevelOverflowPolicy},
+         * which sheds the lowest levels first and never drops {@link LogLevel#ERROR} logs.
+         *
+         * @param overflowPolicy the policy when the queue is full
+         * @return the builder
          */
-        FileNameGenerator fileNameGenerator;
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
 
         /**
-         * The backup strategy for log file.
+         * Keep several log files opened when the {@link FileNameGenerator} is changeable, such as
+         * {@link com.pasc.lib.log.printer.file.naming.LevelFileNameGenerator}, so interleaved
+         * logs of different files do not close and reopen the files again and again. The least
+         * recently used file is closed when the pool is full, and every file is backed up on its
+         * own.
+         * <p>
+         * Default to {@value #DEFAULT_WRITER_POOL_SIZE}, that is, the file is reopened whenever the
+         * file name changes.
+         *
+         * @param writerPoolSize the max count of log files kept opened
+         * @return the builder
          */
-        BackupStrategy backupStrategy;
+        public Builder writerPoolSize(int writerPoolSize) {
+            this.writerPoolSize = writerPoolSize;
+            return this;
+        }
 
         /**
-         * The log flattener when print a log.
+         * Set the time in milliseconds a pooled log file is kept opened without being written,
+         * the file last written is always kept opened.
+         * <p>
+         * Default to {@value #DEFAULT_WRITER_IDLE_TIMEOUT}, that is, 1 minute.
+         *
+         * @param writerIdleTimeout the max idle time of a pooled log file
+         * @return the builder
+         * @see #writerPoolSize(int)
          */
-        Flattener flattener;
+        public Builder writerIdleTimeout(long writerIdleTimeout) {
+            this.writerIdleTimeout = writerIdleTimeout;
+            return this;
+        }
 
         /**
-         * files saved time
+         * Hand off logs to the worker by a preallocated ring buffer instead of a linked queue,
+         * printing a log takes no lock and allocates nothing, which scales better when many
+         * threads print at once.
+         * <p>
+         * The ring buffer is bounded by its size, a printing thread waits when it is full, so
+         * {@link #queueCapacity(int)}, {@link #queueCapacityBytes(long)} and
+         * {@link #overflowPolicy(OverflowPolicy)} do not apply.
+         *
+         * @param bufferSize the count of slots, rounded up to a power of 2
+         * @return the builder
          */
-        int fileSaveTime;
+        public Builder ringBuffer(int bufferSize) {
+            return ringBuffer(bufferSize, null);
+        }
 
         /**
-         * Construct a builder.
+         * Hand off logs to the worker by a preallocated ring buffer.
          *
-         * @param folderPath the folder path of log file
+         * @param bufferSize   the count of slots, rounded up to a power of 2
+         * @param waitStrategy how the worker waits for logs, null to use
+         *                     {@link com.pasc.lib.log.printer.file.ring.BlockingWaitStrategy}
+         * @return the builder
+         * @see #ringBuffer(int)
          */
-        public Builder(String folderPath) {
-            this.folderPath = folderPath;
+        public Builder ringBuffer(int bufferSize, WaitStrategy waitStrategy) {
+            this.ringBufferSize = bufferSize;
+            this.waitStrategy = waitStrategy;
+            return this;
         }
 
         /**
-         * Set the file name generator for log file.
+         * Gzip the backup log files on a low priority background thread, a backup file is named
+         * "name" + timestamp + ".bak" and replaced by "name" + timestamp + ".bak.gz" once
+         * compressed. Backing up a log file is still a rename on the writing thread.
+         * <p>
+         * Use {@link com.pasc.lib.log.LogUtils#openLogReader(File)} to read the log files whether
+         * they are compressed or not.
          *
-         * @param fileNameGenerator the file name generator for log file
+         * @param compressBackup whether to compress the backup log files
          * @return the builder
          */
-        public Builder fileNameGenerator(FileNameGenerator fileNameGenerator) {
-            this.fileNameGenerator = fileNameGenerator;
+        public Builder compressBackup(boolean compressBackup) {
+            this.compressBackup = compressBackup;
             return this;
         }
 
         /**
-         * set log files saved time
+         * Write the log files compressed by deflate, every batch of logs is flushed as a
+         * SYNC_FLUSH block, so the file is always decodable up to the last written batch, and a
+         * block torn by a crash is truncated when the file is opened again. Works best with
+         * {@link #batchSize(int)} greater than 1.
+         * <p>
+         * The {@link BackupStrategy} sees the compressed size of the log file, and
+         * {@link #compressBackup(boolean)} is ignored as the backup files are compressed already.
+         * An existing plain log file is backed up before written compressed.
+         * <p>
+         * Use {@link com.pasc.lib.log.LogUtils#openLogReader(File)} to read the log files.
          *
-         * @param fileSaveTime file saved time
+         * @param compressLog whether to compress the log files
+         * @return the builder
          */
-        public Builder fileSaveTime(int fileSaveTime) {
-            this.fileSaveTime = fileSaveTime;
+        public Builder compressLog(boolean compressLog) {
+            this.compressLog = compressLog;
             return this;
         }
 
@@ -288,39 +1090,127 @@ public class FilePrinter implements Printer {
             if (flattener == null) {
                 flattener = DefaultsFactory.createFlattener();
             }
+            if (batchSize <= 0) {
+                batchSize = DEFAULT_BATCH_SIZE;
+            }
+            if (batchBytes <= 0) {
+                batchBytes = DEFAULT_BATCH_BYTES;
+            }
+            if (batchLatency < 0) {
+                batchLatency = 0;
+            }
+            if (mmapBufferSize > 0 && mmapBufferSize < MIN_MMAP_BUFFER_SIZE) {
+                mmapBufferSize = MIN_MMAP_BUFFER_SIZE;
+            }
+            if (fileSaveTime < 0) {
+                fileSaveTime = 0;
+            }
+            if (maxFileCount < 0) {
+                maxFileCount = 0;
+            }
+            if (maxTotalFileBytes < 0) {
+                maxTotalFileBytes = 0;
+            }
+            if (sweepInterval < 0) {
+                sweepInterval = 0;
+            }
+            if (writerPoolSize <= 0) {
+                writerPoolSize = DEFAULT_WRITER_POOL_SIZE;
+            }
+            if (writerIdleTimeout < 0) {
+                writerIdleTimeout = 0;
+            }
+            if (queueCapacity < 0) {
+                queueCapacity = 0;
+            }
+            if (queueCapacityBytes < 0) {
+                queueCapacityBytes = 0;
+            }
+            if (overflowPolicy == null) {
+                overflowPolicy = DefaultsFactory.createOverflowPolicy();
+            }
+            if (ringBufferSize > 0) {
+                ringBufferSize = Math.max(Integer.highestOneBit(ringBufferSize - 1) << 1,
+                        MIN_RING_BUFFER_SIZE);
+            } else {
+                ringBufferSize = 0;
+            }
+            if (waitStrategy == null) {
+                waitStrategy = DefaultsFactory.createWaitStrategy();
+            }
         }
     }
 
-    private class LogItem {
+    /**
+     * Write the records drained from {@link #mappedBuffer} to the log file, should be called with
+     * the write lock of {@link PascLog#rwl} held.
+     */
+    private class MappedRecordWriter implements MappedLogBuffer.RecordConsumer,
+            MappedLogBuffer.DrainRequester {
+
+        @Override public void onRecord(int level, long timestamp, String log) {
+            Writer writer = prepareWriter(level, timestamp);
+            if (writer != null) {
+                writer.appendLog(log);
+            }
+        }
 
-        int level;
-        String tag;
-        String msg;
+        @Override public void onRegionEnd() {
+            flushWriters();
+        }
 
-        LogItem(int level, String tag, String msg) {
-            this.level = level;
-            this.tag = tag;
-            this.msg = msg;
+        @Override public void requestDrain() {
+            if (!worker.isStarted()) {
+                worker.start();
+            }
+            worker.enqueueSignal(drainSignal);
         }
     }
 
     /**
      * Work in background, we can enqueue the logs, and the worker will dispatch them.
      */
-    private class Worker implements Runnable {
+    /*package*/ class Worker implements Runnable {
 
-        private BlockingQueue<LogItem> logs = new LinkedBlockingQueue<>();
+        private final LogQueue logs = createQueue();
 
         private volatile boolean started;
 
+        private LogQueue createQueue() {
+            if (ringBufferSize > 0) {
+                return new RingLogQueue(ringBufferSize, waitStrategy);
+            }
+            if (queueCapacity > 0 || queueCapacityBytes > 0) {
+                return new BoundedLogQueue(queueCapacity, queueCapacityBytes, overflowPolicy);
+            }
+            return new LinkedLogQueue();
+        }
+
         /**
          * Enqueue the log.
          *
-         * @param log the log to be written to file
+         * @param level       the level of the log
+         * @param tag         the tag of the log
+         * @param msg         the message of the log, null if deferred
+         * @param deferredMsg the supplier of the message built by the worker, null if not deferred
+         */
+        void enqueue(int level, String tag, String msg, MessageSupplier deferredMsg) {
+            try {
+                logs.put(level, tag, msg, deferredMsg, System.currentTimeMillis(),
+                        Thread.currentThread(), sequence.incrementAndGet());
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Enqueue the signal, which is never dropped.
+         *
+         * @param signal the signal to the worker
          */
-        void enqueue(LogItem log) {
+        void enqueueSignal(LogItem signal) {
             try {
-                logs.put(log);
+                logs.putSignal(signal);
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
@@ -338,20 +1228,33 @@ public class FilePrinter implements Printer {
         }
 
         /**
-         * Start the worker.
+         * Start the worker, do nothing if already started, as the queue may only have one consumer.
          */
         void start() {
             synchronized (this) {
+                if (started) {
+                    return;
+                }
                 new Thread(this).start();
                 started = true;
             }
         }
 
         @Override public void run() {
-            LogItem log;
+            List<LogItem> batch = new ArrayList<>(batchSize);
             try {
-                while ((log = logs.take()) != null) {
-                    doPrintln(log.level, log.tag, log.msg);
+                while (true) {
+                    if (batch.isEmpty()) {
+                        batch.add(logs.take());
+                    }
+                    int count = fillBatch(batch);
+                    long dropped = logs.takeDroppedCount();
+                    if (count == batch.size()) {
+                        printlnBatch(batch, dropped);
+                    } else {
+                        // Logs over the byte budget are carried over to the next batch.
+                        printlnBatch(batch.subList(0, count), dropped);
+                    }
                 }
             } catch (InterruptedException e) {
                 e.printStackTrace();
@@ -360,6 +1263,66 @@ public class FilePrinter implements Printer {
                 }
             }
         }
+
+        /**
+         * Print the logs and recycle them, followed by the notice of dropped logs if any. The
+         * notice takes the timestamp of the last log, so the logs still queued never look older
+         * than it, and is not recycled as it does not come from the queue.
+         *
+         * @param batch   the logs to print, cleared after printing
+         * @param dropped the count of logs dropped since the last notice
+         */
+        private void printlnBatch(List<LogItem> batch, long dropped) {
+            if (dropped > 0) {
+                Thread thread = Thread.currentThread();
+                batch.add(new LogItem(LogLevel.WARN, DROPPED_LOG_TAG,
+                        dropped + " logs dropped because the log queue is full", null,
+                        batch.get(batch.size() - 1).timestamp, thread.getId(), thread.getName(),
+                        0));
+            }
+            doPrintln(batch);
+            if (dropped > 0) {
+                batch.remove(batch.size() - 1);
+            }
+            logs.recycle(batch);
+            batch.clear();
+        }
+
+        /**
+         * Drain the available logs into the batch until the count or chars limit is reached, or
+         * the max latency passed.
+         *
+         * @param batch the batch, with at least one log
+         * @return the count of logs from the head of batch that should be written this time
+         */
+        private int fillBatch(List<LogItem> batch) throws InterruptedException {
+            int bytes = 0;
+            int count = 0;
+            long deadline = System.currentTimeMillis() + batchLatency;
+            while (true) {
+                for (int size = batch.size(); count < size; count++) {
+                    if (count > 0 && bytes >= batchBytes) {
+                        return count;
+                    }
+                    bytes += batch.get(count).length();
+                }
+                if (count >= batchSize || bytes >= batchBytes) {
+                    return count;
+                }
+                if (logs.drainTo(batch, batchSize - count) > 0) {
+                    continue;
+                }
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return count;
+                }
+                LogItem log = logs.poll(wait, TimeUnit.MILLISECONDS);
+                if (log == null) {
+                    return count;
+                }
+                batch.add(log);
+            }
+        }
     }
 
     /**
@@ -377,7 +1340,33 @@ public class FilePrinter implements Printer {
          */
         private File logFile;
 
-        private BufferedWriter bufferedWriter;
+        private FileOutputStream fileOutput;
+
+        /**
+         * The compressed output, used instead of {@link #fileOutput} if {@link #compressLog}.
+         */
+        private DeflateLogOutput deflateOutput;
+
+        /**
+         * The flattened logs not written yet.
+         */
+        private final StringBuilder buffer = new StringBuilder();
+
+        /**
+         * The UTF-8 bytes encoded from {@link #buffer} when flushing, reused by every flush.
+         */
+        private byte[] encoded = new byte[0];
+
+        /**
+         * The size of the current log file in bytes, including the buffered logs, seeded from the
+         * file length when opened.
+         */
+        private long bytes;
+
+        /**
+         * The count of logs appended since the current log file is opened.
+         */
+        private long lines;
 
         /**
          * Whether the log file is opened.
@@ -385,7 +1374,25 @@ public class FilePrinter implements Printer {
          * @return true if opened, false otherwise
          */
         boolean isOpened() {
-            return bufferedWriter != null;
+            return fileOutput != null || deflateOutput != null;
+        }
+
+        /**
+         * The timestamp of the log last written by this writer.
+         */
+        long lastUsedTime;
+
+        /**
+         * Close the current log file if it was deleted.
+         *
+         * @return false if the log file was deleted and closed
+         */
+        boolean checkFile() {
+            if (logFile != null && !logFile.exists()) {
+                close();
+                return false;
+            }
+            return true;
         }
 
         /**
@@ -394,13 +1401,23 @@ public class FilePrinter implements Printer {
          * @return the name of last used log file, maybe null
          */
         String getLastFileName() {
-            if (logFile != null && !logFile.exists()) {
-                lastFileName = null;
-                logFile = null;
-            }
             return lastFileName;
         }
 
+        /**
+         * Get the size of the current log file in bytes, including the logs not flushed yet.
+         */
+        long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Get the count of logs appended since the current log file is opened.
+         */
+        long getLines() {
+            return lines;
+        }
+
         /**
          * Get the current log file.
          *
@@ -436,15 +1453,24 @@ public class FilePrinter implements Printer {
                 }
             }
 
-            // Create buffered writer.
+            // Open the log file.
             try {
-                bufferedWriter = new BufferedWriter(new FileWriter(logFile, true));
+                if (compressLog) {
+                    if (!DeflateLogOutput.isDeflateLog(logFile)) {
+                        backupPlainLog(newFileName);
+                    }
+                    deflateOutput = DeflateLogOutput.open(logFile);
+                } else {
+                    fileOutput = new FileOutputStream(logFile, true);
+                }
             } catch (Exception e) {
                 e.printStackTrace();
                 lastFileName = null;
                 logFile = null;
                 return false;
             }
+            bytes = logFile.length();
+            lines = 0;
             return true;
         }
 
@@ -454,14 +1480,20 @@ public class FilePrinter implements Printer {
          * @return true if closed successfully, false otherwise
          */
         boolean close() {
-            if (bufferedWriter != null) {
+            if (fileOutput != null || deflateOutput != null) {
                 try {
-                    bufferedWriter.close();
+                    flush();
+                    if (deflateOutput != null) {
+                        bytes += deflateOutput.close();
+                    } else {
+                        fileOutput.close();
+                    }
                 } catch (IOException e) {
                     e.printStackTrace();
                     return false;
                 } finally {
-                    bufferedWriter = null;
+                    fileOutput = null;
+                    deflateOutput = null;
                     lastFileName = null;
                     logFile = null;
                 }
@@ -470,22 +1502,130 @@ public class FilePrinter implements Printer {
         }
 
         /**
-         * Append the flattened log to the end of current opened log file.
+         * Move the existing plain log file aside like a backup, so the compressed logs are not
+         * appended to it.
+         */
+        private void backupPlainLog(String fileName) throws IOException {
+            String backupFileName = fileName + System.currentTimeMillis() + ".bak";
+            long length = logFile.length();
+            if (!logFile.renameTo(new File(folderPath, backupFileName))
+                    || !logFile.createNewFile()) {
+                throw new IOException("Failed to backup plain log file " + logFile);
+            }
+            sweeper.onFileRenamed(fileName, backupFileName, length);
+        }
+
+        /**
+         * Append the flattened log to the buffer, it will be written to the end of current opened
+         * log file when {@link #flush()}.
+         *
+         * @param logs  the flattened logs
+         * @param start the start offset of the log, inclusive
+         * @param end   the end offset of the log, exclusive, including the line separator
+         */
+        void appendLog(CharSequence logs, int start, int end) {
+            buffer.append(logs, start, end);
+            if (deflateOutput == null) {
+                bytes += utf8Length(logs, start, end);
+            }
+            lines++;
+        }
+
+        /**
+         * Append the flattened log to the buffer, it will be written to the end of current opened
+         * log file when {@link #flush()}.
          *
          * @param flattenedLog the flattened log
          */
         void appendLog(String flattenedLog) {
-            PascLog.rwl.writeLock().lock();
-            try {
-                bufferedWriter.write(flattenedLog);
-                bufferedWriter.newLine();
-                bufferedWriter.flush();
-            } catch (IOException e) {
-            }finally {
-                PascLog.rwl.writeLock().unlock();
+            buffer.append(flattenedLog).append(SystemCompat.lineSeparator);
+            if (deflateOutput == null) {
+                bytes += utf8Length(flattenedLog, 0, flattenedLog.length())
+                        + SystemCompat.lineSeparator.length();
+            }
+            lines++;
+        }
+
+        /**
+         * Count the bytes of the chars encoded in UTF-8, the default charset on Android.
+         */
+        private long utf8Length(CharSequence s, int start, int end) {
+            long length = 0;
+            for (int i = start; i < end; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    length++;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (!Character.isSurrogate(c)) {
+                    length += 3;
+                } else if (Character.isHighSurrogate(c) && i + 1 < end
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else {
+                    // Malformed surrogate, encoded as '?'.
+                    length++;
+                }
             }
+            return length;
+        }
 
+        /**
+         * Encode the chars into {@link #encoded} in UTF-8, which is grown if not large enough.
+         *
+         * @return the count of encoded bytes
+         */
+        private int encodeUtf8(CharSequence s) {
+            int size = s.length();
+            if (encoded.length < 3 * size) {
+                encoded = new byte[Math.max(3 * size, 2 * encoded.length)];
+            }
+            byte[] out = encoded;
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    out[n++] = (byte) c;
+                } else if (c < 0x800) {
+                    out[n++] = (byte) (0xc0 | (c >> 6));
+                    out[n++] = (byte) (0x80 | (c & 0x3f));
+                } else if (!Character.isSurrogate(c)) {
+                    out[n++] = (byte) (0xe0 | (c >> 12));
+                    out[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    out[n++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < size
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                    out[n++] = (byte) (0xf0 | (codePoint >> 18));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    out[n++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else {
+                    out[n++] = '?';
+                }
+            }
+            return n;
         }
 
+        /**
+         * Write all the buffered logs to the current opened log file by a single write, and flush.
+         */
+        void flush() {
+            if (buffer.length() == 0) {
+                return;
+            }
+            try {
+                if (deflateOutput != null) {
+                    bytes += deflateOutput.write(buffer.toString());
+                } else if (fileOutput != null) {
+                    int length = encodeUtf8(buffer);
+                    fileOutput.write(encoded, 0, length);
+                }
+            } catch (IOException e) {
+            } finally {
+                buffer.setLength(0);
+            }
+        }
     }
 }
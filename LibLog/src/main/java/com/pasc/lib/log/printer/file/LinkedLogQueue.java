@@ -0,0 +1,50 @@
+
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.MessageSupplier;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The unbounded {@link LogQueue}, never drops any log.
+ */
+/*package*/ class LinkedLogQueue implements LogQueue {
+
+  private final BlockingQueue<LogItem> logs = new LinkedBlockingQueue<>();
+
+  @Override public void put(int level, String tag, String msg, MessageSupplier deferredMsg,
+      long timestamp, Thread thread, long sequence) throws InterruptedException {
+    logs.put(new LogItem(level, tag, msg, deferredMsg, timestamp, thread.getId(),
+        thread.getName(), sequence));
+  }
+
+  @Override public void putSignal(LogItem signal) throws InterruptedException {
+    logs.put(signal);
+  }
+
+  @Override public LogItem take() throws InterruptedException {
+    return logs.take();
+  }
+
+  @Override public LogItem poll(long timeout, TimeUnit unit) throws InterruptedException {
+    return logs.poll(timeout, unit);
+  }
+
+  @Override public int drainTo(List<LogItem> list, int maxElements) {
+    return logs.drainTo(list, maxElements);
+  }
+
+  @Override public void recycle(List<LogItem> list) {
+  }
+
+  @Override public long takeDroppedCount() {
+    return 0;
+  }
+
+  @Override public long getDroppedCount() {
+    return 0;
+  }
+}
@@ -0,0 +1,72 @@
+
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.MessageSupplier;
+import com.pasc.lib.log.flattener.LogRecord;
+
+/**
+ * A log waiting in the queue of {@link FilePrinter} to be written to file, the record is passed to
+ * the flattener as is once the message is built.
+ */
+/*package*/ class LogItem extends LogRecord {
+
+  /**
+   * The estimated length of a message not built yet, used for the queue and batch budgets.
+   */
+  private static final int DEFERRED_MSG_LENGTH = 128;
+
+  /**
+   * The supplier of {@link #msg} if the message is built by the worker, null otherwise.
+   */
+  MessageSupplier deferredMsg;
+
+  /**
+   * Whether this is an internal signal to the worker rather than a log, a signal is never dropped.
+   */
+  boolean signal;
+
+  /**
+   * Create a log printed right now in current thread.
+   */
+  LogItem(int level, String tag, String msg, long sequence) {
+    super(level, tag, msg, sequence);
+  }
+
+  LogItem(int level, String tag, String msg, MessageSupplier deferredMsg, long timestamp,
+          long threadId, String threadName, long sequence) {
+    set(level, tag, msg, deferredMsg, timestamp, threadId, threadName, sequence);
+  }
+
+  void set(int level, String tag, String msg, MessageSupplier deferredMsg, long timestamp,
+           long threadId, String threadName, long sequence) {
+    this.level = level;
+    this.tag = tag;
+    this.msg = msg;
+    this.deferredMsg = deferredMsg;
+    this.timestamp = timestamp;
+    this.threadId = threadId;
+    this.threadName = threadName;
+    this.sequence = sequence;
+  }
+
+  /**
+   * Get the message, build it first if it is deferred, should only be called by the worker.
+   */
+  String msg() {
+    if (deferredMsg != null) {
+      msg = deferredMsg.get();
+      deferredMsg = null;
+    }
+    return msg;
+  }
+
+  /**
+   * Get the length of the message, or an estimated length if the message is not built yet.
+   */
+  int length() {
+    if (msg != null) {
+      return msg.length();
+    }
+    return deferredMsg != null ? DEFERRED_MSG_LENGTH : 0;
+  }
+}
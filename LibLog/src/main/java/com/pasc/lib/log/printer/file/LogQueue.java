@@ -0,0 +1,74 @@
+
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.MessageSupplier;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The queue between the printing threads and the worker of {@link FilePrinter}.
+ */
+/*package*/ interface LogQueue {
+
+  /**
+   * Enqueue the log, may block or drop logs if the queue is bounded.
+   *
+   * @param level       the level of the log
+   * @param tag         the tag of the log
+   * @param msg         the message of the log, null if deferred
+   * @param deferredMsg the supplier of the message built by the worker, null if not deferred
+   * @param timestamp   the time the log is printed
+   * @param thread      the thread printing the log
+   * @param sequence    the sequence number of the log
+   * @throws InterruptedException if interrupted while waiting for room
+   */
+  void put(int level, String tag, String msg, MessageSupplier deferredMsg, long timestamp,
+      Thread thread, long sequence) throws InterruptedException;
+
+  /**
+   * Enqueue the signal to the worker, a signal is never dropped.
+   *
+   * @param signal the signal, taken out as the same object
+   * @throws InterruptedException if interrupted while waiting for room
+   */
+  void putSignal(LogItem signal) throws InterruptedException;
+
+  /**
+   * Take the oldest log, wait if the queue is empty.
+   */
+  LogItem take() throws InterruptedException;
+
+  /**
+   * Take the oldest log, wait up to the timeout if the queue is empty.
+   *
+   * @return the log, or null if timeout
+   */
+  LogItem poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+  /**
+   * Move the available logs to the list without waiting.
+   *
+   * @param logs        the list to add logs to
+   * @param maxElements the max count of logs to move
+   * @return the count of logs moved
+   */
+  int drainTo(List<LogItem> logs, int maxElements);
+
+  /**
+   * Hand back the logs taken out and already written, so the queue can reuse them.
+   *
+   * @param logs the written logs, not used by the caller any more
+   */
+  void recycle(List<LogItem> logs);
+
+  /**
+   * Get the count of logs dropped since the last call, and reset it.
+   */
+  long takeDroppedCount();
+
+  /**
+   * Get the total count of logs dropped.
+   */
+  long getDroppedCount();
+}
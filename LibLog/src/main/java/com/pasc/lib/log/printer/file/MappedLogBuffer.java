@@ -0,0 +1,408 @@
+package com.pasc.lib.log.printer.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * A crash-safe log buffer backed by a memory-mapped cache file, logs appended to it are persisted
+ * by the OS even if the process is killed, and will be recovered the next time it is opened.
+ * <p>
+ * The cache file is split into two regions, logs are appended to the active region, when it is
+ * full, the two regions are swapped, and the full one is moved to the real log file by the worker.
+ * Each region looks like:
+ * <br>[magic: int][generation: long][length: int][record]...
+ * <br>and each record looks like:
+ * <br>[level: int][timestamp: long][length: int][flattened log in UTF-8]
+ * <br>A log larger than a region is split into several records, all but the last one are marked
+ * with {@link #FLAG_CONTINUED} in the level.
+ */
+/*package*/ final class MappedLogBuffer {
+
+  /**
+   * Consume the records read from the buffer.
+   */
+  interface RecordConsumer {
+
+    /**
+     * Consume a record.
+     *
+     * @param level     the level of log
+     * @param timestamp the timestamp when the log was appended
+     * @param log       the flattened log
+     */
+    void onRecord(int level, long timestamp, String log);
+
+    /**
+     * All records of a region are consumed, they should be persisted before returning, because the
+     * region is going to be cleared.
+     */
+    void onRegionEnd();
+  }
+
+  /**
+   * Ask the worker to drain the buffer.
+   */
+  interface DrainRequester {
+
+    /**
+     * Called when a region receives its first record, or when an appender is waiting for space.
+     * Never called with the lock of buffer held.
+     */
+    void requestDrain();
+  }
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final int MAGIC = 0x504c4f47; // "PLOG"
+
+  private static final int FLAG_CONTINUED = 0x40000000;
+
+  private static final int REGION_HEADER_SIZE = 16;
+
+  private static final int RECORD_HEADER_SIZE = 16;
+
+  private static final int OFFSET_MAGIC = 0;
+
+  private static final int OFFSET_GENERATION = 4;
+
+  private static final int OFFSET_LENGTH = 12;
+
+  /**
+   * How long an appender waits for the worker before requesting drain again.
+   */
+  private static final long AWAIT_SPACE_MILLIS = 500;
+
+  private final MappedByteBuffer buffer;
+
+  /**
+   * Used by the worker to read the region being drained, so it will not disturb the position of
+   * {@link #buffer} used by the appenders.
+   */
+  private final ByteBuffer readBuffer;
+
+  /**
+   * The split log not completely drained yet, only used by the worker.
+   */
+  private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+
+  /**
+   * Serialize the appenders, so the records of a split log are never interleaved.
+   */
+  private final Object appendLock = new Object();
+
+  private final DrainRequester drainRequester;
+
+  /**
+   * The max bytes of records a region can hold.
+   */
+  private final int regionCapacity;
+
+  /**
+   * The index of the region logs are appended to.
+   */
+  private int active;
+
+  /**
+   * Whether the other region is full or being drained.
+   */
+  private boolean otherBusy;
+
+  /**
+   * Whether the last appended record is the first one of its region.
+   */
+  private boolean appendedFirst;
+
+  private long generation;
+
+  private MappedLogBuffer(MappedByteBuffer buffer, long generation,
+                          DrainRequester drainRequester) {
+    this.buffer = buffer;
+    this.readBuffer = buffer.duplicate();
+    this.regionCapacity = buffer.capacity() / 2 - REGION_HEADER_SIZE;
+    this.generation = generation;
+    this.drainRequester = drainRequester;
+    startRegion(1);
+    startRegion(0);
+    active = 0;
+  }
+
+  /**
+   * Open the buffer, any records left in the cache file by a previous run are given to the
+   * consumer before the buffer is ready for new records.
+   *
+   * @param file           the cache file
+   * @param size           the size of the cache file
+   * @param leftover       consumer of the records left by a previous run
+   * @param drainRequester asked to drain when there are records
+   * @return the opened buffer
+   * @throws IOException if the cache file can not be mapped
+   */
+  static MappedLogBuffer open(File file, int size, RecordConsumer leftover,
+                              DrainRequester drainRequester) throws IOException {
+    File parent = file.getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      FileChannel channel = raf.getChannel();
+      long generation = 0;
+      long existingSize = raf.length();
+      if (existingSize >= 2 * (REGION_HEADER_SIZE + RECORD_HEADER_SIZE)
+          && existingSize <= Integer.MAX_VALUE) {
+        MappedByteBuffer old = channel.map(FileChannel.MapMode.READ_WRITE, 0, existingSize);
+        generation = recover(old, leftover);
+      }
+      if (existingSize != size) {
+        raf.setLength(size);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      return new MappedLogBuffer(buffer, generation, drainRequester);
+    } finally {
+      try {
+        raf.close();
+      } catch (IOException e) {
+        // Ignore, the mapping stays valid after the file is closed.
+      }
+    }
+  }
+
+  /**
+   * Give all the records in the valid regions to the consumer, oldest region first.
+   *
+   * @return the max generation found
+   */
+  private static long recover(ByteBuffer buffer, RecordConsumer consumer) {
+    int regionSize = buffer.capacity() / 2;
+    long generation0 = validGeneration(buffer, 0, regionSize);
+    long generation1 = validGeneration(buffer, regionSize, regionSize);
+    ByteArrayOutputStream partial = new ByteArrayOutputStream();
+    if (generation0 >= 0 && generation1 >= 0 && generation1 < generation0) {
+      readRegion(buffer, regionSize, regionSize, consumer, partial);
+      readRegion(buffer, 0, regionSize, consumer, partial);
+    } else {
+      if (generation0 >= 0) {
+        readRegion(buffer, 0, regionSize, consumer, partial);
+      }
+      if (generation1 >= 0) {
+        readRegion(buffer, regionSize, regionSize, consumer, partial);
+      }
+    }
+    if (partial.size() > 0) {
+      // The process died in the middle of a split log, keep what we have.
+      consumer.onRecord(0, System.currentTimeMillis(), decode(partial));
+      consumer.onRegionEnd();
+    }
+    return Math.max(0, Math.max(generation0, generation1));
+  }
+
+  /**
+   * Get the generation of the region if it is valid and not empty.
+   *
+   * @return the generation, or -1 if the region is invalid or empty
+   */
+  private static long validGeneration(ByteBuffer buffer, int start, int regionSize) {
+    if (buffer.getInt(start + OFFSET_MAGIC) != MAGIC) {
+      return -1;
+    }
+    int length = buffer.getInt(start + OFFSET_LENGTH);
+    if (length <= 0 || length > regionSize - REGION_HEADER_SIZE) {
+      return -1;
+    }
+    return buffer.getLong(start + OFFSET_GENERATION);
+  }
+
+  /**
+   * Read all records of the region, stop at the first broken record. The position of the buffer
+   * is changed, so the buffer should not be shared with the appenders.
+   *
+   * @param partial holds the split log whose last record is not read yet
+   */
+  private static void readRegion(ByteBuffer buffer, int start, int regionSize,
+                                 RecordConsumer consumer, ByteArrayOutputStream partial) {
+    int length = buffer.getInt(start + OFFSET_LENGTH);
+    if (length <= 0 || length > regionSize - REGION_HEADER_SIZE) {
+      return;
+    }
+    int position = start + REGION_HEADER_SIZE;
+    int end = position + length;
+    byte[] bytes = null;
+    while (position + RECORD_HEADER_SIZE <= end) {
+      int level = buffer.getInt(position);
+      long timestamp = buffer.getLong(position + 4);
+      int size = buffer.getInt(position + 12);
+      position += RECORD_HEADER_SIZE;
+      if (size < 0 || position + size > end) {
+        break;
+      }
+      if (bytes == null || bytes.length < size) {
+        bytes = new byte[Math.max(size, 256)];
+      }
+      buffer.position(position);
+      buffer.get(bytes, 0, size);
+      position += size;
+      if ((level & FLAG_CONTINUED) != 0) {
+        partial.write(bytes, 0, size);
+      } else if (partial.size() > 0) {
+        partial.write(bytes, 0, size);
+        consumer.onRecord(level, timestamp, decode(partial));
+        partial.reset();
+      } else {
+        consumer.onRecord(level, timestamp, new String(bytes, 0, size, UTF_8));
+      }
+    }
+    consumer.onRegionEnd();
+  }
+
+  private static String decode(ByteArrayOutputStream bytes) {
+    try {
+      return bytes.toString("UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      return bytes.toString();
+    }
+  }
+
+  /**
+   * Encode a flattened log as the data of a record.
+   */
+  static byte[] encode(String log) {
+    return log.getBytes(UTF_8);
+  }
+
+  /**
+   * Append a log, split it into several records if it is larger than a region. Wait for the
+   * worker if the buffer is full.
+   *
+   * @param level     the level of log
+   * @param timestamp the timestamp of log
+   * @param data      the flattened log encoded by {@link #encode(String)}
+   */
+  void append(int level, long timestamp, byte[] data) {
+    boolean interrupted = false;
+    synchronized (appendLock) {
+      int offset = 0;
+      do {
+        int appended;
+        boolean requestDrain;
+        synchronized (this) {
+          appended = appendRecord(level, timestamp, data, offset);
+          requestDrain = appendedFirst;
+          if (appended < 0) {
+            try {
+              wait(AWAIT_SPACE_MILLIS);
+            } catch (InterruptedException e) {
+              interrupted = true;
+            }
+            requestDrain = true;
+          }
+        }
+        if (requestDrain) {
+          drainRequester.requestDrain();
+        }
+        if (appended > 0) {
+          offset += appended;
+        }
+      } while (offset < data.length);
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Append a record holding as much data as the active region can hold, swap the regions if the
+   * active one is full.
+   *
+   * @return the count of data bytes appended, or -1 if no space
+   */
+  private int appendRecord(int level, long timestamp, byte[] data, int offset) {
+    appendedFirst = false;
+    int length = lengthOf(active);
+    int space = regionCapacity - length - RECORD_HEADER_SIZE;
+    int remaining = data.length - offset;
+    if (space < Math.min(remaining, regionCapacity / 4)) {
+      // Not worth to split the log here, use a new region.
+      if (otherBusy) {
+        return -1;
+      }
+      otherBusy = true;
+      active = 1 - active;
+      startRegion(active);
+      length = 0;
+      space = regionCapacity - RECORD_HEADER_SIZE;
+    }
+    int size = Math.min(remaining, space);
+    int position = startOf(active) + REGION_HEADER_SIZE + length;
+    buffer.putInt(position, size < remaining ? level | FLAG_CONTINUED : level);
+    buffer.putLong(position + 4, timestamp);
+    buffer.putInt(position + 12, size);
+    buffer.position(position + RECORD_HEADER_SIZE);
+    buffer.put(data, offset, size);
+    // Update the length at last, so a record is never half visible after a crash.
+    buffer.putInt(startOf(active) + OFFSET_LENGTH, length + RECORD_HEADER_SIZE + size);
+    appendedFirst = length == 0;
+    return size;
+  }
+
+  /**
+   * Move the full region, and then the active region, to the consumer. Should only be called by
+   * the worker.
+   *
+   * @param consumer the consumer writing records to the real log file
+   */
+  void drain(RecordConsumer consumer) {
+    int region = claimFullRegion();
+    if (region != -1) {
+      readRegion(readBuffer, startOf(region), buffer.capacity() / 2, consumer, partial);
+      releaseRegion(region);
+    }
+    region = claimActiveRegion();
+    if (region != -1) {
+      readRegion(readBuffer, startOf(region), buffer.capacity() / 2, consumer, partial);
+      releaseRegion(region);
+    }
+  }
+
+  private synchronized int claimFullRegion() {
+    return otherBusy ? 1 - active : -1;
+  }
+
+  private synchronized int claimActiveRegion() {
+    if (otherBusy || lengthOf(active) == 0) {
+      return -1;
+    }
+    int region = active;
+    otherBusy = true;
+    active = 1 - active;
+    startRegion(active);
+    return region;
+  }
+
+  private synchronized void releaseRegion(int region) {
+    buffer.putInt(startOf(region) + OFFSET_LENGTH, 0);
+    otherBusy = false;
+    notifyAll();
+  }
+
+  private void startRegion(int region) {
+    int start = startOf(region);
+    buffer.putInt(start + OFFSET_MAGIC, MAGIC);
+    buffer.putLong(start + OFFSET_GENERATION, ++generation);
+    buffer.putInt(start + OFFSET_LENGTH, 0);
+  }
+
+  private int startOf(int region) {
+    return region * (buffer.capacity() / 2);
+  }
+
+  private int lengthOf(int region) {
+    return buffer.getInt(startOf(region) + OFFSET_LENGTH);
+  }
+}
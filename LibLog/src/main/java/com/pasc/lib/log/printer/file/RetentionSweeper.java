@@ -0,0 +1,171 @@
+
+package com.pasc.lib.log.printer.file;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delete the old log files of {@link FilePrinter} by age, count and total bytes.
+ * <p>
+ * The log folder is scanned only once, then an index of file name to last modified time and size
+ * is kept up to date by {@link FilePrinter} when it opens or rotates a file, so a sweep costs no
+ * file system query except the deletion. A sweep runs at most once per interval, or after a
+ * rotation.
+ */
+/*package*/ class RetentionSweeper {
+
+  private final long maxAge;
+  private final int maxCount;
+  private final long maxBytes;
+  private final long interval;
+
+  /**
+   * The indexed log files, keyed by the path relative to the log folder.
+   */
+  private final Map<String, Entry> index = new HashMap<>();
+  private boolean indexed;
+
+  /**
+   * The file never to be deleted, such as the mmap cache file.
+   */
+  private File keptFile;
+
+  private long lastSweepTime;
+  private boolean sweepRequested;
+
+  /**
+   * Constructor.
+   *
+   * @param maxAge   the max time in milliseconds since a file was last modified, 0 for no limit
+   * @param maxCount the max count of files, 0 for no limit
+   * @param maxBytes the max total bytes of files, 0 for no limit
+   * @param interval the min time in milliseconds between two sweeps
+   */
+  RetentionSweeper(long maxAge, int maxCount, long maxBytes, long interval) {
+    this.maxAge = maxAge;
+    this.maxCount = maxCount;
+    this.maxBytes = maxBytes;
+    this.interval = interval;
+  }
+
+  /**
+   * Whether any limit is set.
+   */
+  boolean isEnabled() {
+    return maxAge > 0 || maxCount > 0 || maxBytes > 0;
+  }
+
+  /**
+   * Never delete the specified file even if it is in the log folder.
+   */
+  synchronized void keep(File file) {
+    keptFile = file;
+  }
+
+  /**
+   * Called when a log file is opened to be written into.
+   */
+  synchronized void onFileOpened(String name, long bytes) {
+    index.put(name, new Entry(System.currentTimeMillis(), bytes));
+  }
+
+  /**
+   * Called when a log file is renamed, usually when it is backed up.
+   */
+  synchronized void onFileRenamed(String from, String to, long bytes) {
+    index.remove(from);
+    index.put(to, new Entry(System.currentTimeMillis(), bytes));
+  }
+
+  /**
+   * Make the next {@link #sweepIfNeeded} sweep regardless of the interval.
+   */
+  synchronized void requestSweep() {
+    sweepRequested = true;
+  }
+
+  /**
+   * Whether a sweep is requested or the interval passed since the last sweep.
+   */
+  synchronized boolean isSweepDue() {
+    return sweepRequested || System.currentTimeMillis() - lastSweepTime >= interval;
+  }
+
+  /**
+   * Sweep the log folder.
+   *
+   * @param folderPath  the log folder
+   * @param activeFiles the size of the log files being written keyed by name, never deleted
+   */
+  synchronized void sweep(String folderPath, Map<String, Long> activeFiles) {
+    long now = System.currentTimeMillis();
+    sweepRequested = false;
+    lastSweepTime = now;
+    File folder = new File(folderPath);
+    if (!indexed) {
+      scan(folder);
+      indexed = true;
+    }
+    for (Map.Entry<String, Long> activeFile : activeFiles.entrySet()) {
+      index.put(activeFile.getKey(), new Entry(now, activeFile.getValue()));
+    }
+
+    List<Map.Entry<String, Entry>> files = new ArrayList<>(index.entrySet());
+    Collections.sort(files, NEWEST_FIRST);
+    int keptCount = 0;
+    long keptBytes = 0;
+    for (Map.Entry<String, Entry> file : files) {
+      Entry entry = file.getValue();
+      boolean expired = (maxAge > 0 && now - entry.lastModified > maxAge)
+          || (maxCount > 0 && keptCount >= maxCount)
+          || (maxBytes > 0 && keptBytes + entry.bytes > maxBytes);
+      if (expired && !activeFiles.containsKey(file.getKey())) {
+        File target = new File(folder, file.getKey());
+        if (target.delete() || !target.exists()) {
+          index.remove(file.getKey());
+          continue;
+        }
+      }
+      keptCount++;
+      keptBytes += entry.bytes;
+    }
+  }
+
+  private void scan(File folder) {
+    File[] files = folder.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.isFile() && !file.equals(keptFile)) {
+        index.put(file.getName(), new Entry(file.lastModified(), file.length()));
+      }
+    }
+  }
+
+  private static final Comparator<Map.Entry<String, Entry>> NEWEST_FIRST =
+      new Comparator<Map.Entry<String, Entry>>() {
+        @Override
+        public int compare(Map.Entry<String, Entry> lhs, Map.Entry<String, Entry> rhs) {
+          long l = lhs.getValue().lastModified;
+          long r = rhs.getValue().lastModified;
+          return l < r ? 1 : (l == r ? 0 : -1);
+        }
+      };
+
+  private static class Entry {
+
+    final long lastModified;
+    final long bytes;
+
+    Entry(long lastModified, long bytes) {
+      this.lastModified = lastModified;
+      this.bytes = bytes;
+    }
+  }
+}
@@ -0,0 +1,211 @@
+
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.MessageSupplier;
+import com.pasc.lib.log.printer.file.ring.WaitStrategy;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@link LogQueue} built on a preallocated multi-producer/single-consumer ring buffer.
+ * <p>
+ * A printing thread claims a sequence by a single atomic increment, fills the fields of the slot
+ * of that sequence, and publishes it, no lock is taken and nothing is allocated. The worker reads
+ * the published slots in sequence order, and copies them into recycled {@link LogItem}s so the
+ * slots are reusable at once. When the ring is full, the printing threads wait for the worker.
+ */
+/*package*/ class RingLogQueue implements LogQueue {
+
+  private final Slot[] slots;
+  private final int mask;
+  private final int indexShift;
+
+  /**
+   * The round of the sequence last published into each slot, -1 if never published.
+   */
+  private final AtomicIntegerArray published;
+
+  /**
+   * The next sequence to be claimed by the printing threads.
+   */
+  private final AtomicLong claimed = new AtomicLong();
+
+  /**
+   * The next sequence to be read by the worker, the slots before it are free.
+   */
+  private final AtomicLong consumed = new AtomicLong();
+
+  private final WaitStrategy waitStrategy;
+
+  /**
+   * Tell whether the next sequence of the worker is published.
+   */
+  private final WaitStrategy.Publication nextPublication = new WaitStrategy.Publication() {
+    @Override public boolean isPublished() {
+      return isSequencePublished(consumed.get());
+    }
+  };
+
+  /**
+   * The written logs handed back by the worker, reused to read the slots, only accessed by the
+   * worker.
+   */
+  private final ArrayDeque<LogItem> recycled = new ArrayDeque<>();
+
+  /**
+   * Constructor.
+   *
+   * @param size         the count of slots, should be a power of 2
+   * @param waitStrategy how the worker waits for logs
+   */
+  RingLogQueue(int size, WaitStrategy waitStrategy) {
+    slots = new Slot[size];
+    for (int i = 0; i < size; i++) {
+      slots[i] = new Slot();
+    }
+    mask = size - 1;
+    indexShift = Integer.numberOfTrailingZeros(size);
+    published = new AtomicIntegerArray(size);
+    for (int i = 0; i < size; i++) {
+      published.set(i, -1);
+    }
+    this.waitStrategy = waitStrategy;
+  }
+
+  @Override public void put(int level, String tag, String msg, MessageSupplier deferredMsg,
+      long timestamp, Thread thread, long logSequence) {
+    long sequence = claim();
+    Slot slot = slots[(int) sequence & mask];
+    slot.level = level;
+    slot.tag = tag;
+    slot.msg = msg;
+    slot.deferredMsg = deferredMsg;
+    slot.timestamp = timestamp;
+    slot.threadId = thread.getId();
+    slot.threadName = thread.getName();
+    slot.sequence = logSequence;
+    publish(sequence);
+  }
+
+  @Override public void putSignal(LogItem signal) {
+    long sequence = claim();
+    slots[(int) sequence & mask].signal = signal;
+    publish(sequence);
+  }
+
+  /**
+   * Claim the next sequence, wait until its slot is free.
+   */
+  private long claim() {
+    long sequence = claimed.getAndIncrement();
+    long wrapPoint = sequence - slots.length;
+    while (wrapPoint >= consumed.get()) {
+      LockSupport.parkNanos(1);
+    }
+    return sequence;
+  }
+
+  private void publish(long sequence) {
+    published.set((int) sequence & mask, (int) (sequence >>> indexShift));
+    waitStrategy.signalAll();
+  }
+
+  private boolean isSequencePublished(long sequence) {
+    return published.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+  }
+
+  @Override public LogItem take() throws InterruptedException {
+    waitStrategy.await(nextPublication, Long.MAX_VALUE);
+    return read();
+  }
+
+  @Override public LogItem poll(long timeout, TimeUnit unit) throws InterruptedException {
+    if (!waitStrategy.await(nextPublication, unit.toNanos(timeout))) {
+      return null;
+    }
+    return read();
+  }
+
+  @Override public int drainTo(List<LogItem> logs, int maxElements) {
+    int count = 0;
+    while (count < maxElements && isSequencePublished(consumed.get())) {
+      logs.add(read());
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Read the published slot of the next sequence, and free it.
+   */
+  private LogItem read() {
+    long sequence = consumed.get();
+    Slot slot = slots[(int) sequence & mask];
+    LogItem log;
+    if (slot.signal != null) {
+      log = slot.signal;
+      slot.signal = null;
+    } else {
+      log = recycled.pollFirst();
+      if (log == null) {
+        log = new LogItem(slot.level, slot.tag, slot.msg, slot.deferredMsg, slot.timestamp,
+            slot.threadId, slot.threadName, slot.sequence);
+      } else {
+        log.set(slot.level, slot.tag, slot.msg, slot.deferredMsg, slot.timestamp, slot.threadId,
+            slot.threadName, slot.sequence);
+      }
+      slot.tag = null;
+      slot.msg = null;
+      slot.deferredMsg = null;
+      slot.threadName = null;
+    }
+    consumed.lazySet(sequence + 1);
+    return log;
+  }
+
+  @Override public void recycle(List<LogItem> logs) {
+    for (int i = 0, size = logs.size(); i < size && recycled.size() < slots.length; i++) {
+      LogItem log = logs.get(i);
+      if (!log.signal) {
+        log.tag = null;
+        log.msg = null;
+        log.deferredMsg = null;
+        log.threadName = null;
+        recycled.addLast(log);
+      }
+    }
+  }
+
+  @Override public long takeDroppedCount() {
+    return 0;
+  }
+
+  @Override public long getDroppedCount() {
+    return 0;
+  }
+
+  /**
+   * A reusable slot of the ring.
+   */
+  private static class Slot {
+
+    int level;
+    String tag;
+    String msg;
+    MessageSupplier deferredMsg;
+    long timestamp;
+
+    long threadId;
+    String threadName;
+    long sequence;
+
+    /**
+     * The signal published into this slot, null if a log is published.
+     */
+    LogItem signal;
+  }
+}
@@ -0,0 +1,44 @@
+package com.pasc.lib.log.printer.file.backup;
+
+import java.io.File;
+
+/**
+ * Adapt a {@link BackupStrategy} to a {@link SizeAwareBackupStrategy}, the tracked size is ignored
+ * and the adapted strategy decides by the file itself.
+ */
+public class BackupStrategyAdapter implements SizeAwareBackupStrategy {
+
+  private final BackupStrategy backupStrategy;
+
+  /**
+   * Constructor.
+   *
+   * @param backupStrategy the strategy to be adapted
+   */
+  public BackupStrategyAdapter(BackupStrategy backupStrategy) {
+    this.backupStrategy = backupStrategy;
+  }
+
+  /**
+   * Adapt the strategy if it is not size-aware yet.
+   *
+   * @param backupStrategy the strategy to be adapted
+   * @return the size-aware strategy
+   */
+  public static SizeAwareBackupStrategy adapt(BackupStrategy backupStrategy) {
+    if (backupStrategy instanceof SizeAwareBackupStrategy) {
+      return (SizeAwareBackupStrategy) backupStrategy;
+    }
+    return new BackupStrategyAdapter(backupStrategy);
+  }
+
+  @Override
+  public boolean shouldBackup(File file) {
+    return backupStrategy.shouldBackup(file);
+  }
+
+  @Override
+  public boolean shouldBackup(File file, long currentBytes, long lineCount) {
+    return backupStrategy.shouldBackup(file);
+  }
+}
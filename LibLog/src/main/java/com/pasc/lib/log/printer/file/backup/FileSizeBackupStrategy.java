@@ -6,7 +6,7 @@ import java.io.File;
 /**
  * Limit the file size of a max length.
  */
-public class FileSizeBackupStrategy implements BackupStrategy {
+public class FileSizeBackupStrategy implements SizeAwareBackupStrategy {
 
   private long maxSize;
 
@@ -23,4 +23,9 @@ public class FileSizeBackupStrategy implements BackupStrategy {
   public boolean shouldBackup(File file) {
     return file.length() > maxSize;
   }
+
+  @Override
+  public boolean shouldBackup(File file, long currentBytes, long lineCount) {
+    return currentBytes > maxSize;
+  }
 }
@@ -8,10 +8,15 @@ import java.io.File;
  *
  * @since 1.3.0
  */
-public class NeverBackupStrategy implements BackupStrategy {
+public class NeverBackupStrategy implements SizeAwareBackupStrategy {
 
   @Override
   public boolean shouldBackup(File file) {
     return false;
   }
+
+  @Override
+  public boolean shouldBackup(File file, long currentBytes, long lineCount) {
+    return false;
+  }
 }
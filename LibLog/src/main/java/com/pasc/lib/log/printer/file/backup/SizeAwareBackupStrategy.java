@@ -0,0 +1,20 @@
+package com.pasc.lib.log.printer.file.backup;
+
+import java.io.File;
+
+/**
+ * A {@link BackupStrategy} deciding by the size tracked by the writer, instead of querying the
+ * file system for every log.
+ */
+public interface SizeAwareBackupStrategy extends BackupStrategy {
+
+  /**
+   * Whether we should backup a specified log file.
+   *
+   * @param file         the log file
+   * @param currentBytes the size of the log file in bytes, including the logs not flushed yet
+   * @param lineCount    the count of logs written into the log file since it is opened
+   * @return true is we should backup the log file
+   */
+  boolean shouldBackup(File file, long currentBytes, long lineCount);
+}
@@ -0,0 +1,159 @@
+package com.pasc.lib.log.printer.file.naming;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Generate file name by formatting the start of the period the timestamp is in, different periods
+ * will lead to different file names.
+ * <p>
+ * Periods are aligned to the local midnight by wall clock, so they follow the DST changes, and
+ * the last period of a day always ends at the next midnight. The name of the current period is
+ * cached, so generating a file name costs only two comparisons until the timestamp crosses the
+ * boundary of the period. The default time zone is checked once a minute, the period is computed
+ * again if it changed.
+ */
+public class PeriodFileNameGenerator implements FileNameGenerator {
+
+  /**
+   * One file per hour.
+   */
+  public static final long HOURLY = 60 * 60 * 1000;
+
+  /**
+   * One file per day.
+   */
+  public static final long DAILY = 24 * HOURLY;
+
+  private static final int MINUTE = 60 * 1000;
+  private static final int MINUTES_PER_DAY = 24 * 60;
+  private static final long ZONE_CHECK_INTERVAL = MINUTE;
+
+  private final String pattern;
+  private final int periodMinutes;
+
+  private volatile Period period;
+
+  /**
+   * Constructor.
+   *
+   * @param pattern the {@link SimpleDateFormat} pattern to format the start of the period
+   * @param period  the length of the period in milliseconds, such as {@link #HOURLY} and
+   *                {@link #DAILY}, rounded to minutes and at most one day
+   */
+  public PeriodFileNameGenerator(String pattern, long period) {
+    this.pattern = pattern;
+    this.periodMinutes = (int) Math.max(1, Math.min(period / MINUTE, MINUTES_PER_DAY));
+  }
+
+  /**
+   * Create a generator of one file per hour.
+   *
+   * @param pattern the {@link SimpleDateFormat} pattern to format the start of the hour
+   */
+  public static PeriodFileNameGenerator hourly(String pattern) {
+    return new PeriodFileNameGenerator(pattern, HOURLY);
+  }
+
+  /**
+   * Create a generator of one file per day.
+   *
+   * @param pattern the {@link SimpleDateFormat} pattern to format the date
+   */
+  public static PeriodFileNameGenerator daily(String pattern) {
+    return new PeriodFileNameGenerator(pattern, DAILY);
+  }
+
+  @Override
+  public boolean isFileNameChangeable() {
+    return true;
+  }
+
+  /**
+   * Generate a file name which represent the period of the timestamp.
+   */
+  @Override
+  public String generateFileName(int logLevel, long timestamp) {
+    Period period = this.period;
+    if (period == null || !period.contains(timestamp)) {
+      period = computePeriod(timestamp);
+      this.period = period;
+    } else if (timestamp - period.zoneCheckTime >= ZONE_CHECK_INTERVAL) {
+      period = period.zoneId.equals(TimeZone.getDefault().getID())
+          ? period.checkedAt(timestamp)
+          : computePeriod(timestamp);
+      this.period = period;
+    }
+    return period.fileName;
+  }
+
+  private Period computePeriod(long timestamp) {
+    TimeZone zone = TimeZone.getDefault();
+    Calendar calendar = Calendar.getInstance(zone, Locale.US);
+    calendar.setTimeInMillis(timestamp);
+    int minuteOfDay = calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+    int startMinute = minuteOfDay / periodMinutes * periodMinutes;
+    calendar.set(Calendar.HOUR_OF_DAY, startMinute / 60);
+    calendar.set(Calendar.MINUTE, startMinute % 60);
+    calendar.set(Calendar.SECOND, 0);
+    calendar.set(Calendar.MILLISECOND, 0);
+    long start = Math.min(calendar.getTimeInMillis(), timestamp);
+
+    int endMinute = startMinute + periodMinutes;
+    if (endMinute >= MINUTES_PER_DAY) {
+      calendar.set(Calendar.HOUR_OF_DAY, 0);
+      calendar.set(Calendar.MINUTE, 0);
+      calendar.add(Calendar.DAY_OF_MONTH, 1);
+    } else {
+      calendar.set(Calendar.HOUR_OF_DAY, endMinute / 60);
+      calendar.set(Calendar.MINUTE, endMinute % 60);
+    }
+    // An ambiguous wall time is resolved to the later instant when the DST ends, never let the
+    // period be longer than its length.
+    long end = Math.min(calendar.getTimeInMillis(), start + periodMinutes * (long) MINUTE);
+    end = Math.max(end, timestamp + 1);
+
+    SimpleDateFormat sdf = new SimpleDateFormat(pattern, Locale.US);
+    sdf.setTimeZone(zone);
+    return new Period(start, end, zone.getID(), sdf.format(new Date(start)), timestamp);
+  }
+
+  /**
+   * A period and its file name, never modified once published, a new one is created when the
+   * default time zone is checked.
+   */
+  private static class Period {
+
+    final long start;
+    final long end;
+    final String zoneId;
+    final String fileName;
+
+    /**
+     * The timestamp the default time zone was last checked.
+     */
+    final long zoneCheckTime;
+
+    Period(long start, long end, String zoneId, String fileName, long zoneCheckTime) {
+      this.start = start;
+      this.end = end;
+      this.zoneId = zoneId;
+      this.fileName = fileName;
+      this.zoneCheckTime = zoneCheckTime;
+    }
+
+    boolean contains(long timestamp) {
+      return timestamp >= start && timestamp < end;
+    }
+
+    /**
+     * Copy the period with the time zone checked at the timestamp.
+     */
+    Period checkedAt(long timestamp) {
+      return new Period(start, end, zoneId, fileName, timestamp);
+    }
+  }
+}
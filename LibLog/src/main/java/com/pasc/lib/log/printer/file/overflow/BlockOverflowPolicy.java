@@ -0,0 +1,25 @@
+package com.pasc.lib.log.printer.file.overflow;
+
+/**
+ * Block the printing thread until there is room in the queue, the new log is dropped if there is
+ * still no room after the timeout.
+ */
+public class BlockOverflowPolicy implements OverflowPolicy {
+
+  private final long timeoutMillis;
+
+  /**
+   * Constructor.
+   *
+   * @param timeoutMillis the max time to block the printing thread, in milliseconds
+   */
+  public BlockOverflowPolicy(long timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  @Override
+  public boolean onOverflow(OverflowQueue queue, int logLevel, long logBytes)
+      throws InterruptedException {
+    return queue.awaitRoom(logBytes, timeoutMillis);
+  }
+}
@@ -0,0 +1,46 @@
+package com.pasc.lib.log.printer.file.overflow;
+
+import com.pasc.lib.log.LogLevel;
+
+/**
+ * Shed the least important logs first: the oldest logs of the lowest level in the queue are
+ * dropped to make room for a new log of a higher level, and the new log is dropped if no queued
+ * log is less important than it.
+ * <p>
+ * Logs of the protected level or above are never dropped, they are enqueued even if the queue is
+ * full.
+ */
+public class DropBelowLevelOverflowPolicy implements OverflowPolicy {
+
+  private final int protectedLevel;
+
+  /**
+   * Constructor, never drop {@link LogLevel#ERROR} logs.
+   */
+  public DropBelowLevelOverflowPolicy() {
+    this(LogLevel.ERROR);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param protectedLevel logs of this level or above are never dropped
+   */
+  public DropBelowLevelOverflowPolicy(int protectedLevel) {
+    this.protectedLevel = protectedLevel;
+  }
+
+  @Override
+  public boolean onOverflow(OverflowQueue queue, int logLevel, long logBytes) {
+    while (!queue.hasRoom(logBytes)) {
+      int lowestLevel = queue.lowestLevel();
+      if (logLevel < protectedLevel && logLevel <= lowestLevel) {
+        return false;
+      }
+      if (lowestLevel >= protectedLevel || !queue.dropOldest(lowestLevel)) {
+        break;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,12 @@
+package com.pasc.lib.log.printer.file.overflow;
+
+/**
+ * Drop the new log, keep the logs already in the queue.
+ */
+public class DropNewestOverflowPolicy implements OverflowPolicy {
+
+  @Override
+  public boolean onOverflow(OverflowQueue queue, int logLevel, long logBytes) {
+    return false;
+  }
+}
@@ -0,0 +1,17 @@
+package com.pasc.lib.log.printer.file.overflow;
+
+/**
+ * Drop the oldest logs in the queue to make room for the new log.
+ */
+public class DropOldestOverflowPolicy implements OverflowPolicy {
+
+  @Override
+  public boolean onOverflow(OverflowQueue queue, int logLevel, long logBytes) {
+    while (!queue.hasRoom(logBytes)) {
+      if (!queue.dropOldest()) {
+        break;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,23 @@
+package com.pasc.lib.log.printer.file.overflow;
+
+/**
+ * Decide what to do when a log is printed but the bounded queue of
+ * {@link com.pasc.lib.log.printer.file.FilePrinter} is full.
+ * <p>
+ * Called on the printing thread with the queue locked, so the implementation should be fast and
+ * should not print any log itself.
+ */
+public interface OverflowPolicy {
+
+  /**
+   * Called when the queue has no room for a new log.
+   *
+   * @param queue    the full queue, used to wait for room or drop the queued logs
+   * @param logLevel the level of the new log
+   * @param logBytes the bytes of the new log, to be passed to the queue when checking for room
+   * @return true if the new log should be enqueued, even if the queue is still full, false if the
+   * new log should be dropped
+   * @throws InterruptedException if interrupted while waiting for room
+   */
+  boolean onOverflow(OverflowQueue queue, int logLevel, long logBytes) throws InterruptedException;
+}
@@ -0,0 +1,50 @@
+package com.pasc.lib.log.printer.file.overflow;
+
+import com.pasc.lib.log.LogLevel;
+
+/**
+ * The bounded queue seen by an {@link OverflowPolicy}, all the logs dropped through it are
+ * counted, and reported in the log file.
+ */
+public interface OverflowQueue {
+
+  /**
+   * Whether there is room for the new log now.
+   *
+   * @param logBytes the bytes of the new log
+   * @return true if there is room
+   */
+  boolean hasRoom(long logBytes);
+
+  /**
+   * Wait until there is room for the new log.
+   *
+   * @param logBytes      the bytes of the new log
+   * @param timeoutMillis the max time to wait, in milliseconds
+   * @return true if there is room, false if timeout
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean awaitRoom(long logBytes, long timeoutMillis) throws InterruptedException;
+
+  /**
+   * Drop the oldest log in the queue.
+   *
+   * @return true if a log is dropped, false if there is no log to drop
+   */
+  boolean dropOldest();
+
+  /**
+   * Drop the oldest log of the specified level in the queue.
+   *
+   * @param logLevel the level of the log to drop
+   * @return true if a log is dropped, false if there is no log of that level
+   */
+  boolean dropOldest(int logLevel);
+
+  /**
+   * Get the lowest level of the logs in the queue.
+   *
+   * @return the lowest level, or {@link LogLevel#NONE} if the queue is empty
+   */
+  int lowestLevel();
+}
@@ -0,0 +1,50 @@
+package com.pasc.lib.log.printer.file.ring;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Block the worker on a lock and condition until a log is published, the printing threads only
+ * take the lock when the worker is really waiting.
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition published = lock.newCondition();
+  private final AtomicBoolean signalNeeded = new AtomicBoolean(false);
+
+  @Override
+  public boolean await(Publication publication, long timeoutNanos) throws InterruptedException {
+    if (publication.isPublished()) {
+      return true;
+    }
+    lock.lock();
+    try {
+      while (true) {
+        signalNeeded.set(true);
+        if (publication.isPublished()) {
+          return true;
+        }
+        if (timeoutNanos <= 0) {
+          return false;
+        }
+        timeoutNanos = published.awaitNanos(timeoutNanos);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void signalAll() {
+    if (signalNeeded.getAndSet(false)) {
+      lock.lock();
+      try {
+        published.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
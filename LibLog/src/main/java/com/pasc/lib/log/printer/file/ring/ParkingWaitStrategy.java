@@ -0,0 +1,65 @@
+package com.pasc.lib.log.printer.file.ring;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spin, then yield, then park with an exponential backoff until a log is published, the printing
+ * threads never need to wake up the worker.
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+
+  private static final int SPIN_TRIES = 100;
+  private static final int YIELD_TRIES = 100;
+  private static final long MIN_PARK_NANOS = 1000;
+
+  private final long maxParkNanos;
+
+  /**
+   * Constructor, park at most 1 millisecond each time.
+   */
+  public ParkingWaitStrategy() {
+    this(1000 * 1000);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxParkNanos the max time to park each time, which is also the max latency of a log
+   *                     printed when the worker is idle
+   */
+  public ParkingWaitStrategy(long maxParkNanos) {
+    this.maxParkNanos = Math.max(maxParkNanos, MIN_PARK_NANOS);
+  }
+
+  @Override
+  public boolean await(Publication publication, long timeoutNanos) throws InterruptedException {
+    long deadline = System.nanoTime() + timeoutNanos;
+    int counter = SPIN_TRIES + YIELD_TRIES;
+    long parkNanos = MIN_PARK_NANOS;
+    while (!publication.isPublished()) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (counter > YIELD_TRIES) {
+        counter--;
+        continue;
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      if (counter > 0) {
+        counter--;
+        Thread.yield();
+      } else {
+        LockSupport.parkNanos(Math.min(parkNanos, remaining));
+        parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void signalAll() {
+  }
+}
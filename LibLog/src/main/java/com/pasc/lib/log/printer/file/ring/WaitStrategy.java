@@ -0,0 +1,41 @@
+package com.pasc.lib.log.printer.file.ring;
+
+/**
+ * Decide how the worker of {@link com.pasc.lib.log.printer.file.FilePrinter} waits for the next
+ * log to be published into the ring buffer.
+ * <p>
+ * Trade CPU for latency: {@link BlockingWaitStrategy} uses no CPU when idle but wakes up the
+ * slowest, {@link YieldingWaitStrategy} wakes up the fastest but keeps a core busy, and
+ * {@link ParkingWaitStrategy} is in between.
+ */
+public interface WaitStrategy {
+
+  /**
+   * Wait until the log is published, called by the worker only.
+   *
+   * @param publication  tells whether the log is published
+   * @param timeoutNanos the max time to wait, in nanoseconds
+   * @return true if published, false if timeout
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean await(Publication publication, long timeoutNanos) throws InterruptedException;
+
+  /**
+   * Wake up the worker if it is waiting, called by the printing threads after every log is
+   * published, so it should be cheap when the worker is not waiting.
+   */
+  void signalAll();
+
+  /**
+   * Tell whether the log the worker is waiting for is published.
+   */
+  interface Publication {
+
+    /**
+     * Whether the log is published.
+     *
+     * @return true if published
+     */
+    boolean isPublished();
+  }
+}
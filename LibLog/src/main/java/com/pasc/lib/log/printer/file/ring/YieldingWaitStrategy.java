@@ -0,0 +1,34 @@
+package com.pasc.lib.log.printer.file.ring;
+
+/**
+ * Busy spin for a while and then yield the CPU until a log is published, the lowest latency but
+ * keeps a core busy while idle, only suitable for short bursts of heavy logging.
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+  private static final int SPIN_TRIES = 100;
+
+  @Override
+  public boolean await(Publication publication, long timeoutNanos) throws InterruptedException {
+    long deadline = System.nanoTime() + timeoutNanos;
+    int counter = SPIN_TRIES;
+    while (!publication.isPublished()) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (counter > 0) {
+        counter--;
+        continue;
+      }
+      if (deadline - System.nanoTime() <= 0) {
+        return false;
+      }
+      Thread.yield();
+    }
+    return true;
+  }
+
+  @Override
+  public void signalAll() {
+  }
+}
@@ -0,0 +1,51 @@
+package com.pasc.lib.log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class LogUtilsTest {
+
+  private static final String LOG = "日志 ünïcödé";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test public void openLogReader_plainFile_decodesUtf8() throws IOException {
+    File file = folder.newFile("log");
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write((LOG + "\n").getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    assertEquals(LOG, readFirstLine(file));
+  }
+
+  @Test public void openLogReader_gzippedFile_decodesUtf8() throws IOException {
+    File file = folder.newFile("log.bak.gz");
+    OutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+    try {
+      out.write((LOG + "\n").getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    assertEquals(LOG, readFirstLine(file));
+  }
+
+  private static String readFirstLine(File file) throws IOException {
+    BufferedReader reader = LogUtils.openLogReader(file);
+    try {
+      return reader.readLine();
+    } finally {
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.pasc.lib.log;
+
+import com.pasc.lib.log.internal.CallSite;
+import com.pasc.lib.log.printer.Printer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The call sites injected by the LibLogPlugin transform are kept per thread, so they must stick to
+ * their own logs when the message building logs too.
+ */
+public class LoggerCallSiteTest {
+
+  private static final String OUTER_SITE = "com.example.Outer.run(Outer.java:10)";
+  private static final String INNER_SITE = "com.example.Inner.run(Inner.java:20)";
+
+  private final List<String> tags = new ArrayList<>();
+  private final List<String> messages = new ArrayList<>();
+
+  private final Printer printer = new Printer() {
+    @Override public void println(int logLevel, String tag, String msg) {
+      tags.add(tag);
+      messages.add(msg);
+    }
+  };
+
+  private Logger logger;
+
+  @Before public void setUp() {
+    CallSite.discard();
+    logger = newLogger(LogLevel.ALL);
+  }
+
+  @After public void tearDown() {
+    CallSite.discard();
+  }
+
+  @Test public void nestedLogInToString_keepsOuterSite() {
+    CallSite.set(OUTER_SITE, "Outer");
+    logger.d(null, new Object() {
+      @Override public String toString() {
+        CallSite.set(INNER_SITE, "Inner");
+        logger.d(null, "inner");
+        return "outer";
+      }
+    });
+
+    assertEquals(2, messages.size());
+    assertPrinted(0, "Inner", INNER_SITE, "inner");
+    assertPrinted(1, "Outer", OUTER_SITE, "outer");
+  }
+
+  @Test public void nestedLogInSupplier_keepsOuterSite() {
+    CallSite.set(OUTER_SITE, "Outer");
+    logger.d(null, new MessageSupplier() {
+      @Override public String get() {
+        CallSite.set(INNER_SITE, "Inner");
+        logger.d(null, "inner");
+        return "outer";
+      }
+    });
+
+    assertEquals(2, messages.size());
+    assertPrinted(0, "Inner", INNER_SITE, "inner");
+    assertPrinted(1, "Outer", OUTER_SITE, "outer");
+  }
+
+  @Test public void nestedSiteNeverTaken_notCarriedOver() {
+    CallSite.set(OUTER_SITE, "Outer");
+    logger.d(null, new Object() {
+      @Override public String toString() {
+        // As if the nested log failed before reaching the logger.
+        CallSite.set(INNER_SITE, "Inner");
+        return "outer";
+      }
+    });
+    logger.d(null, "not injected");
+
+    assertEquals(2, messages.size());
+    assertPrinted(0, "Outer", OUTER_SITE, "outer");
+    assertEquals("default", tags.get(1));
+    assertFalse(messages.get(1).contains("Inner.java"));
+  }
+
+  @Test public void notLoggable_siteDropped() {
+    logger = newLogger(LogLevel.INFO);
+    CallSite.set(OUTER_SITE, "Outer");
+    logger.d(null, "dropped");
+    logger.i(null, "not injected");
+
+    assertEquals(1, messages.size());
+    assertEquals("default", tags.get(0));
+    assertFalse(messages.get(0).contains("Outer.java"));
+  }
+
+  private Logger newLogger(int logLevel) {
+    return new Logger(new LogConfiguration.Builder()
+        .logLevel(logLevel)
+        .tag("default")
+        .callSiteEnable()
+        .build(), printer);
+  }
+
+  private void assertPrinted(int index, String tag, String site, String msg) {
+    assertEquals(tag, tags.get(index));
+    String printed = messages.get(index);
+    assertTrue(printed, printed.contains(site.substring(site.indexOf('(') + 1, site.indexOf(':'))));
+    assertTrue(printed, printed.endsWith(msg));
+  }
+}
@@ -0,0 +1,155 @@
+package com.pasc.lib.log;
+
+import com.pasc.lib.log.formatter.message.object.ObjectFormatter;
+import com.pasc.lib.log.printer.DeferredPrinter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParameterizedMessageTest {
+
+  private static final LogConfiguration CONFIGURATION = new LogConfiguration.Builder().build();
+
+  @Test public void placeholders_filledInOrder() {
+    assertEquals("a 1 b x c", message("a {} b {} c", 1, "x"));
+    assertEquals("{}", message("{}", "{}"));
+    assertEquals("null", message("{}", (Object) null));
+  }
+
+  @Test public void fewerArgs_placeholdersLeft() {
+    assertEquals("1 {}", message("{} {}", 1));
+  }
+
+  @Test public void moreArgs_extraIgnored() {
+    assertEquals("a 1", message("a {}", 1, 2));
+  }
+
+  @Test public void noPattern_argsConcatenated() {
+    assertEquals("1, x, null", message(null, 1, "x", null));
+  }
+
+  @Test public void noArgs_patternAsIs() {
+    assertEquals("a {}", new ParameterizedMessage("a {}",
+        ParameterizedMessage.snapshot(CONFIGURATION, null)).get());
+  }
+
+  @Test public void snapshot_mutableArgFormattedRightAway() {
+    List<String> list = new ArrayList<>();
+    list.add("before");
+    StringBuilder sb = new StringBuilder("before");
+    Object[] args = {list, sb};
+    MessageSupplier message = new ParameterizedMessage("{} {}",
+        ParameterizedMessage.snapshot(CONFIGURATION, args));
+
+    list.set(0, "after");
+    sb.setLength(0);
+    args[0] = "replaced";
+
+    assertEquals("[before] before", message.get());
+  }
+
+  @Test public void snapshot_immutableArgKept_callerArrayCopied() {
+    String arg = "arg";
+    Object[] args = {arg, 1};
+    Object[] snapshot = ParameterizedMessage.snapshot(CONFIGURATION, args);
+
+    assertNotSame(args, snapshot);
+    assertSame(arg, snapshot[0]);
+    assertSame(args[1], snapshot[1]);
+  }
+
+  @Test public void snapshot_arrayArgDeepFormatted() {
+    Object[] nested = {1, new int[]{2, 3}};
+    assertEquals("[1, [2, 3]]", message("{}", new Object[]{nested}));
+  }
+
+  @Test public void snapshot_objectFormatterUsed() {
+    LogConfiguration configuration = new LogConfiguration.Builder()
+        .addObjectFormatter(Point.class, new ObjectFormatter<Point>() {
+          @Override public String format(Point point) {
+            return "(" + point.x + ", " + point.y + ")";
+          }
+        })
+        .build();
+    Point point = new Point(1, 2);
+    MessageSupplier message = new ParameterizedMessage("at {}",
+        ParameterizedMessage.snapshot(configuration, new Object[]{point}));
+    point.x = 3;
+
+    assertEquals("at (1, 2)", message.get());
+  }
+
+  @Test public void get_builtOnce() {
+    MessageSupplier message = new ParameterizedMessage("{}",
+        ParameterizedMessage.snapshot(CONFIGURATION, new Object[]{1}));
+    assertSame(message.get(), message.get());
+  }
+
+  @Test public void logger_deferredMessageBuiltFromSnapshot() {
+    RecordingDeferredPrinter printer = new RecordingDeferredPrinter();
+    Logger logger = new Logger(new LogConfiguration.Builder()
+        .logLevel(LogLevel.ALL)
+        .placeholderEnable()
+        .build(), printer);
+    List<String> list = new ArrayList<>();
+    list.add("before");
+
+    logger.d("TAG", "list {}", list);
+    list.set(0, "after");
+
+    assertNotNull(printer.message);
+    assertEquals("list [before]", printer.message.get());
+  }
+
+  @Test public void logger_supplierCalledOnlyIfLoggable() {
+    RecordingDeferredPrinter printer = new RecordingDeferredPrinter();
+    Logger logger = new Logger(new LogConfiguration.Builder()
+        .logLevel(LogLevel.INFO)
+        .build(), printer);
+    final int[] calls = new int[1];
+    MessageSupplier supplier = new MessageSupplier() {
+      @Override public String get() {
+        calls[0]++;
+        return "supplied";
+      }
+    };
+
+    logger.d("TAG", supplier);
+    assertEquals(0, calls[0]);
+    logger.i("TAG", supplier);
+    assertEquals(1, calls[0]);
+    assertEquals("supplied", printer.msg);
+  }
+
+  private static String message(String pattern, Object... args) {
+    return new ParameterizedMessage(pattern,
+        ParameterizedMessage.snapshot(CONFIGURATION, args)).get();
+  }
+
+  private static class Point {
+
+    int x;
+    int y;
+
+    Point(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+  }
+
+  private static class RecordingDeferredPrinter implements DeferredPrinter {
+
+    MessageSupplier message;
+    String msg;
+
+    @Override public void println(int logLevel, String tag, MessageSupplier msg) {
+      message = msg;
+    }
+
+    @Override public void println(int logLevel, String tag, String msg) {
+      this.msg = msg;
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.pasc.lib.log;
+
+import com.pasc.lib.log.printer.AndroidPrinter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PascLogTagLoggerTest {
+
+  private final RecordingAndroidPrinter androidPrinter = new RecordingAndroidPrinter();
+
+  @Before public void setUp() {
+    RecordingPrinter.initPascLog();
+    PascLog.openAndroidPrinter(false);
+    PascLog.sAndroidPrinter = androidPrinter;
+  }
+
+  @After public void tearDown() {
+    PascLog.openAndroidPrinter(false);
+  }
+
+  @Test public void sameTag_reusesLogger() {
+    Logger logger = PascLog.Log.logger("CacheTest");
+    assertSame(logger, PascLog.Log.logger("CacheTest"));
+    assertNotSame(logger, PascLog.Log.logger("OtherTag"));
+
+    PascLog.Log.d("CacheTest", "cached logger prints");
+    assertTrue(RecordingPrinter.PASC_LOG.contains("cached logger prints"));
+  }
+
+  @Test public void nullTag_neverCached() {
+    assertNotSame(PascLog.Log.logger(null), PascLog.Log.logger(null));
+  }
+
+  @Test public void printerChange_invalidatesCachedLoggers() {
+    Logger before = PascLog.Log.logger("CacheTest");
+
+    PascLog.openAndroidPrinter(true);
+    Logger opened = PascLog.Log.logger("CacheTest");
+    assertNotSame(before, opened);
+    PascLog.Log.d("CacheTest", "printed after open");
+    assertTrue(androidPrinter.recorder.contains("printed after open"));
+    assertTrue(RecordingPrinter.PASC_LOG.contains("printed after open"));
+
+    PascLog.openAndroidPrinter(false);
+    assertNotSame(opened, PascLog.Log.logger("CacheTest"));
+    PascLog.Log.d("CacheTest", "printed after close");
+    assertFalse(androidPrinter.recorder.contains("printed after close"));
+    assertTrue(RecordingPrinter.PASC_LOG.contains("printed after close"));
+  }
+
+  private static class RecordingAndroidPrinter extends AndroidPrinter {
+
+    final RecordingPrinter recorder = new RecordingPrinter();
+
+    @Override public void println(int logLevel, String tag, String msg) {
+      recorder.println(logLevel, tag, msg);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.pasc.lib.log;
+
+import com.pasc.lib.log.printer.AndroidPrinter;
+import com.pasc.lib.log.printer.PrinterSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PrinterSnapshotTest {
+
+  private static final int THREADS = 4;
+  private static final int LOGS_PER_THREAD = 5000;
+
+  @Before public void setUp() {
+    RecordingPrinter.initPascLog();
+    PascLog.openAndroidPrinter(false);
+    PascLog.sAndroidPrinter = new AndroidPrinter() {
+      @Override public void println(int logLevel, String tag, String msg) {
+        // Printed to nowhere.
+      }
+    };
+    RecordingPrinter.PASC_LOG.clear();
+  }
+
+  @After public void tearDown() {
+    PascLog.openAndroidPrinter(false);
+    RecordingPrinter.PASC_LOG.clear();
+  }
+
+  @Test public void printerChangesDuringLogging_neverThrow() throws Exception {
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(THREADS);
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    for (int t = 0; t < THREADS; t++) {
+      final String tag = "Snapshot" + (t % 2);
+      new Thread() {
+        @Override public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < LOGS_PER_THREAD; i++) {
+              if (i % 2 == 0) {
+                PascLog.d(tag, "global " + i);
+              } else {
+                PascLog.Log.d(tag, "tagged " + i);
+              }
+            }
+          } catch (Throwable e) {
+            error.compareAndSet(null, e);
+          } finally {
+            done.countDown();
+          }
+        }
+      }.start();
+    }
+
+    start.countDown();
+    boolean open = false;
+    while (done.getCount() > 0) {
+      open = !open;
+      PascLog.openAndroidPrinter(open);
+      Thread.yield();
+    }
+    done.await();
+
+    assertNull(error.get());
+    // The recording printer stays in every snapshot, so it has seen every log.
+    assertEquals(THREADS * LOGS_PER_THREAD, RecordingPrinter.PASC_LOG.size());
+  }
+
+  @Test public void printerSet_isSnapshot() {
+    PrinterSet before = PascLog.getPrintSet();
+    assertSame(before, PascLog.getPrintSet());
+
+    PascLog.openAndroidPrinter(true);
+    PrinterSet opened = PascLog.getPrintSet();
+    assertNotSame(before, opened);
+
+    // A set taken before the change still prints to the old printers only.
+    RecordingPrinter.PASC_LOG.clear();
+    before.println(LogLevel.INFO, "TAG", "old snapshot");
+    assertEquals(1, RecordingPrinter.PASC_LOG.size());
+
+    PascLog.openAndroidPrinter(false);
+    assertNotSame(opened, PascLog.getPrintSet());
+  }
+}
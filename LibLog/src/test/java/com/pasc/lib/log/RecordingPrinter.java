@@ -0,0 +1,71 @@
+package com.pasc.lib.log;
+
+import com.pasc.lib.log.printer.Printer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A printer keeping the printed messages in memory, and the {@link PascLog} initialization shared
+ * by the tests running in the same JVM, as {@link PascLog} can only be initialized once.
+ */
+class RecordingPrinter implements Printer {
+
+  /**
+   * The printer {@link PascLog} is initialized with by {@link #initPascLog()}.
+   */
+  static final RecordingPrinter PASC_LOG = new RecordingPrinter();
+
+  private final List<String> messages = new ArrayList<>();
+
+  /**
+   * Whether to drop the printed messages, so benchmarks do not measure the memory of recording.
+   */
+  volatile boolean dropping;
+
+  /**
+   * Initialize {@link PascLog} with {@link #PASC_LOG} as the only printer, all levels loggable and
+   * no crash handler, do nothing if already initialized.
+   */
+  static synchronized void initPascLog() {
+    if (!PascLog.sIsInitialized) {
+      PascLog.openCatchCrash(false);
+      PascLog.init(null, "test", new LogConfiguration.Builder().logLevel(LogLevel.ALL).build(),
+          PASC_LOG);
+    }
+  }
+
+  @Override public void println(int logLevel, String tag, String msg) {
+    if (dropping) {
+      return;
+    }
+    synchronized (messages) {
+      messages.add(msg);
+    }
+  }
+
+  /**
+   * Whether a message containing the text was printed.
+   */
+  boolean contains(String text) {
+    synchronized (messages) {
+      for (String message : messages) {
+        if (message.contains(text)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  int size() {
+    synchronized (messages) {
+      return messages.size();
+    }
+  }
+
+  void clear() {
+    synchronized (messages) {
+      messages.clear();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.pasc.lib.log;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TagLoggerCacheTest {
+
+  @Test public void sameTag_builtOnce() {
+    CountingCache cache = new CountingCache(4);
+    Logger logger = cache.get("A");
+    assertSame(logger, cache.get("A"));
+    assertEquals(1, cache.builds);
+  }
+
+  @Test public void nullTag_neverCached() {
+    CountingCache cache = new CountingCache(4);
+    assertNotSame(cache.get(null), cache.get(null));
+    assertEquals(2, cache.builds);
+  }
+
+  @Test public void clear_rebuildsLoggers() {
+    CountingCache cache = new CountingCache(4);
+    Logger logger = cache.get("A");
+    cache.clear();
+    assertNotSame(logger, cache.get("A"));
+    assertEquals(2, cache.builds);
+  }
+
+  @Test public void full_buildsWithoutCaching() {
+    CountingCache cache = new CountingCache(2);
+    cache.get("A");
+    cache.get("B");
+    Logger logger = cache.get("C");
+    assertNotSame(logger, cache.get("C"));
+    assertSame(cache.get("A"), cache.get("A"));
+    assertEquals(4, cache.builds);
+  }
+
+  @Test public void clearDuringBuild_loggerNotCached() {
+    CountingCache cache = new CountingCache(4) {
+      @Override Logger build(String tag) {
+        Logger logger = super.build(tag);
+        if (builds == 1) {
+          // The printers change after this logger took them.
+          clear();
+        }
+        return logger;
+      }
+    };
+    Logger stale = cache.get("A");
+    Logger fresh = cache.get("A");
+    assertNotSame(stale, fresh);
+    assertSame(fresh, cache.get("A"));
+    assertEquals(2, cache.builds);
+  }
+
+  private static class CountingCache extends TagLoggerCache {
+
+    private final LogConfiguration configuration = new LogConfiguration.Builder().build();
+
+    int builds;
+
+    CountingCache(int maxSize) {
+      super(maxSize);
+    }
+
+    @Override Logger build(String tag) {
+      builds++;
+      return new Logger(configuration, new RecordingPrinter());
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.pasc.lib.log.flattener;
+
+import com.pasc.lib.log.LogLevel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PatternFlattenerTest {
+
+  @Test public void parameters_filled() {
+    PatternFlattener flattener = new PatternFlattener("{l}|{L}|{t}: {m}");
+    assertEquals("D|DEBUG|tag: msg", flattener.flatten(LogLevel.DEBUG, "tag", "msg").toString());
+  }
+
+  @Test public void messageContainingParameter_notRewritten() {
+    PatternFlattener flattener = new PatternFlattener("{m} [{t}]");
+    assertEquals("see {t} [tag]",
+        flattener.flatten(LogLevel.INFO, "tag", "see {t}").toString());
+
+    flattener = new PatternFlattener("{l}/{t}: {m}");
+    assertEquals("D/tag: {m} {l} {t} {d}",
+        flattener.flatten(LogLevel.DEBUG, "tag", "{m} {l} {t} {d}").toString());
+  }
+
+  @Test public void tagContainingParameter_notRewritten() {
+    PatternFlattener flattener = new PatternFlattener("{t}: {m}");
+    assertEquals("{m}: msg", flattener.flatten(LogLevel.INFO, "{m}", "msg").toString());
+  }
+
+  @Test public void repeatedParameter_filledEachTime() {
+    PatternFlattener flattener = new PatternFlattener("{m}-{m}");
+    assertEquals("a-a", flattener.flatten(LogLevel.INFO, "tag", "a").toString());
+  }
+
+  @Test public void unrecognizedParameter_keptAsIs() {
+    PatternFlattener flattener = new PatternFlattener("{x} { l } {}{m}{");
+    assertEquals("{x} W {}msg{", flattener.flatten(LogLevel.WARN, "tag", "msg").toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void noRecognizedParameter_rejected() {
+    new PatternFlattener("{x} plain text");
+  }
+
+  @Test public void record_filledWithItsFields() {
+    PatternFlattener flattener = new PatternFlattener("{d yyyy-MM-dd HH:mm:ss.SSS} {T}#{n} {m}");
+    LogRecord record = new LogRecord(LogLevel.INFO, "tag", "msg", 42);
+    record.timestamp = 1480510800123L;
+    record.threadName = "worker";
+
+    StringBuilder buffer = new StringBuilder("head:");
+    flattener.flatten(record, buffer);
+
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+    assertEquals("head:" + format.format(new Date(record.timestamp)) + " worker#42 msg",
+        buffer.toString());
+  }
+
+  @Test public void appending_sameAsFlatten() {
+    PatternFlattener flattener = new PatternFlattener("<{l}/{t}: {m}>");
+    StringBuilder buffer = new StringBuilder("head");
+    flattener.flatten(LogLevel.ERROR, "tag", "msg", buffer);
+    assertEquals("head" + flattener.flatten(LogLevel.ERROR, "tag", "msg"), buffer.toString());
+  }
+}
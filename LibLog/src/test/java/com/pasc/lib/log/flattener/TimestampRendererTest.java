@@ -0,0 +1,131 @@
+package com.pasc.lib.log.flattener;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimestampRendererTest {
+
+  private static final String[] PATTERNS = {
+      PatternFlattener.DEFAULT_DATE_FORMAT,
+      "yyyy/MM/dd HH:mm:ss",
+      "S",
+      "SS 'SS''S' ss.S",
+      "MM/dd hh:mm",
+      "HH:mm:ss,SSSS a z",
+      "''yy''SSS",
+      "'S'SSS'S'",
+      "EEE, d MMM yyyy HH:mm:ss.SSSSS Z",
+  };
+
+  /**
+   * About 2000 years around the epoch.
+   */
+  private static final long MILLIS_RANGE = 1000L * 60 * 60 * 24 * 365 * 1000;
+
+  @Test public void randomTimestamps_sameAsSimpleDateFormat() {
+    Random random = new Random(1);
+    for (String pattern : PATTERNS) {
+      TimestampRenderer renderer = TimestampRenderer.of(pattern);
+      SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+      long now = System.currentTimeMillis();
+      for (int i = 0; i < 20000; i++) {
+        long millis;
+        switch (i % 4) {
+          case 0:
+            // Logs going on, most in the same second as the previous one.
+            now += random.nextInt(300);
+            millis = now;
+            break;
+          case 1:
+            millis = (random.nextLong() % MILLIS_RANGE);
+            break;
+          case 2:
+            // Around the epoch, negative ones included.
+            millis = random.nextInt(20000) - 10000;
+            break;
+          default:
+            millis = -Math.abs(random.nextLong() % MILLIS_RANGE);
+            break;
+        }
+        assertRendered(renderer, format, millis);
+      }
+    }
+  }
+
+  @Test public void secondBoundaries_sameAsSimpleDateFormat() {
+    long[] boundaries = {0, 1, 999, 1000, 1001, -1, -999, -1000, -1001, -1999, -2000,
+        Integer.MAX_VALUE, Integer.MIN_VALUE, 1480510800000L, 1480510799999L};
+    for (String pattern : PATTERNS) {
+      TimestampRenderer renderer = TimestampRenderer.of(pattern);
+      SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+      for (long millis : boundaries) {
+        assertRendered(renderer, format, millis);
+      }
+    }
+  }
+
+  @Test public void quotedS_isLiteral() {
+    TimestampRenderer renderer = TimestampRenderer.of("'S'SSS'S'");
+    assertEquals("S007S", renderer.render(1480510800007L));
+  }
+
+  @Test public void moreThanThreeS_paddedWithZeros() {
+    TimestampRenderer renderer = TimestampRenderer.of("SSSS|SSSSS|S");
+    assertEquals("0005|00005|5", renderer.render(1480510800005L));
+    assertEquals("0123|00123|123", renderer.render(1480510800123L));
+  }
+
+  @Test public void negativeMillis_millisOfSecondPositive() {
+    TimestampRenderer renderer = TimestampRenderer.of("ss.SSS");
+    // One millisecond before the epoch is the 999th millisecond of the 59th second.
+    assertEquals("59.999", renderer.render(-1));
+    assertEquals("59.000", renderer.render(-1000));
+    assertEquals("58.999", renderer.render(-1001));
+  }
+
+  @Test public void appending_keepsBufferHead() {
+    TimestampRenderer renderer = TimestampRenderer.of("ss.SSS");
+    StringBuilder buffer = new StringBuilder("head ");
+    renderer.render(1480510800123L, buffer);
+    assertEquals("head " + renderer.render(1480510800123L), buffer.toString());
+  }
+
+  @Test public void samePattern_shared() {
+    assertSame(TimestampRenderer.of("HH:mm:ss.SSS"), TimestampRenderer.of("HH:mm:ss.SSS"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void badPattern_rejected() {
+    TimestampRenderer.of("yyyy-qq");
+  }
+
+  @Test public void epochMillis_sameAsLongToString() {
+    Random random = new Random(2);
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < 20000; i++) {
+      long millis = i % 2 == 0 ? (now += random.nextInt(300)) : random.nextLong() % MILLIS_RANGE;
+      assertEpochMillis(millis);
+    }
+    long[] boundaries = {0, 5, 999, 1000, 1001, 1099, -1, -1000, -1001, Long.MAX_VALUE};
+    for (long millis : boundaries) {
+      assertEpochMillis(millis);
+    }
+  }
+
+  private static void assertRendered(TimestampRenderer renderer, SimpleDateFormat format,
+                                     long millis) {
+    assertEquals(format.toPattern() + " at " + millis, format.format(new Date(millis)),
+        renderer.render(millis));
+  }
+
+  private static void assertEpochMillis(long millis) {
+    StringBuilder buffer = new StringBuilder();
+    TimestampRenderer.renderEpochMillis(millis, buffer);
+    assertEquals(Long.toString(millis), buffer.toString());
+  }
+}
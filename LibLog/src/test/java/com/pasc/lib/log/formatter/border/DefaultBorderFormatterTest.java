@@ -0,0 +1,136 @@
+package com.pasc.lib.log.formatter.border;
+
+import com.pasc.lib.log.internal.SystemCompat;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DefaultBorderFormatterTest {
+
+  private static final String TOP_BORDER = border('╔', '═');
+  private static final String DIVIDER_BORDER = border('╟', '─');
+  private static final String BOTTOM_BORDER = border('╚', '═');
+
+  private static final String[] PIECES = {"a", "bc", " ", "║", "\n", "\r", "\r\n", "\n\n", ""};
+
+  private final String lineSeparator = SystemCompat.lineSeparator;
+
+  private final DefaultBorderFormatter formatter = new DefaultBorderFormatter();
+
+  @After public void tearDown() {
+    SystemCompat.lineSeparator = lineSeparator;
+  }
+
+  @Test public void randomSegments_sameAsSplitting_lf() {
+    SystemCompat.lineSeparator = "\n";
+    assertSameAsSplitting(new Random(1));
+  }
+
+  @Test public void randomSegments_sameAsSplitting_crlf() {
+    SystemCompat.lineSeparator = "\r\n";
+    assertSameAsSplitting(new Random(2));
+  }
+
+  @Test public void lines_borderedAndTrailingEmptyLinesDropped() {
+    SystemCompat.lineSeparator = "\n";
+    String formatted = formatter.format(new String[]{"\na\n\nb\n\n", null, "", "\n\n", "c"});
+    assertEquals(TOP_BORDER + "\n"
+            + "║\n"
+            + "║a\n"
+            + "║\n"
+            + "║b\n"
+            + DIVIDER_BORDER + "\n"
+            // An empty segment is an empty bordered line.
+            + "║\n"
+            + DIVIDER_BORDER + "\n"
+            // A segment of only line separators has no line, String.split gives no element.
+            + "\n"
+            + DIVIDER_BORDER + "\n"
+            + "║c\n"
+            + BOTTOM_BORDER,
+        formatted);
+  }
+
+  @Test public void noSegment_empty() {
+    assertEquals("", formatter.format(null));
+    assertEquals("", formatter.format(new String[0]));
+    assertEquals("", formatter.format(new String[]{null, null}));
+  }
+
+  private static String border(char corner, char line) {
+    StringBuilder sb = new StringBuilder(100).append(corner);
+    while (sb.length() < 100) {
+      sb.append(line);
+    }
+    return sb.toString();
+  }
+
+  private void assertSameAsSplitting(Random random) {
+    for (int i = 0; i < 20000; i++) {
+      String[] segments = new String[1 + random.nextInt(4)];
+      for (int s = 0; s < segments.length; s++) {
+        segments[s] = random.nextInt(8) == 0 ? null : randomSegment(random);
+      }
+      String expected = splittingFormat(segments);
+      assertEquals(describe(segments), expected, formatter.format(segments));
+    }
+  }
+
+  private static String randomSegment(Random random) {
+    StringBuilder sb = new StringBuilder();
+    int pieces = random.nextInt(8);
+    for (int p = 0; p < pieces; p++) {
+      sb.append(PIECES[random.nextInt(PIECES.length)]);
+    }
+    return sb.toString();
+  }
+
+  private static String describe(String[] segments) {
+    StringBuilder sb = new StringBuilder();
+    for (String segment : segments) {
+      sb.append(segment == null ? "null"
+          : "\"" + segment.replace("\r", "\\r").replace("\n", "\\n") + "\"").append(' ');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * The previous implementation of {@link DefaultBorderFormatter#format(String[])}, splitting each
+   * segment into lines with {@link String#split}.
+   */
+  private static String splittingFormat(String[] segments) {
+    int nonNullCount = 0;
+    for (String segment : segments) {
+      if (segment != null) {
+        nonNullCount++;
+      }
+    }
+    if (nonNullCount == 0) {
+      return "";
+    }
+    StringBuilder msgBuilder = new StringBuilder();
+    msgBuilder.append(TOP_BORDER).append(SystemCompat.lineSeparator);
+    int appended = 0;
+    for (String segment : segments) {
+      if (segment == null) {
+        continue;
+      }
+      String[] lines = segment.split(SystemCompat.lineSeparator);
+      for (int i = 0; i < lines.length; i++) {
+        if (i != 0) {
+          msgBuilder.append(SystemCompat.lineSeparator);
+        }
+        msgBuilder.append('║').append(lines[i]);
+      }
+      if (++appended != nonNullCount) {
+        msgBuilder.append(SystemCompat.lineSeparator).append(DIVIDER_BORDER)
+            .append(SystemCompat.lineSeparator);
+      } else {
+        msgBuilder.append(SystemCompat.lineSeparator).append(BOTTOM_BORDER);
+      }
+    }
+    return msgBuilder.toString();
+  }
+}
@@ -0,0 +1,108 @@
+package com.pasc.lib.log.formatter.message.json;
+
+import com.pasc.lib.log.formatter.FormatException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StreamingJsonFormatterTest {
+
+  private final StreamingJsonFormatter formatter = new StreamingJsonFormatter();
+
+  @Test public void object_indentedInOriginalOrder() {
+    assertEquals("{\n"
+            + "    \"z\": 1,\n"
+            + "    \"a\": [\n"
+            + "        true,\n"
+            + "        null,\n"
+            + "        -1.5e3\n"
+            + "    ]\n"
+            + "}",
+        formatter.format(" {\"z\":1, \"a\" : [true,null,\n-1.5e3]} "));
+  }
+
+  @Test public void truncated_formattedAsFarAsItGoes() {
+    assertEquals("{\n    \"a\": [\n        1,\n        2", formatter.format("{\"a\": [1, 2"));
+    assertEquals("[\n    \"abc", formatter.format("[\"abc"));
+    assertEquals("[\n    \"ab\\", formatter.format("[\"ab\\"));
+  }
+
+  @Test public void deeperThanMaxDepth_elided() {
+    StreamingJsonFormatter formatter = new StreamingJsonFormatter(2, 1, Integer.MAX_VALUE);
+    assertEquals("{\n"
+            + "  \"a\": {...},\n"
+            + "  \"b\": [...],\n"
+            + "  \"c\": [],\n"
+            + "  \"d\": 1\n"
+            + "}",
+        formatter.format("{\"a\":{\"x\":{\"y\":1}},\"b\":[1,[2]],\"c\":[],\"d\":1}"));
+
+    // Brackets and escaped quotes in the strings of an elided container are skipped as text.
+    assertEquals("{\n  \"a\": {...},\n  \"b\": 2\n}",
+        formatter.format("{\"a\":{\"s\":\"}] \\\" ]}\"},\"b\":2}"));
+
+    assertEquals("[...]", new StreamingJsonFormatter(4, 0, Integer.MAX_VALUE).format("[1]"));
+  }
+
+  @Test public void longerThanMaxLength_cut() {
+    String json = "{\"key\":\"value\",\"list\":[1,2,3]}";
+    String full = formatter.format(json);
+    String marker = "... (" + json.length() + " chars in total)";
+    for (int maxLength = 0; maxLength < full.length(); maxLength++) {
+      String cut = new StreamingJsonFormatter(4, Integer.MAX_VALUE, maxLength).format(json);
+      assertEquals("maxLength " + maxLength, full.substring(0, maxLength) + marker, cut);
+    }
+    assertEquals(full,
+        new StreamingJsonFormatter(4, Integer.MAX_VALUE, full.length()).format(json));
+  }
+
+  @Test public void hugeToken_notCopiedEntirely() {
+    StringBuilder json = new StringBuilder("[\"");
+    for (int i = 0; i < 100000; i++) {
+      json.append('x');
+    }
+    json.append("\"]");
+    String cut = new StreamingJsonFormatter(4, Integer.MAX_VALUE, 20).format(json.toString());
+    assertEquals("[\n    \"xxxxxxxxxxxxx... (100004 chars in total)", cut);
+  }
+
+  @Test public void escapedQuotesInStrings_keptAsText() {
+    assertEquals("{\n"
+            + "    \"a\": \"say \\\"hi\\\", {x}: [y]\",\n"
+            + "    \"b\": \"\\\\\",\n"
+            + "    \"c\\\"d\": 1\n"
+            + "}",
+        formatter.format("{\"a\":\"say \\\"hi\\\", {x}: [y]\",\"b\":\"\\\\\",\"c\\\"d\":1}"));
+  }
+
+  @Test public void emptyContainers_keptOnOneLine() {
+    assertEquals("{}", formatter.format("{}"));
+    assertEquals("[]", formatter.format(" [ \n ] "));
+    assertEquals("{\n"
+            + "    \"a\": {},\n"
+            + "    \"b\": [],\n"
+            + "    \"c\": [\n"
+            + "        {}\n"
+            + "    ],\n"
+            + "    \"d\": {}\n"
+            + "}",
+        formatter.format("{\"a\":{},\"b\":[ ],\"c\":[{}],\"d\":{ \n }}"));
+  }
+
+  @Test public void notJson_rejected() {
+    String[] notJson = {null, "", "  \n", "plain text", "\"string\"", "12"};
+    for (String json : notJson) {
+      try {
+        formatter.format(json);
+        fail("Formatted " + json);
+      } catch (FormatException e) {
+        // Expected.
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeLimit_rejected() {
+    new StreamingJsonFormatter(4, -1, 100);
+  }
+}
@@ -0,0 +1,113 @@
+package com.pasc.lib.log.formatter.message.throwable;
+
+import com.pasc.lib.log.internal.util.StackTraceUtil;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompactThrowableFormatterTest {
+
+  private static final Pattern HASH_LINE = Pattern.compile("\ttrace #([0-9a-f]{8})\n$");
+
+  @Test public void underFrameCap_sameAsStackTraceString() {
+    RuntimeException tr = new RuntimeException("top", new IOException("cause"));
+    assertEquals(StackTraceUtil.getStackTraceString(tr),
+        new CompactThrowableFormatter().format(tr));
+  }
+
+  @Test public void overFrameCap_omitted() {
+    Exception tr = withFrames(new RuntimeException("deep"), 100, 0);
+    String formatted = new CompactThrowableFormatter(10, false, 0).format(tr);
+    String[] lines = formatted.split("\n");
+    assertEquals(12, lines.length);
+    assertEquals("java.lang.RuntimeException: deep", lines[0]);
+    assertEquals("\tat Frames.m0(Frames.java:0)", lines[1]);
+    assertEquals("\tat Frames.m9(Frames.java:9)", lines[10]);
+    assertEquals("\t... 90 omitted", lines[11]);
+  }
+
+  @Test public void zeroFrames_allOmitted() {
+    Exception tr = withFrames(new RuntimeException("deep"), 3, 0);
+    assertEquals("java.lang.RuntimeException: deep\n\t... 3 omitted\n",
+        new CompactThrowableFormatter(0, false, 0).format(tr));
+  }
+
+  @Test public void hash_ignoresMessageButNotFramesOrCauses() {
+    CompactThrowableFormatter formatter = new CompactThrowableFormatter(64, true, 0);
+    String hash = hashOf(formatter.format(withFrames(new RuntimeException("one"), 5, 0)));
+    assertEquals(hash, hashOf(formatter.format(withFrames(new RuntimeException("two"), 5, 0))));
+    assertFalse(hash.equals(
+        hashOf(formatter.format(withFrames(new RuntimeException("one"), 5, 1)))));
+    assertFalse(hash.equals(hashOf(formatter.format(withFrames(new IllegalStateException("one"),
+        5, 0)))));
+    assertFalse(hash.equals(hashOf(formatter.format(withFrames(
+        new RuntimeException("one", withFrames(new IOException("cause"), 2, 0)), 5, 0)))));
+  }
+
+  @Test public void repeatWithinWindow_folded() {
+    CompactThrowableFormatter formatter = new CompactThrowableFormatter(64, true, 60000);
+    String full = formatter.format(withFrames(new RuntimeException("first"), 5, 0));
+    String hash = hashOf(full);
+    assertTrue(full.startsWith("java.lang.RuntimeException: first\n\tat Frames.m0"));
+
+    assertEquals("java.lang.RuntimeException: second\n\t... same trace #" + hash
+            + " repeated 1 time\n",
+        formatter.format(withFrames(new RuntimeException("second"), 5, 0)));
+    assertEquals("java.lang.RuntimeException: third\n\t... same trace #" + hash
+            + " repeated 2 times\n",
+        formatter.format(withFrames(new RuntimeException("third"), 5, 0)));
+
+    // Another trace is formatted in full.
+    String other = formatter.format(withFrames(new RuntimeException("other"), 5, 1));
+    assertTrue(other.startsWith("java.lang.RuntimeException: other\n\tat Frames.m0"));
+    assertFalse(hash.equals(hashOf(other)));
+  }
+
+  @Test public void repeatAfterWindow_formattedInFull() throws InterruptedException {
+    CompactThrowableFormatter formatter = new CompactThrowableFormatter(64, false, 5);
+    Exception tr = withFrames(new RuntimeException("again"), 5, 0);
+    String full = formatter.format(tr);
+    assertTrue(formatter.format(tr).contains("repeated 1 time"));
+    Thread.sleep(20);
+    assertEquals(full, formatter.format(tr));
+  }
+
+  @Test public void circularCause_formatted() {
+    RuntimeException b = withFrames(new RuntimeException("b"), 2, 0);
+    RuntimeException a = withFrames(new RuntimeException("a", b), 2, 3);
+    b.initCause(a);
+    String formatted = new CompactThrowableFormatter(64, true, 60000).format(a);
+    assertTrue(formatted.contains("[CIRCULAR REFERENCE:java.lang.RuntimeException: a]"));
+    assertTrue(HASH_LINE.matcher(formatted).find());
+  }
+
+  @Test public void nullThrowable_empty() {
+    assertEquals("", new CompactThrowableFormatter(64, true, 60000).format(null));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeMaxFrames_rejected() {
+    new CompactThrowableFormatter(-1, false, 0);
+  }
+
+  private static String hashOf(String formatted) {
+    Matcher matcher = HASH_LINE.matcher(formatted);
+    assertTrue(formatted, matcher.find());
+    return matcher.group(1);
+  }
+
+  /**
+   * Set the frames Frames.m{i}(Frames.java:{i + lineOffset}) to the throwable.
+   */
+  private static <T extends Throwable> T withFrames(T tr, int count, int lineOffset) {
+    StackTraceElement[] trace = new StackTraceElement[count];
+    for (int i = 0; i < count; i++) {
+      trace[i] = new StackTraceElement("Frames", "m" + i, "Frames.java", i + lineOffset);
+    }
+    tr.setStackTrace(trace);
+    return tr;
+  }
+}
@@ -0,0 +1,104 @@
+package com.pasc.lib.log.formatter.message.xml;
+
+import com.pasc.lib.log.formatter.FormatException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StreamingXmlFormatterTest {
+
+  private final StreamingXmlFormatter formatter = new StreamingXmlFormatter();
+
+  @Test public void nested_indented() {
+    assertEquals("<root>\n"
+            + "    <a>1</a>\n"
+            + "    <b>\n"
+            + "        <c></c>\n"
+            + "    </b>\n"
+            + "</root>",
+        formatter.format("<root>\n  <a>1</a>  <b><c></c></b>\n</root>"));
+  }
+
+  @Test public void attributesContainingGreaterThan_keptInTag() {
+    assertEquals("<root>\n"
+            + "    <a x=\"1>2\" y='a>b'>t</a>\n"
+            + "    <b z=\"/>\"/>\n"
+            + "</root>",
+        formatter.format("<root><a x=\"1>2\" y='a>b'>t</a><b z=\"/>\"/></root>"));
+  }
+
+  @Test public void comments_keptAsTheyAre() {
+    assertEquals("<root>\n"
+            + "    <!-- a <b> c -->\n"
+            + "    <a/>\n"
+            + "</root>",
+        formatter.format("<root><!-- a <b> c --><a/></root>"));
+  }
+
+  @Test public void cdata_keptAsItIs() {
+    assertEquals("<root>\n"
+            + "    <![CDATA[<x> & ]] >]]>\n"
+            + "</root>",
+        formatter.format("<root><![CDATA[<x> & ]] >]]></root>"));
+  }
+
+  @Test public void mixedContent_textInLinesOfItsOwn() {
+    assertEquals("<p>\n"
+            + "    Hello\n"
+            + "    <b>big</b>\n"
+            + "    world\n"
+            + "</p>",
+        formatter.format("<p>Hello <b>big</b> world </p>"));
+  }
+
+  @Test public void selfClosingTags_notIndenting() {
+    assertEquals("<a/>", formatter.format("<a/>"));
+    assertEquals("<root>\n"
+            + "    <a/>\n"
+            + "    <b x=\"1\" />\n"
+            + "    <c>t</c>\n"
+            + "</root>",
+        formatter.format("<root><a/><b x=\"1\" /><c>t</c></root>"));
+  }
+
+  @Test public void declarationAndDoctype_notIndenting() {
+    assertEquals("<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE r [<!ELEMENT r ANY>]>\n"
+            + "<r>t</r>",
+        formatter.format("<?xml version=\"1.0\"?><!DOCTYPE r [<!ELEMENT r ANY>]><r>t</r>"));
+  }
+
+  @Test public void truncated_formattedAsFarAsItGoes() {
+    assertEquals("<root>\n    <a>\n        te", formatter.format("<root><a>te"));
+    assertEquals("<root>\n    <a x=\"1>", formatter.format("<root><a x=\"1>"));
+    assertEquals("<root>\n    <!-- never", formatter.format("<root><!-- never"));
+  }
+
+  @Test public void longerThanMaxLength_cut() {
+    String xml = "<root><a x=\"1\">text</a><!-- c --><b/></root>";
+    String full = formatter.format(xml);
+    String marker = "... (" + xml.length() + " chars in total)";
+    for (int maxLength = 0; maxLength < full.length(); maxLength++) {
+      String cut = new StreamingXmlFormatter(4, maxLength).format(xml);
+      assertEquals("maxLength " + maxLength, full.substring(0, maxLength) + marker, cut);
+    }
+    assertEquals(full, new StreamingXmlFormatter(4, full.length()).format(xml));
+  }
+
+  @Test public void notXml_rejected() {
+    String[] notXml = {null, "", " \n", "plain text", "{\"a\":1}"};
+    for (String xml : notXml) {
+      try {
+        formatter.format(xml);
+        fail("Formatted " + xml);
+      } catch (FormatException e) {
+        // Expected.
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeLimit_rejected() {
+    new StreamingXmlFormatter(4, -1);
+  }
+}
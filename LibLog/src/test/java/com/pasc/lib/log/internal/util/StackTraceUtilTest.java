@@ -0,0 +1,129 @@
+package com.pasc.lib.log.internal.util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.UnknownHostException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StackTraceUtilTest {
+
+  @Test public void single_sameAsPrintStackTrace() {
+    assertSameAsPrintStackTrace(new IllegalStateException("single"));
+  }
+
+  @Test public void nestedCauses_sameAsPrintStackTrace() {
+    assertSameAsPrintStackTrace(outer());
+  }
+
+  @Test public void suppressed_sameAsPrintStackTrace() {
+    Exception tr = new Exception("with suppressed");
+    tr.addSuppressed(new IOException("suppressed 1"));
+    Exception suppressed = new IllegalArgumentException("suppressed 2", middle());
+    suppressed.addSuppressed(new RuntimeException("suppressed of suppressed"));
+    tr.addSuppressed(suppressed);
+    assertSameAsPrintStackTrace(tr);
+  }
+
+  @Test public void causeWithSuppressed_sameAsPrintStackTrace() {
+    Exception cause = middle();
+    cause.addSuppressed(new IOException("suppressed of cause"));
+    assertSameAsPrintStackTrace(new RuntimeException("wrapper", cause));
+  }
+
+  @Test public void syntheticTraces_framesInCommonFolded() {
+    Exception cause = withTrace(new IOException("cause"), "x", "c", "d");
+    Exception tr = withTrace(new RuntimeException("top", cause), "a", "b", "c", "d");
+    assertSameAsPrintStackTrace(tr);
+    assertEquals("java.lang.RuntimeException: top\n"
+            + "\tat Frames.a(Frames.java:1)\n"
+            + "\tat Frames.b(Frames.java:1)\n"
+            + "\tat Frames.c(Frames.java:1)\n"
+            + "\tat Frames.d(Frames.java:1)\n"
+            + "Caused by: java.io.IOException: cause\n"
+            + "\tat Frames.x(Frames.java:1)\n"
+            + "\t... 2 more\n",
+        StackTraceUtil.getStackTraceString(tr));
+  }
+
+  /**
+   * The circular reference is checked against the format of Android and Java 8, later JDKs add a
+   * space after the colon.
+   */
+  @Test public void circularCause_marked() {
+    RuntimeException b = withTrace(new RuntimeException("b"), "g", "f2");
+    RuntimeException a = withTrace(new RuntimeException("a", b), "f1", "f2");
+    b.initCause(a);
+    assertEquals("java.lang.RuntimeException: a\n"
+            + "\tat Frames.f1(Frames.java:1)\n"
+            + "\tat Frames.f2(Frames.java:1)\n"
+            + "Caused by: java.lang.RuntimeException: b\n"
+            + "\tat Frames.g(Frames.java:1)\n"
+            + "\t... 1 more\n"
+            + "\t[CIRCULAR REFERENCE:java.lang.RuntimeException: a]\n",
+        StackTraceUtil.getStackTraceString(a));
+  }
+
+  @Test public void maxFrames_sharedWithCausesAndOmitted() {
+    Exception cause = withTrace(new IOException("cause"), "x", "y", "z", "c");
+    Exception tr = withTrace(new RuntimeException("top", cause), "a", "b", "c");
+    StringBuilder sb = new StringBuilder();
+    StackTraceUtil.appendStackTrace(tr, sb, 4);
+    assertEquals("java.lang.RuntimeException: top\n"
+            + "\tat Frames.a(Frames.java:1)\n"
+            + "\tat Frames.b(Frames.java:1)\n"
+            + "\tat Frames.c(Frames.java:1)\n"
+            + "Caused by: java.io.IOException: cause\n"
+            + "\tat Frames.x(Frames.java:1)\n"
+            + "\t... 2 omitted\n"
+            + "\t... 1 more\n",
+        sb.toString());
+  }
+
+  @Test public void unknownHostInChain_empty() {
+    assertEquals("", StackTraceUtil.getStackTraceString(
+        new RuntimeException(new IOException(new UnknownHostException("host")))));
+    assertEquals("", StackTraceUtil.getStackTraceString(null));
+  }
+
+  private static void assertSameAsPrintStackTrace(Throwable tr) {
+    StringWriter writer = new StringWriter();
+    PrintWriter printWriter = new PrintWriter(writer);
+    tr.printStackTrace(printWriter);
+    printWriter.flush();
+    String expected = writer.toString().replace(System.getProperty("line.separator"), "\n");
+    assertEquals(expected, StackTraceUtil.getStackTraceString(tr));
+  }
+
+  private static <T extends Throwable> T withTrace(T tr, String... methods) {
+    StackTraceElement[] trace = new StackTraceElement[methods.length];
+    for (int i = 0; i < methods.length; i++) {
+      trace[i] = new StackTraceElement("Frames", methods[i], "Frames.java", 1);
+    }
+    tr.setStackTrace(trace);
+    return tr;
+  }
+
+  private static Exception outer() {
+    try {
+      throw middle();
+    } catch (Exception e) {
+      return new RuntimeException("outer", e);
+    }
+  }
+
+  private static Exception middle() {
+    try {
+      inner();
+      return null;
+    } catch (IllegalStateException e) {
+      return new IOException("middle", e);
+    }
+  }
+
+  private static void inner() {
+    throw new IllegalStateException("inner");
+  }
+}
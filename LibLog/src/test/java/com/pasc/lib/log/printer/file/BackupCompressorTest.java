@@ -0,0 +1,92 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogUtils;
+import com.pasc.lib.log.PascLog;
+import com.pasc.lib.log.printer.file.backup.NeverBackupStrategy;
+import com.pasc.lib.log.printer.file.naming.ChangelessFileNameGenerator;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class BackupCompressorTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Before public void setUp() {
+    if (PascLog.rwl == null) {
+      PascLog.rwl = new ReentrantReadWriteLock();
+    }
+  }
+
+  @Test public void build_compressesLeftoversWithoutAnyLog() throws Exception {
+    write(new File(folder.getRoot(), "log1.bak"), "left by a crashed run");
+    File temp = new File(folder.getRoot(), "log0.bak.gz.tmp");
+    write(temp, "half written");
+
+    new FilePrinter.Builder(folder.getRoot().getPath())
+        .fileNameGenerator(new ChangelessFileNameGenerator("log"))
+        .backupStrategy(new NeverBackupStrategy())
+        .compressBackup(true)
+        .build();
+
+    File compressed = awaitCompressed(new File(folder.getRoot(), "log1.bak"));
+    assertFalse(temp.exists());
+    assertEquals("left by a crashed run", readFirstLine(compressed));
+  }
+
+  @Test public void compress_replacesBackupWithGzip() throws Exception {
+    RetentionSweeper sweeper = new RetentionSweeper(0, 0, 0, 0);
+    BackupCompressor compressor = new BackupCompressor(folder.getRoot().getPath(), sweeper);
+    compressor.start();
+    compressor.start();
+
+    write(new File(folder.getRoot(), "log2.bak"), "rotated");
+    compressor.compress("log2.bak");
+
+    File compressed = awaitCompressed(new File(folder.getRoot(), "log2.bak"));
+    assertEquals("rotated", readFirstLine(compressed));
+  }
+
+  private static void write(File file, String line) throws IOException {
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write((line + "\n").getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Wait for the backup file to be deleted, which happens once it is completely compressed.
+   *
+   * @return the compressed file
+   */
+  private static File awaitCompressed(File backup) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (backup.exists()) {
+      assertTrue(backup + " not compressed in time", System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+    File compressed = new File(backup.getPath() + BackupCompressor.COMPRESSED_SUFFIX);
+    assertTrue(compressed.exists());
+    return compressed;
+  }
+
+  private static String readFirstLine(File file) throws IOException {
+    BufferedReader reader = LogUtils.openLogReader(file);
+    try {
+      return reader.readLine();
+    } finally {
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.printer.file.overflow.BlockOverflowPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoundedLogQueueTest {
+
+  private static final long TIMEOUT_MILLIS = 10000;
+
+  @Test public void blockedProducers_checkRoomForTheirOwnLogs() throws Exception {
+    // 100 bytes, 50 chars.
+    final BoundedLogQueue queue = new BoundedLogQueue(0, 100, new BlockOverflowPolicy(TIMEOUT_MILLIS));
+    put(queue, chars(20));
+    put(queue, chars(25));
+
+    // 90 + 90 bytes, blocked until the queue is empty.
+    Thread large = startProducer(queue, chars(45));
+    awaitBlocked(large);
+    // 90 + 20 bytes, blocked until the first log is taken.
+    Thread small = startProducer(queue, chars(10));
+    awaitBlocked(small);
+
+    // 50 bytes left, room for the small log only.
+    assertEquals(20, queue.take().msg().length());
+    small.join(TIMEOUT_MILLIS);
+    assertFalse(small.isAlive());
+    assertTrue(large.isAlive());
+
+    List<LogItem> logs = new ArrayList<>();
+    queue.drainTo(logs, Integer.MAX_VALUE);
+    assertEquals(2, logs.size());
+    assertEquals(25, logs.get(0).msg().length());
+    assertEquals(10, logs.get(1).msg().length());
+
+    large.join(TIMEOUT_MILLIS);
+    assertFalse(large.isAlive());
+    assertEquals(45, queue.take().msg().length());
+    assertEquals(0, queue.getDroppedCount());
+  }
+
+  private static void put(BoundedLogQueue queue, String msg) throws InterruptedException {
+    queue.put(LogLevel.INFO, "TAG", msg, null, System.currentTimeMillis(), Thread.currentThread(),
+        0);
+  }
+
+  private static Thread startProducer(final BoundedLogQueue queue, final String msg) {
+    Thread thread = new Thread() {
+      @Override public void run() {
+        try {
+          put(queue, msg);
+        } catch (InterruptedException e) {
+          // Test over.
+        }
+      }
+    };
+    thread.start();
+    return thread;
+  }
+
+  private static void awaitBlocked(Thread thread) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (thread.getState() != Thread.State.TIMED_WAITING) {
+      assertTrue("Producer not blocked", System.currentTimeMillis() < deadline);
+      Thread.sleep(1);
+    }
+  }
+
+  private static String chars(int count) {
+    StringBuilder sb = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      sb.append('x');
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,92 @@
+package com.pasc.lib.log.printer.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class DeflateLogOutputTest {
+
+  private static final String FIRST = "I/TAG: 日志 ✓ 😀 café\n";
+  private static final String SECOND = "W/TAG: второй кадр\n";
+  private static final String THIRD = "E/TAG: 第三帧 after reopen\n";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test public void roundTrip_nonAscii() throws IOException {
+    File file = folder.newFile("log");
+    DeflateLogOutput output = DeflateLogOutput.open(file);
+    output.write(FIRST);
+    output.write(SECOND);
+    output.close();
+
+    // A new deflate stream is started every time the file is opened.
+    output = DeflateLogOutput.open(file);
+    output.write(THIRD);
+    output.close();
+
+    assertTrue(DeflateLogOutput.isDeflateLog(file));
+    assertEquals(FIRST + SECOND + THIRD, read(file));
+  }
+
+  @Test public void truncatedFinalFrame_readUpToLastCompleteFrame() throws IOException {
+    File file = folder.newFile("log");
+    DeflateLogOutput output = DeflateLogOutput.open(file);
+    output.write(FIRST);
+    long complete = file.length();
+    output.write(SECOND);
+    // Crash before closing, the second frame is torn.
+    truncate(file, file.length() - 3);
+    assertTrue(file.length() > complete);
+
+    assertEquals(FIRST, read(file));
+
+    // The torn frame is cut when opened again, logs appended after it are readable.
+    output = DeflateLogOutput.open(file);
+    output.write(THIRD);
+    output.close();
+    assertEquals(FIRST + THIRD, read(file));
+  }
+
+  @Test public void truncatedFrameHeader_readUpToLastCompleteFrame() throws IOException {
+    File file = folder.newFile("log");
+    DeflateLogOutput output = DeflateLogOutput.open(file);
+    output.write(FIRST);
+    long complete = file.length();
+    output.write(SECOND);
+    truncate(file, complete + 2);
+
+    assertEquals(FIRST, read(file));
+  }
+
+  private static void truncate(File file, long length) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(length);
+    } finally {
+      raf.close();
+    }
+  }
+
+  private static String read(File file) throws IOException {
+    InputStream in = new DeflateLogInputStream(new FileInputStream(file));
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[7];
+      int count;
+      while ((count = in.read(buffer, 0, buffer.length)) != -1) {
+        out.write(buffer, 0, count);
+      }
+      return out.toString("UTF-8");
+    } finally {
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.PascLog;
+import com.pasc.lib.log.internal.SystemCompat;
+import com.pasc.lib.log.printer.file.backup.NeverBackupStrategy;
+import com.pasc.lib.log.printer.file.naming.ChangelessFileNameGenerator;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measure the bytes allocated per log by the printing thread and by the worker of
+ * {@link FilePrinter} in steady state, with the pooled queues. The logs are printed in bursts
+ * smaller than the queue, so the printing thread never waits for room, which may allocate.
+ */
+public class FilePrinterAllocationTest {
+
+  private static final String TAG = "TAG";
+  private static final String MSG = "a message of a steady length";
+
+  private static final int QUEUE_SIZE = 1024;
+  private static final int BURST = QUEUE_SIZE / 2;
+  private static final int WARM_UP_BURSTS = 40;
+  private static final int MEASURED_BURSTS = 100;
+
+  /**
+   * The bytes per log allowed for the printing thread, allocations happening once in a while,
+   * like by the JIT, are tolerated.
+   */
+  private static final double MAX_CALLER_BYTES_PER_LOG = 1;
+
+  /**
+   * The bytes per log allowed for the worker, the file checks and waits done once per batch
+   * allocate a bit, but far less than a string per log.
+   */
+  private static final double MAX_WORKER_BYTES_PER_LOG = 32;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private com.sun.management.ThreadMXBean threadMXBean;
+
+  @Before public void setUp() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    threadMXBean = (com.sun.management.ThreadMXBean) bean;
+    Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    if (PascLog.rwl == null) {
+      PascLog.rwl = new ReentrantReadWriteLock();
+    }
+  }
+
+  @Test public void ringBuffer_steadyState_noAllocationPerLog() throws Exception {
+    assertSteadyStateAllocation(builder().ringBuffer(QUEUE_SIZE));
+  }
+
+  @Test public void boundedQueue_steadyState_noAllocationPerLog() throws Exception {
+    assertSteadyStateAllocation(builder().queueCapacity(QUEUE_SIZE));
+  }
+
+  private FilePrinter.Builder builder() {
+    return new FilePrinter.Builder(folder.getRoot().getPath())
+        .fileNameGenerator(new ChangelessFileNameGenerator("log"))
+        .backupStrategy(new NeverBackupStrategy())
+        .batchSize(64);
+  }
+
+  private void assertSteadyStateAllocation(FilePrinter.Builder builder) throws Exception {
+    Set<Thread> workersBefore = findWorkers();
+    FilePrinter printer = builder.build();
+    File file = new File(folder.getRoot(), "log");
+    int lineLength = Long.toString(System.currentTimeMillis()).length()
+        + ("|" + LogLevel.getShortLevelName(LogLevel.DEBUG) + "|" + TAG + "|" + MSG).length()
+        + SystemCompat.lineSeparator.length();
+
+    long logs = 0;
+    for (int i = 0; i < WARM_UP_BURSTS; i++) {
+      logs += printBurst(printer);
+      awaitWritten(file, logs * lineLength);
+    }
+    Set<Thread> workers = findWorkers();
+    workers.removeAll(workersBefore);
+    assertEquals(1, workers.size());
+    long workerId = workers.iterator().next().getId();
+
+    long callerBytes = 0;
+    long workerBytes = threadMXBean.getThreadAllocatedBytes(workerId);
+    for (int i = 0; i < MEASURED_BURSTS; i++) {
+      long bytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      logs += printBurst(printer);
+      callerBytes += threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytes;
+      awaitWritten(file, logs * lineLength);
+    }
+    workerBytes = threadMXBean.getThreadAllocatedBytes(workerId) - workerBytes;
+
+    double measured = MEASURED_BURSTS * BURST;
+    assertTrue("Printing thread allocated " + callerBytes / measured + " B/log",
+        callerBytes / measured <= MAX_CALLER_BYTES_PER_LOG);
+    assertTrue("Worker allocated " + workerBytes / measured + " B/log",
+        workerBytes / measured <= MAX_WORKER_BYTES_PER_LOG);
+  }
+
+  private static int printBurst(FilePrinter printer) {
+    for (int i = 0; i < BURST; i++) {
+      printer.println(LogLevel.DEBUG, TAG, MSG);
+    }
+    return BURST;
+  }
+
+  private static void awaitWritten(File file, long length) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (file.length() < length) {
+      assertTrue("Logs not written in time", System.currentTimeMillis() < deadline);
+      Thread.sleep(1);
+    }
+    assertEquals(length, file.length());
+  }
+
+  /**
+   * Find the worker threads of all file printers.
+   */
+  static Set<Thread> findWorkers() {
+    Set<Thread> workers = new HashSet<>();
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      for (StackTraceElement element : thread.getStackTrace()) {
+        if (element.getClassName().equals(FilePrinter.class.getName() + "$Worker")) {
+          workers.add(thread);
+          break;
+        }
+      }
+    }
+    return workers;
+  }
+}
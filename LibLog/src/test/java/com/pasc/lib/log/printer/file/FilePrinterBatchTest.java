@@ -0,0 +1,171 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.PascLog;
+import com.pasc.lib.log.flattener.PatternFlattener;
+import com.pasc.lib.log.printer.file.backup.NeverBackupStrategy;
+import com.pasc.lib.log.printer.file.naming.ChangelessFileNameGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class FilePrinterBatchTest {
+
+  /**
+   * 40 chars.
+   */
+  private static final String MSG = "a message of forty chars, for the bytes";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Before public void setUp() {
+    if (PascLog.rwl == null) {
+      PascLog.rwl = new ReentrantReadWriteLock();
+    }
+  }
+
+  @Test public void queuedLogs_splitByBatchSize() throws Exception {
+    BatchRecordingPrinter printer = holdWorker(builder().batchSize(4));
+    printQueued(printer, 10);
+
+    assertEquals(Arrays.asList(4, 4, 2), printer.awaitBatches(10));
+  }
+
+  @Test public void queuedLogs_splitByBatchBytes_crossingLogIncluded() throws Exception {
+    BatchRecordingPrinter printer = holdWorker(builder().batchSize(64).batchBytes(100));
+    printQueued(printer, 10);
+
+    assertEquals(Arrays.asList(3, 3, 3, 1), printer.awaitBatches(10));
+  }
+
+  @Test public void noLatency_writtenRightAway() throws Exception {
+    BatchRecordingPrinter printer = new BatchRecordingPrinter(builder().batchSize(64), false);
+    printer.println(LogLevel.INFO, "TAG", MSG);
+
+    assertEquals(Arrays.asList(1), printer.awaitBatches(1));
+  }
+
+  @Test public void latency_waitsForMoreLogs() throws Exception {
+    BatchRecordingPrinter printer =
+        new BatchRecordingPrinter(builder().batchSize(64).batchLatency(300), false);
+    long start = System.currentTimeMillis();
+    printer.println(LogLevel.INFO, "TAG", MSG);
+    Thread.sleep(50);
+    printer.println(LogLevel.INFO, "TAG", MSG);
+
+    assertEquals(Arrays.asList(2), printer.awaitBatches(2));
+    assertTrue(printer.lastBatchTime - start >= 300);
+  }
+
+  @Test public void latency_fullBatchWrittenBeforeDeadline() throws Exception {
+    BatchRecordingPrinter printer =
+        new BatchRecordingPrinter(builder().batchSize(2).batchLatency(10000), false);
+    long start = System.currentTimeMillis();
+    printer.println(LogLevel.INFO, "TAG", MSG);
+    printer.println(LogLevel.INFO, "TAG", MSG);
+
+    assertEquals(Arrays.asList(2), printer.awaitBatches(2));
+    assertTrue(printer.lastBatchTime - start < 10000);
+  }
+
+  private FilePrinter.Builder builder() {
+    return new FilePrinter.Builder(folder.getRoot().getPath())
+        .fileNameGenerator(new ChangelessFileNameGenerator("log"))
+        .backupStrategy(new NeverBackupStrategy())
+        .logFlattener(new PatternFlattener("{m}"))
+        .batchLatency(0);
+  }
+
+  /**
+   * Create a printer whose worker is held in the batch of a first log, so the next logs queue up.
+   */
+  private static BatchRecordingPrinter holdWorker(FilePrinter.Builder builder) throws Exception {
+    BatchRecordingPrinter printer = new BatchRecordingPrinter(builder, true);
+    printer.println(LogLevel.INFO, "TAG", "held");
+    printer.holding.await();
+    return printer;
+  }
+
+  /**
+   * Print the logs while the worker is held, then release the worker.
+   */
+  private static void printQueued(BatchRecordingPrinter printer, int count) {
+    for (int i = 0; i < count; i++) {
+      printer.println(LogLevel.INFO, "TAG", MSG);
+    }
+    printer.release.countDown();
+  }
+
+  /**
+   * A file printer recording the size of each batch written.
+   */
+  private static class BatchRecordingPrinter extends FilePrinter {
+
+    final CountDownLatch holding = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    private final boolean held;
+    private final List<Integer> batches = new ArrayList<>();
+    volatile long lastBatchTime;
+
+    /**
+     * @param held whether to hold the worker in the first batch until released, the first batch
+     *             is not recorded then
+     */
+    BatchRecordingPrinter(Builder builder, boolean held) {
+      // Built once so the builder fills the defaults.
+      super(fill(builder));
+      this.held = held;
+    }
+
+    private static Builder fill(Builder builder) {
+      builder.build();
+      return builder;
+    }
+
+    @Override void doPrintln(List<LogItem> logs) {
+      if (held && holding.getCount() > 0) {
+        holding.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+      } else {
+        synchronized (batches) {
+          batches.add(logs.size());
+        }
+        lastBatchTime = System.currentTimeMillis();
+      }
+      super.doPrintln(logs);
+    }
+
+    /**
+     * Wait until the count of logs are written, then return the sizes of the batches.
+     */
+    List<Integer> awaitBatches(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 10000;
+      while (true) {
+        synchronized (batches) {
+          int written = 0;
+          for (int size : batches) {
+            written += size;
+          }
+          if (written >= count) {
+            return new ArrayList<>(batches);
+          }
+        }
+        assertTrue("Logs not written in time", System.currentTimeMillis() < deadline);
+        Thread.sleep(5);
+      }
+    }
+  }
+}
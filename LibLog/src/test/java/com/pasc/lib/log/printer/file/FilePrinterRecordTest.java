@@ -0,0 +1,145 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.MessageSupplier;
+import com.pasc.lib.log.PascLog;
+import com.pasc.lib.log.flattener.LogRecord;
+import com.pasc.lib.log.flattener.RecordFlattener;
+import com.pasc.lib.log.printer.file.backup.NeverBackupStrategy;
+import com.pasc.lib.log.printer.file.naming.ChangelessFileNameGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * The worker is held while the logs are printed, so a record taking the time or the thread when
+ * flattened instead of when printed would be caught.
+ */
+public class FilePrinterRecordTest {
+
+  private static final long HOLD_TIME = 100;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Before public void setUp() {
+    if (PascLog.rwl == null) {
+      PascLog.rwl = new ReentrantReadWriteLock();
+    }
+  }
+
+  @Test public void linkedQueue_recordCapturedAtPrintTime() throws Exception {
+    assertCapturedAtPrintTime(builder());
+  }
+
+  @Test public void boundedQueue_recordCapturedAtPrintTime() throws Exception {
+    assertCapturedAtPrintTime(builder().queueCapacity(16));
+  }
+
+  @Test public void ringBuffer_recordCapturedAtPrintTime() throws Exception {
+    assertCapturedAtPrintTime(builder().ringBuffer(16));
+  }
+
+  private FilePrinter.Builder builder() {
+    return new FilePrinter.Builder(folder.getRoot().getPath())
+        .fileNameGenerator(new ChangelessFileNameGenerator("log"))
+        .backupStrategy(new NeverBackupStrategy());
+  }
+
+  private void assertCapturedAtPrintTime(FilePrinter.Builder builder) throws Exception {
+    final RecordingFlattener flattener = new RecordingFlattener();
+    final FilePrinter printer = builder.logFlattener(flattener).build();
+    printer.println(LogLevel.INFO, "TAG", "held");
+    flattener.holding.await();
+
+    final long[] printTimes = new long[2];
+    Thread producer = new Thread("producer") {
+      @Override public void run() {
+        printTimes[0] = System.currentTimeMillis();
+        printer.println(LogLevel.DEBUG, "TAG", "built");
+        printer.println(LogLevel.WARN, "TAG", new MessageSupplier() {
+          @Override public String get() {
+            return "deferred";
+          }
+        });
+        printTimes[1] = System.currentTimeMillis();
+      }
+    };
+    producer.start();
+    producer.join();
+    Thread.sleep(HOLD_TIME);
+    flattener.release.countDown();
+
+    List<LogRecord> records = flattener.awaitRecords(3);
+    assertRecord(records.get(1), LogLevel.DEBUG, "built", producer, printTimes);
+    assertRecord(records.get(2), LogLevel.WARN, "deferred", producer, printTimes);
+    assertTrue(records.get(1).sequence < records.get(2).sequence);
+  }
+
+  private static void assertRecord(LogRecord record, int level, String msg, Thread thread,
+                                   long[] printTimes) {
+    assertEquals(level, record.level);
+    assertEquals("TAG", record.tag);
+    assertEquals(msg, record.msg);
+    assertEquals(thread.getId(), record.threadId);
+    assertEquals(thread.getName(), record.threadName);
+    assertTrue(record.timestamp >= printTimes[0] && record.timestamp <= printTimes[1]);
+  }
+
+  /**
+   * Copy the records when flattened, holding the worker in the first one until released.
+   */
+  private static class RecordingFlattener implements RecordFlattener {
+
+    final CountDownLatch holding = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    private final List<LogRecord> records = new ArrayList<>();
+
+    @Override public void flatten(LogRecord record, StringBuilder buffer) {
+      if (holding.getCount() > 0) {
+        holding.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+      }
+      // The records are recycled by the queue once written.
+      LogRecord copy = new LogRecord();
+      copy.level = record.level;
+      copy.tag = record.tag;
+      copy.msg = record.msg;
+      copy.timestamp = record.timestamp;
+      copy.threadId = record.threadId;
+      copy.threadName = record.threadName;
+      copy.sequence = record.sequence;
+      synchronized (records) {
+        records.add(copy);
+      }
+      buffer.append(record.msg);
+    }
+
+    @Override public CharSequence flatten(int logLevel, String tag, String message) {
+      throw new UnsupportedOperationException();
+    }
+
+    List<LogRecord> awaitRecords(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 10000;
+      while (true) {
+        synchronized (records) {
+          if (records.size() >= count) {
+            return new ArrayList<>(records);
+          }
+        }
+        assertTrue("Logs not flattened in time", System.currentTimeMillis() < deadline);
+        Thread.sleep(5);
+      }
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.PascLog;
+import com.pasc.lib.log.flattener.LogRecord;
+import com.pasc.lib.log.flattener.PatternFlattener;
+import com.pasc.lib.log.flattener.RecordFlattener;
+import com.pasc.lib.log.printer.file.backup.NeverBackupStrategy;
+import com.pasc.lib.log.printer.file.naming.ChangelessFileNameGenerator;
+import com.pasc.lib.log.printer.file.overflow.DropNewestOverflowPolicy;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class FilePrinterWorkerTest {
+
+  private static final int ROUNDS = 10;
+  private static final int PRODUCERS = 16;
+  private static final int LOGS_PER_PRODUCER = 50;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Before public void setUp() {
+    if (PascLog.rwl == null) {
+      PascLog.rwl = new ReentrantReadWriteLock();
+    }
+  }
+
+  @Test public void concurrentFirstLogs_startOneWorker() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      Set<Thread> workersBefore = FilePrinterAllocationTest.findWorkers();
+      File dir = folder.newFolder();
+      final FilePrinter printer = new FilePrinter.Builder(dir.getPath())
+          .fileNameGenerator(new ChangelessFileNameGenerator("log"))
+          .backupStrategy(new NeverBackupStrategy())
+          .logFlattener(new PatternFlattener("{m}"))
+          .ringBuffer(64)
+          .build();
+
+      final CountDownLatch start = new CountDownLatch(1);
+      Thread[] producers = new Thread[PRODUCERS];
+      for (int p = 0; p < PRODUCERS; p++) {
+        final int producer = p;
+        producers[p] = new Thread() {
+          @Override public void run() {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            for (int i = 0; i < LOGS_PER_PRODUCER; i++) {
+              printer.println(LogLevel.INFO, "TAG", producer + " " + i);
+            }
+          }
+        };
+        producers[p].start();
+      }
+      start.countDown();
+      for (Thread producer : producers) {
+        producer.join();
+      }
+
+      List<String> lines = awaitLines(new File(dir, "log"), PRODUCERS * LOGS_PER_PRODUCER);
+      Set<Thread> workers = FilePrinterAllocationTest.findWorkers();
+      workers.removeAll(workersBefore);
+      assertEquals(1, workers.size());
+
+      int[] next = new int[PRODUCERS];
+      for (String line : lines) {
+        String[] parts = line.split(" ");
+        int producer = Integer.parseInt(parts[0]);
+        assertEquals(line, next[producer]++, Integer.parseInt(parts[1]));
+      }
+    }
+  }
+
+  @Test public void startTwice_startsOneWorker() throws Exception {
+    Set<Thread> workersBefore = FilePrinterAllocationTest.findWorkers();
+    FilePrinter printer = new FilePrinter.Builder(folder.getRoot().getPath())
+        .ringBuffer(64)
+        .build();
+    // Both callers saw the worker not started yet.
+    printer.worker.start();
+    printer.worker.start();
+    Thread.sleep(20);
+
+    Set<Thread> workers = FilePrinterAllocationTest.findWorkers();
+    workers.removeAll(workersBefore);
+    assertEquals(1, workers.size());
+  }
+
+  @Test public void droppedLogs_noticeInTimestampOrder() throws Exception {
+    final int printed = 20;
+    final CountDownLatch flattening = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    FilePrinter printer = new FilePrinter.Builder(folder.getRoot().getPath())
+        .fileNameGenerator(new ChangelessFileNameGenerator("log"))
+        .backupStrategy(new NeverBackupStrategy())
+        .logFlattener(new RecordFlattener() {
+          @Override public void flatten(LogRecord record, StringBuilder buffer) {
+            if (flattening.getCount() > 0) {
+              // Hold the worker so the queue gets full.
+              flattening.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                throw new AssertionError(e);
+              }
+            }
+            buffer.append(record.timestamp).append(' ').append(record.msg);
+          }
+
+          @Override public CharSequence flatten(int logLevel, String tag, String message) {
+            throw new UnsupportedOperationException();
+          }
+        })
+        .queueCapacity(4)
+        .overflowPolicy(new DropNewestOverflowPolicy())
+        .batchLatency(0)
+        .build();
+
+    printer.println(LogLevel.INFO, "TAG", "log 0");
+    flattening.await();
+    for (int i = 1; i <= printed; i++) {
+      Thread.sleep(1);
+      printer.println(LogLevel.INFO, "TAG", "log " + i);
+    }
+    release.countDown();
+
+    List<String> lines = awaitLines(new File(folder.getRoot(), "log"), 6);
+    String notice = printed - 4 + " logs dropped because the log queue is full";
+    long lastTimestamp = 0;
+    int lastLog = -1;
+    int notices = 0;
+    for (String line : lines) {
+      String[] parts = line.split(" ", 2);
+      long timestamp = Long.parseLong(parts[0]);
+      assertTrue(line, timestamp >= lastTimestamp);
+      lastTimestamp = timestamp;
+      if (parts[1].equals(notice)) {
+        // After the log it takes the timestamp of.
+        assertTrue(lastLog >= 0);
+        notices++;
+      } else {
+        int log = Integer.parseInt(parts[1].substring("log ".length()));
+        assertTrue(line, log > lastLog);
+        lastLog = log;
+      }
+    }
+    assertEquals(1, notices);
+  }
+
+  /**
+   * Wait until the file has the count of lines, and a bit more to catch logs written twice.
+   */
+  static List<String> awaitLines(File file, int count) throws Exception {
+    long deadline = System.currentTimeMillis() + 10000;
+    List<String> lines = readLines(file);
+    while (lines.size() < count) {
+      assertTrue("Logs not written in time", System.currentTimeMillis() < deadline);
+      Thread.sleep(5);
+      lines = readLines(file);
+    }
+    Thread.sleep(20);
+    lines = readLines(file);
+    assertEquals(count, lines.size());
+    return lines;
+  }
+
+  static List<String> readLines(File file) throws IOException {
+    List<String> lines = new ArrayList<>();
+    if (!file.exists()) {
+      return lines;
+    }
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    } finally {
+      reader.close();
+    }
+    return lines;
+  }
+}
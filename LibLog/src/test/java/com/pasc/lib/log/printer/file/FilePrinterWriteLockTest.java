@@ -0,0 +1,94 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.MessageSupplier;
+import com.pasc.lib.log.PascLog;
+import com.pasc.lib.log.flattener.LogRecord;
+import com.pasc.lib.log.flattener.RecordFlattener;
+import com.pasc.lib.log.printer.file.backup.NeverBackupStrategy;
+import com.pasc.lib.log.printer.file.naming.ChangelessFileNameGenerator;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * The messages are built and flattened before the write lock of the log files is taken, so a slow
+ * message or flattener never blocks the readers of the log files, such as an upload.
+ */
+public class FilePrinterWriteLockTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Before public void setUp() {
+    if (PascLog.rwl == null) {
+      PascLog.rwl = new ReentrantReadWriteLock();
+    }
+  }
+
+  @Test public void flattening_writeLockNotHeld() throws Exception {
+    final CountDownLatch flattening = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final boolean[] lockedWhenBuilt = new boolean[1];
+    final boolean[] lockedWhenFlattened = new boolean[1];
+    final FilePrinter printer = new FilePrinter.Builder(folder.getRoot().getPath())
+        .fileNameGenerator(new ChangelessFileNameGenerator("log"))
+        .backupStrategy(new NeverBackupStrategy())
+        .logFlattener(new RecordFlattener() {
+          @Override public void flatten(LogRecord record, StringBuilder buffer) {
+            lockedWhenFlattened[0] = PascLog.rwl.isWriteLockedByCurrentThread();
+            flattening.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              throw new AssertionError(e);
+            }
+            buffer.append(record.msg);
+          }
+
+          @Override public CharSequence flatten(int logLevel, String tag, String message) {
+            throw new UnsupportedOperationException();
+          }
+        })
+        .build();
+    Thread thread = Thread.currentThread();
+    final LogItem log = new LogItem(LogLevel.INFO, "TAG", null, new MessageSupplier() {
+      @Override public String get() {
+        lockedWhenBuilt[0] = PascLog.rwl.isWriteLockedByCurrentThread();
+        return "deferred";
+      }
+    }, System.currentTimeMillis(), thread.getId(), thread.getName(), 0);
+
+    Thread writer = new Thread() {
+      @Override public void run() {
+        printer.doPrintln(new ArrayList<>(Arrays.asList(log)));
+      }
+    };
+    writer.start();
+    try {
+      assertTrue(flattening.await(10, TimeUnit.SECONDS));
+
+      // A reader of the log files goes on while the log is being flattened.
+      Lock readLock = PascLog.rwl.readLock();
+      assertTrue(readLock.tryLock(1, TimeUnit.SECONDS));
+      readLock.unlock();
+    } finally {
+      release.countDown();
+    }
+    writer.join();
+
+    assertFalse(lockedWhenBuilt[0]);
+    assertFalse(lockedWhenFlattened[0]);
+    assertEquals(Arrays.asList("deferred"),
+        FilePrinterWorkerTest.readLines(new File(folder.getRoot(), "log")));
+  }
+}
@@ -0,0 +1,176 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.PascLog;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class MappedLogBufferTest {
+
+  /**
+   * Two regions of 2 KB, each holds about 55 of the logs below.
+   */
+  private static final int BUFFER_SIZE = 4096;
+
+  private static final int REGION_HEADER_SIZE = 16;
+
+  private static final MappedLogBuffer.DrainRequester NO_DRAIN =
+      new MappedLogBuffer.DrainRequester() {
+        @Override public void requestDrain() {
+        }
+      };
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test public void reopenWithoutDrain_recoversCommittedRecords() throws IOException {
+    File file = new File(folder.getRoot(), "log.mmap");
+    Records leftover = new Records();
+    MappedLogBuffer buffer = MappedLogBuffer.open(file, BUFFER_SIZE, leftover, NO_DRAIN);
+    assertEquals(0, leftover.logs.size());
+
+    // Fill the first region and part of the second one.
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 80; i++) {
+      String log = "I/TAG: log " + i + " 日志";
+      expected.add(log);
+      buffer.append(4, 1000 + i, MappedLogBuffer.encode(log));
+    }
+
+    // Crash, the buffer is never drained.
+    Records recovered = new Records();
+    MappedLogBuffer.open(file, BUFFER_SIZE, recovered, NO_DRAIN);
+    assertEquals(expected, recovered.logs);
+    assertEquals(2, recovered.regionEnds);
+    assertEquals(1000, (long) recovered.timestamps.get(0));
+    assertEquals(1079, (long) recovered.timestamps.get(79));
+    assertEquals(4, (int) recovered.levels.get(0));
+
+    // Recovered only once.
+    Records again = new Records();
+    MappedLogBuffer.open(file, BUFFER_SIZE, again, NO_DRAIN);
+    assertEquals(0, again.logs.size());
+  }
+
+  @Test public void recordNotCommitted_isNotRecovered() throws IOException {
+    File file = new File(folder.getRoot(), "log.mmap");
+    MappedLogBuffer buffer = MappedLogBuffer.open(file, BUFFER_SIZE, new Records(), NO_DRAIN);
+    buffer.append(4, 1, MappedLogBuffer.encode("committed 1"));
+    buffer.append(4, 2, MappedLogBuffer.encode("committed 2"));
+
+    // Crash after the record is written but before the length of region is updated.
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.seek(12);
+      int length = raf.readInt();
+      byte[] data = MappedLogBuffer.encode("torn");
+      raf.seek(REGION_HEADER_SIZE + length);
+      raf.writeInt(4);
+      raf.writeLong(3);
+      raf.writeInt(data.length);
+      raf.write(data);
+    } finally {
+      raf.close();
+    }
+
+    Records recovered = new Records();
+    MappedLogBuffer.open(file, BUFFER_SIZE, recovered, NO_DRAIN);
+    assertEquals(2, recovered.logs.size());
+    assertEquals("committed 1", recovered.logs.get(0));
+    assertEquals("committed 2", recovered.logs.get(1));
+  }
+
+  @Test public void drainedRecords_areNotRecovered() throws IOException {
+    File file = new File(folder.getRoot(), "log.mmap");
+    MappedLogBuffer buffer = MappedLogBuffer.open(file, BUFFER_SIZE, new Records(), NO_DRAIN);
+    buffer.append(4, 1, MappedLogBuffer.encode("drained"));
+    Records drained = new Records();
+    buffer.drain(drained);
+    assertEquals(1, drained.logs.size());
+    assertEquals(1, drained.regionEnds);
+    buffer.append(5, 2, MappedLogBuffer.encode("pending"));
+
+    Records recovered = new Records();
+    MappedLogBuffer.open(file, BUFFER_SIZE, recovered, NO_DRAIN);
+    assertEquals(1, recovered.logs.size());
+    assertEquals("pending", recovered.logs.get(0));
+    assertEquals(5, (int) recovered.levels.get(0));
+  }
+
+  @Test public void corruptedFile_recoversNothing() throws IOException {
+    File file = new File(folder.getRoot(), "log.mmap");
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      for (int i = 0; i < BUFFER_SIZE / 4; i++) {
+        raf.writeInt(0x5a5a5a5a);
+      }
+    } finally {
+      raf.close();
+    }
+
+    Records recovered = new Records();
+    MappedLogBuffer buffer = MappedLogBuffer.open(file, BUFFER_SIZE, recovered, NO_DRAIN);
+    assertEquals(0, recovered.logs.size());
+    buffer.append(4, 1, MappedLogBuffer.encode("new"));
+    Records drained = new Records();
+    buffer.drain(drained);
+    assertEquals(1, drained.logs.size());
+  }
+
+  @Test public void recoverMappedLogs_writesLeftoverToLogFile() throws IOException {
+    if (PascLog.rwl == null) {
+      PascLog.rwl = new ReentrantReadWriteLock();
+    }
+    File logFolder = folder.newFolder("logs");
+    File file = new File(folder.getRoot(), "logs.mmap");
+    MappedLogBuffer buffer = MappedLogBuffer.open(file, BUFFER_SIZE, new Records(), NO_DRAIN);
+    for (int i = 0; i < 80; i++) {
+      buffer.append(4, i, MappedLogBuffer.encode("I/TAG: log " + i));
+    }
+
+    // The next run, as PascLog.init does.
+    FilePrinter printer = new FilePrinter.Builder(logFolder.getPath())
+        .mmapBuffer(file.getPath(), BUFFER_SIZE)
+        .build();
+    printer.recoverMappedLogs();
+
+    BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new FileInputStream(new File(logFolder, "log")), "UTF-8"));
+    try {
+      for (int i = 0; i < 80; i++) {
+        assertEquals("I/TAG: log " + i, reader.readLine());
+      }
+      assertNull(reader.readLine());
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static class Records implements MappedLogBuffer.RecordConsumer {
+
+    final List<String> logs = new ArrayList<>();
+    final List<Integer> levels = new ArrayList<>();
+    final List<Long> timestamps = new ArrayList<>();
+    int regionEnds;
+
+    @Override public void onRecord(int level, long timestamp, String log) {
+      levels.add(level);
+      timestamps.add(timestamp);
+      logs.add(log);
+    }
+
+    @Override public void onRegionEnd() {
+      regionEnds++;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.pasc.lib.log.printer.file;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class RetentionSweeperTest {
+
+  private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+  private static final Map<String, Long> NO_ACTIVE_FILES = Collections.emptyMap();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final long now = System.currentTimeMillis();
+
+  @Test public void maxAge_deletesOlderFiles() throws IOException {
+    createFile("old", 10, now - 3 * HOUR);
+    createFile("new", 10, now - HOUR);
+
+    new RetentionSweeper(2 * HOUR, 0, 0, 0).sweep(path(), NO_ACTIVE_FILES);
+
+    assertDeleted("old");
+    assertKept("new");
+  }
+
+  @Test public void maxCount_keepsNewestFiles() throws IOException {
+    for (int i = 1; i <= 5; i++) {
+      createFile("log" + i, 10, now - i * HOUR);
+    }
+
+    new RetentionSweeper(0, 3, 0, 0).sweep(path(), NO_ACTIVE_FILES);
+
+    assertKept("log1", "log2", "log3");
+    assertDeleted("log4", "log5");
+  }
+
+  @Test public void maxBytes_keepsNewestFilesWithinBytes() throws IOException {
+    createFile("log1", 100, now - HOUR);
+    createFile("log2", 100, now - 2 * HOUR);
+    createFile("log3", 100, now - 3 * HOUR);
+
+    new RetentionSweeper(0, 0, 250, 0).sweep(path(), NO_ACTIVE_FILES);
+
+    assertKept("log1", "log2");
+    assertDeleted("log3");
+  }
+
+  @Test public void activeFiles_neverDeletedButCounted() throws IOException {
+    createFile("active", 10, now - 3 * HOUR);
+    createFile("log1", 10, now - HOUR);
+    createFile("log2", 10, now - 2 * HOUR);
+    Map<String, Long> activeFiles = new HashMap<>();
+    activeFiles.put("active", 10L);
+
+    new RetentionSweeper(2 * HOUR, 2, 0, 0).sweep(path(), activeFiles);
+
+    // The active file is the newest one when swept, so only one other file is kept.
+    assertKept("active", "log1");
+    assertDeleted("log2");
+  }
+
+  @Test public void keptFile_neverDeleted() throws IOException {
+    File cache = createFile("cache", 10, now - 3 * HOUR);
+    createFile("old", 10, now - 3 * HOUR);
+    RetentionSweeper sweeper = new RetentionSweeper(HOUR, 0, 0, 0);
+    sweeper.keep(cache);
+
+    sweeper.sweep(path(), NO_ACTIVE_FILES);
+
+    assertKept("cache");
+    assertDeleted("old");
+  }
+
+  @Test public void folderScannedOnce_indexKeptByCallbacks() throws IOException {
+    RetentionSweeper sweeper = new RetentionSweeper(0, 2, 0, 0);
+    createFile("log1", 10, now - 3 * HOUR);
+    sweeper.sweep(path(), NO_ACTIVE_FILES);
+
+    // Not scanned again, only known through the callbacks.
+    createFile("unknown", 10, now - 4 * HOUR);
+    createFile("log2", 10, now);
+    sweeper.onFileOpened("log2", 10);
+    createFile("log3.bak", 10, now);
+    sweeper.onFileRenamed("log3", "log3.bak", 10);
+    sweeper.sweep(path(), NO_ACTIVE_FILES);
+
+    assertKept("log2", "log3.bak", "unknown");
+    assertDeleted("log1");
+  }
+
+  @Test public void sweepDue_afterIntervalOrRequest() {
+    RetentionSweeper sweeper = new RetentionSweeper(HOUR, 0, 0, HOUR);
+    assertTrue(sweeper.isSweepDue());
+
+    sweeper.sweep(path(), NO_ACTIVE_FILES);
+    assertFalse(sweeper.isSweepDue());
+
+    sweeper.requestSweep();
+    assertTrue(sweeper.isSweepDue());
+    sweeper.sweep(path(), NO_ACTIVE_FILES);
+    assertFalse(sweeper.isSweepDue());
+  }
+
+  @Test public void noLimit_disabled() {
+    assertFalse(new RetentionSweeper(0, 0, 0, 0).isEnabled());
+    assertTrue(new RetentionSweeper(0, 0, 1, 0).isEnabled());
+  }
+
+  private String path() {
+    return folder.getRoot().getPath();
+  }
+
+  private File createFile(String name, int bytes, long lastModified) throws IOException {
+    File file = new File(folder.getRoot(), name);
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(new byte[bytes]);
+    } finally {
+      out.close();
+    }
+    assertTrue(file.setLastModified(lastModified));
+    return file;
+  }
+
+  private void assertKept(String... names) {
+    for (String name : names) {
+      assertTrue(name + " deleted", new File(folder.getRoot(), name).exists());
+    }
+  }
+
+  private void assertDeleted(String... names) {
+    for (String name : names) {
+      assertFalse(name + " kept", new File(folder.getRoot(), name).exists());
+    }
+  }
+}
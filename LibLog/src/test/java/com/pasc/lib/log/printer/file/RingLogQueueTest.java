@@ -0,0 +1,114 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.printer.file.ring.BlockingWaitStrategy;
+import com.pasc.lib.log.printer.file.ring.ParkingWaitStrategy;
+import com.pasc.lib.log.printer.file.ring.WaitStrategy;
+import com.pasc.lib.log.printer.file.ring.YieldingWaitStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RingLogQueueTest {
+
+  private static final int PRODUCERS = 8;
+  private static final int LOGS_PER_PRODUCER = 20000;
+
+  @Test public void multiProducer_blocking_noLossInOrder() throws Exception {
+    assertNoLossInOrder(new BlockingWaitStrategy());
+  }
+
+  @Test public void multiProducer_parking_noLossInOrder() throws Exception {
+    assertNoLossInOrder(new ParkingWaitStrategy());
+  }
+
+  @Test public void multiProducer_yielding_noLossInOrder() throws Exception {
+    assertNoLossInOrder(new YieldingWaitStrategy());
+  }
+
+  @Test public void signal_isHandedOverAsIs() throws Exception {
+    RingLogQueue queue = new RingLogQueue(4, new BlockingWaitStrategy());
+    LogItem signal = new LogItem(0, null, "", 0);
+    signal.signal = true;
+    queue.put(LogLevel.INFO, "TAG", "before", null, 1, Thread.currentThread(), 1);
+    queue.putSignal(signal);
+    queue.put(LogLevel.INFO, "TAG", "after", null, 2, Thread.currentThread(), 2);
+
+    List<LogItem> logs = new ArrayList<>();
+    assertEquals(3, queue.drainTo(logs, 10));
+    assertEquals("before", logs.get(0).msg());
+    assertSame(signal, logs.get(1));
+    assertEquals("after", logs.get(2).msg());
+  }
+
+  @Test public void poll_timesOutWhenEmpty() throws Exception {
+    RingLogQueue queue = new RingLogQueue(4, new BlockingWaitStrategy());
+    assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    queue.put(LogLevel.WARN, "TAG", "msg", null, 7, Thread.currentThread(), 3);
+    LogItem log = queue.poll(10, TimeUnit.MILLISECONDS);
+    assertEquals(LogLevel.WARN, log.level);
+    assertEquals("TAG", log.tag);
+    assertEquals(7, log.timestamp);
+    assertEquals(3, log.sequence);
+    assertEquals(Thread.currentThread().getName(), log.threadName);
+  }
+
+  /**
+   * Producers put into a small ring, so it wraps and is full most of the time, every log should
+   * be taken exactly once, and the logs of a producer in the order they were put.
+   */
+  private static void assertNoLossInOrder(WaitStrategy waitStrategy) throws Exception {
+    final RingLogQueue queue = new RingLogQueue(64, waitStrategy);
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    Thread[] producers = new Thread[PRODUCERS];
+    for (int p = 0; p < PRODUCERS; p++) {
+      final String tag = "P" + p;
+      producers[p] = new Thread("producer-" + p) {
+        @Override public void run() {
+          try {
+            for (int i = 0; i < LOGS_PER_PRODUCER; i++) {
+              queue.put(LogLevel.INFO, tag, Integer.toString(i), null, i, this, i);
+            }
+          } catch (Throwable t) {
+            error.set(t);
+          }
+        }
+      };
+      producers[p].start();
+    }
+
+    int[] next = new int[PRODUCERS];
+    List<LogItem> batch = new ArrayList<>();
+    int total = PRODUCERS * LOGS_PER_PRODUCER;
+    int taken = 0;
+    while (taken < total) {
+      LogItem first = queue.poll(10, TimeUnit.SECONDS);
+      assertNotNull("Logs lost, " + taken + " of " + total + " taken", first);
+      batch.add(first);
+      queue.drainTo(batch, 63);
+      for (LogItem log : batch) {
+        int producer = Integer.parseInt(log.tag.substring(1));
+        assertEquals("producer-" + producer, log.threadName);
+        assertEquals(next[producer], Integer.parseInt(log.msg()));
+        assertEquals(next[producer], log.sequence);
+        next[producer]++;
+      }
+      taken += batch.size();
+      queue.recycle(batch);
+      batch.clear();
+    }
+
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    assertNull(error.get());
+    assertNull(queue.poll(0, TimeUnit.MILLISECONDS));
+    for (int p = 0; p < PRODUCERS; p++) {
+      assertEquals(LOGS_PER_PRODUCER, next[p]);
+    }
+  }
+}
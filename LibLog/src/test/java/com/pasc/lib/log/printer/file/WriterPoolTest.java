@@ -0,0 +1,103 @@
+package com.pasc.lib.log.printer.file;
+
+import com.pasc.lib.log.LogLevel;
+import com.pasc.lib.log.PascLog;
+import com.pasc.lib.log.flattener.PatternFlattener;
+import com.pasc.lib.log.printer.file.backup.NeverBackupStrategy;
+import com.pasc.lib.log.printer.file.naming.LevelFileNameGenerator;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * The logs are written by {@link FilePrinter#doPrintln(List)} right in the test thread, so the
+ * pooled writers can be checked after each batch.
+ */
+public class WriterPoolTest {
+
+  private static final long IDLE_TIMEOUT = 1000;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private FilePrinter printer;
+
+  @Before public void setUp() {
+    if (PascLog.rwl == null) {
+      PascLog.rwl = new ReentrantReadWriteLock();
+    }
+    printer = new FilePrinter.Builder(folder.getRoot().getPath())
+        .fileNameGenerator(new LevelFileNameGenerator())
+        .backupStrategy(new NeverBackupStrategy())
+        .logFlattener(new PatternFlattener("{m}"))
+        .writerPoolSize(2)
+        .writerIdleTimeout(IDLE_TIMEOUT)
+        .build();
+  }
+
+  @Test public void poolFull_closesLeastRecentlyUsed() throws Exception {
+    long now = System.currentTimeMillis();
+    print(log(LogLevel.DEBUG, "d1", now), log(LogLevel.INFO, "i1", now));
+    assertOpened("DEBUG", "INFO");
+
+    print(log(LogLevel.DEBUG, "d2", now), log(LogLevel.WARN, "w1", now));
+    assertOpened("DEBUG", "WARN");
+
+    print(log(LogLevel.INFO, "i2", now));
+    assertOpened("WARN", "INFO");
+    assertEquals(Arrays.asList("d1", "d2"), readLines("DEBUG"));
+    assertEquals(Arrays.asList("i1", "i2"), readLines("INFO"));
+    assertEquals(Collections.singletonList("w1"), readLines("WARN"));
+  }
+
+  @Test public void idleWriter_closed() throws Exception {
+    long now = System.currentTimeMillis();
+    print(log(LogLevel.DEBUG, "d1", now - 5 * IDLE_TIMEOUT), log(LogLevel.INFO, "i1", now));
+    assertOpened("INFO");
+  }
+
+  @Test public void lastUsedWriter_neverClosedWhenIdle() throws Exception {
+    long now = System.currentTimeMillis();
+    print(log(LogLevel.INFO, "i1", now), log(LogLevel.DEBUG, "d1", now - 5 * IDLE_TIMEOUT));
+    assertOpened("INFO", "DEBUG");
+  }
+
+  @Test public void deletedFile_createdAgain() throws Exception {
+    long now = System.currentTimeMillis();
+    print(log(LogLevel.DEBUG, "d1", now), log(LogLevel.INFO, "i1", now));
+    assertTrue(new File(folder.getRoot(), "DEBUG").delete());
+
+    print(log(LogLevel.INFO, "i2", now), log(LogLevel.DEBUG, "d2", now));
+    assertOpened("INFO", "DEBUG");
+    assertEquals(Collections.singletonList("d2"), readLines("DEBUG"));
+    assertEquals(Arrays.asList("i1", "i2"), readLines("INFO"));
+  }
+
+  private void print(LogItem... logs) {
+    printer.doPrintln(new ArrayList<>(Arrays.asList(logs)));
+  }
+
+  private static LogItem log(int level, String msg, long timestamp) {
+    Thread thread = Thread.currentThread();
+    return new LogItem(level, "TAG", msg, null, timestamp, thread.getId(), thread.getName(), 0);
+  }
+
+  /**
+   * Assert the opened log files, from the least recently used.
+   */
+  private void assertOpened(String... fileNames) {
+    assertEquals(Arrays.asList(fileNames), new ArrayList<>(printer.writers.keySet()));
+  }
+
+  private List<String> readLines(String fileName) throws Exception {
+    return FilePrinterWorkerTest.readLines(new File(folder.getRoot(), fileName));
+  }
+}
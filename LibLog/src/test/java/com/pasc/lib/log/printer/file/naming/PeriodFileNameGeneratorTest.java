@@ -0,0 +1,140 @@
+package com.pasc.lib.log.printer.file.naming;
+
+import com.pasc.lib.log.LogLevel;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PeriodFileNameGeneratorTest {
+
+  private static final long SECOND = 1000;
+  private static final long MINUTE = 60 * SECOND;
+
+  private TimeZone defaultZone;
+
+  @Before public void setUp() {
+    defaultZone = TimeZone.getDefault();
+  }
+
+  @After public void tearDown() {
+    TimeZone.setDefault(defaultZone);
+  }
+
+  @Test public void hourly_changesAtTheHour() throws ParseException {
+    TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    PeriodFileNameGenerator generator = PeriodFileNameGenerator.hourly("yyyy-MM-dd_HH");
+    long hour = utc("2021-06-01 10:00:00");
+
+    assertEquals("2021-06-01_09", name(generator, hour - 1));
+    assertEquals("2021-06-01_10", name(generator, hour));
+    assertEquals("2021-06-01_10", name(generator, hour + 59 * MINUTE));
+    assertEquals("2021-06-01_11", name(generator, hour + 60 * MINUTE));
+  }
+
+  @Test public void timestampGoingBack_periodComputedAgain() throws ParseException {
+    TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    PeriodFileNameGenerator generator = PeriodFileNameGenerator.hourly("yyyy-MM-dd_HH");
+    long hour = utc("2021-06-01 10:00:00");
+
+    assertEquals("2021-06-01_10", name(generator, hour));
+    assertEquals("2021-06-01_09", name(generator, hour - 1));
+  }
+
+  @Test public void periodNotDividingTheDay_lastPeriodEndsAtMidnight() throws ParseException {
+    TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    PeriodFileNameGenerator generator =
+        new PeriodFileNameGenerator("yyyy-MM-dd_HHmm", 7 * PeriodFileNameGenerator.HOURLY);
+    long midnight = utc("2021-06-02 00:00:00");
+
+    assertEquals("2021-06-01_2100", name(generator, midnight - 1));
+    assertEquals("2021-06-02_0000", name(generator, midnight));
+    assertEquals("2021-06-02_0000", name(generator, midnight + 7 * 60 * MINUTE - 1));
+    assertEquals("2021-06-02_0700", name(generator, midnight + 7 * 60 * MINUTE));
+  }
+
+  @Test public void minutes_alignedToMidnight() throws ParseException {
+    TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    PeriodFileNameGenerator generator = new PeriodFileNameGenerator("HHmm", 30 * MINUTE);
+
+    assertEquals("1000", name(generator, utc("2021-06-01 10:29:59")));
+    assertEquals("1030", name(generator, utc("2021-06-01 10:30:00")));
+    assertEquals("1030", name(generator, utc("2021-06-01 10:59:59")));
+    assertEquals("1100", name(generator, utc("2021-06-01 11:00:00")));
+  }
+
+  @Test public void hourly_dstStart_skipsMissingHour() throws ParseException {
+    TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    PeriodFileNameGenerator generator = PeriodFileNameGenerator.hourly("yyyy-MM-dd_HH");
+    // 02:00 EST is 03:00 EDT.
+    long jump = utc("2021-03-14 07:00:00");
+
+    assertEquals("2021-03-14_01", name(generator, jump - 1));
+    assertEquals("2021-03-14_03", name(generator, jump));
+  }
+
+  @Test public void hourly_dstEnd_repeatedHourNeverLongerThanAnHour() throws ParseException {
+    TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    PeriodFileNameGenerator generator = PeriodFileNameGenerator.hourly("yyyy-MM-dd_HH");
+    // 01:00 EDT, then 01:00 EST an hour later.
+    long first = utc("2021-11-07 05:00:00");
+    long second = utc("2021-11-07 06:00:00");
+
+    assertEquals("2021-11-07_00", name(generator, first - 1));
+    assertEquals("2021-11-07_01", name(generator, first));
+    assertEquals("2021-11-07_01", name(generator, second - 1));
+    assertEquals("2021-11-07_01", name(generator, second));
+    assertEquals("2021-11-07_02", name(generator, second + 60 * MINUTE));
+  }
+
+  @Test public void daily_dstStart_dayOf23Hours() throws ParseException {
+    TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    PeriodFileNameGenerator generator = PeriodFileNameGenerator.daily("yyyy-MM-dd");
+    long start = utc("2021-03-14 05:00:00");
+    long end = utc("2021-03-15 04:00:00");
+
+    assertEquals("2021-03-13", name(generator, start - 1));
+    assertEquals("2021-03-14", name(generator, start));
+    assertEquals("2021-03-14", name(generator, end - 1));
+    assertEquals("2021-03-15", name(generator, end));
+  }
+
+  @Test public void daily_dstEnd_dayOf25Hours() throws ParseException {
+    TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    PeriodFileNameGenerator generator = PeriodFileNameGenerator.daily("yyyy-MM-dd");
+    long start = utc("2021-11-07 04:00:00");
+    long end = utc("2021-11-08 05:00:00");
+
+    assertEquals("2021-11-06", name(generator, start - 1));
+    assertEquals("2021-11-07", name(generator, start));
+    assertEquals("2021-11-07", name(generator, end - 1));
+    assertEquals("2021-11-08", name(generator, end));
+  }
+
+  @Test public void zoneChange_appliedWithinAMinute() throws ParseException {
+    TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    PeriodFileNameGenerator generator = PeriodFileNameGenerator.hourly("yyyy-MM-dd_HH");
+    long time = utc("2021-06-01 10:00:00");
+    assertEquals("2021-06-01_10", name(generator, time));
+
+    TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+    assertEquals("2021-06-01_10", name(generator, time + 30 * SECOND));
+    assertEquals("2021-06-01_18", name(generator, time + MINUTE));
+    assertEquals("2021-06-01_18", name(generator, time + 2 * MINUTE));
+  }
+
+  private static String name(PeriodFileNameGenerator generator, long timestamp) {
+    return generator.generateFileName(LogLevel.DEBUG, timestamp);
+  }
+
+  private static long utc(String time) throws ParseException {
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    return format.parse(time).getTime();
+  }
+}
@@ -0,0 +1,165 @@
+package com.pasc.lib.log.plugin;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Rewrite the log calls of PascLog and PascLog.Log in a class:
+ * <ul>
+ * <li>Calls to android.util.Log are redirected to AndroidLogBridge if enabled for the class, and
+ * rewritten as other log calls then</li>
+ * <li>Log calls below the strip level are removed, the arguments are popped instead</li>
+ * <li>Other log calls are preceded by a call to {@code PascLog.callSite(String, String)}, passing
+ * the call site and the tag generated from the calling class</li>
+ * </ul>
+ */
+/*package*/ class CallSiteClassVisitor extends ClassVisitor {
+
+  private static final String CALL_SITE_METHOD = "callSite";
+  private static final String CALL_SITE_DESC = "(Ljava/lang/String;Ljava/lang/String;)V";
+
+  private final boolean callSite;
+  private final boolean autoTag;
+  private final int stripBelow;
+  private final boolean redirect;
+
+  private String className;
+  private String sourceFile;
+  private String tag;
+  private boolean changed;
+
+  /**
+   * @param cv         the visitor to delegate to
+   * @param callSite   whether to inject the call site
+   * @param autoTag    whether to inject the tag generated from the calling class
+   * @param stripBelow the level, log calls below which are removed, 0 to keep all log calls
+   * @param redirect   whether to redirect calls to android.util.Log
+   */
+  /*package*/ CallSiteClassVisitor(ClassVisitor cv, boolean callSite, boolean autoTag,
+                                   int stripBelow, boolean redirect) {
+    super(Opcodes.ASM6, cv);
+    this.callSite = callSite;
+    this.autoTag = autoTag;
+    this.stripBelow = stripBelow;
+    this.redirect = redirect;
+  }
+
+  /**
+   * Whether any log call was rewritten.
+   */
+  /*package*/ boolean isChanged() {
+    return changed;
+  }
+
+  @Override
+  public void visit(int version, int access, String name, String signature, String superName,
+                    String[] interfaces) {
+    super.visit(version, access, name, signature, superName, interfaces);
+    className = name.replace('/', '.');
+    tag = tagOf(name);
+  }
+
+  @Override
+  public void visitSource(String source, String debug) {
+    super.visitSource(source, debug);
+    sourceFile = source;
+  }
+
+  @Override
+  public MethodVisitor visitMethod(int access, String name, String desc, String signature,
+                                   String[] exceptions) {
+    MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+    return mv == null ? null : new LogCallVisitor(mv, name);
+  }
+
+  /**
+   * The simple name of the outermost class, "MainActivity" for
+   * "com/yourdomain/MainActivity$1" for example.
+   */
+  private static String tagOf(String internalName) {
+    String simpleName = internalName.substring(internalName.lastIndexOf('/') + 1);
+    int dollar = simpleName.indexOf('$');
+    return dollar > 0 ? simpleName.substring(0, dollar) : simpleName;
+  }
+
+  private class LogCallVisitor extends MethodVisitor {
+
+    private final String methodName;
+    private int lineNumber = -1;
+
+    LogCallVisitor(MethodVisitor mv, String methodName) {
+      super(Opcodes.ASM6, mv);
+      this.methodName = methodName;
+    }
+
+    @Override
+    public void visitLineNumber(int line, Label start) {
+      super.visitLineNumber(line, start);
+      lineNumber = line;
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String desc,
+                                boolean itf) {
+      if (redirect && opcode == Opcodes.INVOKESTATIC && LogMethods.isRedirectable(owner, name)) {
+        owner = LogMethods.ANDROID_LOG_BRIDGE;
+        changed = true;
+      }
+      if (opcode != Opcodes.INVOKESTATIC || !LogMethods.isLogCall(owner, name, desc)) {
+        super.visitMethodInsn(opcode, owner, name, desc, itf);
+        return;
+      }
+
+      int level = LogMethods.levelOf(name);
+      if (stripBelow > 0 && level != LogMethods.UNKNOWN && level < stripBelow) {
+        // Remove the log call, the arguments are already on the stack.
+        Type[] argumentTypes = Type.getArgumentTypes(desc);
+        for (int i = argumentTypes.length - 1; i >= 0; i--) {
+          super.visitInsn(argumentTypes[i].getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+        }
+        if (Type.getReturnType(desc) == Type.INT_TYPE) {
+          // The number of bytes written, returned by android.util.Log.
+          super.visitInsn(Opcodes.ICONST_0);
+        }
+        changed = true;
+        return;
+      }
+
+      if (callSite || autoTag) {
+        if (callSite) {
+          super.visitLdcInsn(formatCallSite());
+        } else {
+          super.visitInsn(Opcodes.ACONST_NULL);
+        }
+        if (autoTag) {
+          super.visitLdcInsn(tag);
+        } else {
+          super.visitInsn(Opcodes.ACONST_NULL);
+        }
+        super.visitMethodInsn(Opcodes.INVOKESTATIC, LogMethods.PASC_LOG, CALL_SITE_METHOD,
+            CALL_SITE_DESC, false);
+        changed = true;
+      }
+      super.visitMethodInsn(opcode, owner, name, desc, itf);
+    }
+
+    /**
+     * Format the call site like {@link StackTraceElement#toString()}.
+     */
+    private String formatCallSite() {
+      StringBuilder sb = new StringBuilder(className).append('.').append(methodName).append('(');
+      if (sourceFile == null) {
+        sb.append("Unknown Source");
+      } else {
+        sb.append(sourceFile);
+        if (lineNumber >= 0) {
+          sb.append(':').append(lineNumber);
+        }
+      }
+      return sb.append(')').toString();
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.pasc.lib.log.plugin;
+
+import org.objectweb.asm.Type;
+
+/**
+ * The log methods of PascLog rewritten by the transform.
+ */
+/*package*/ class LogMethods {
+
+  static final String PASC_LOG = "com/pasc/lib/log/PascLog";
+  static final String PASC_LOG_COMPAT = "com/pasc/lib/log/PascLog$Log";
+  static final String ANDROID_LOG = "android/util/Log";
+  static final String ANDROID_LOG_BRIDGE = "com/pasc/lib/log/AndroidLogBridge";
+
+  /**
+   * The package of PascLog library, whose classes are never rewritten.
+   */
+  static final String LIBRARY_PACKAGE = "com/pasc/lib/log/";
+
+  static final int VERBOSE = 2;
+  static final int DEBUG = 3;
+  static final int INFO = 4;
+  static final int WARN = 5;
+  static final int ERROR = 6;
+
+  /**
+   * The level unknown at build time, like the level passed to {@code PascLog.log(int, ...)}.
+   */
+  static final int UNKNOWN = -1;
+
+  /**
+   * Whether the invocation is a log call of PascLog, PascLog.Log or AndroidLogBridge.
+   */
+  static boolean isLogCall(String owner, String name, String desc) {
+    Type returnType = Type.getReturnType(desc);
+    if (PASC_LOG.equals(owner)) {
+      return returnType == Type.VOID_TYPE && (levelOf(name) != UNKNOWN || "log".equals(name));
+    }
+    if (PASC_LOG_COMPAT.equals(owner)) {
+      return returnType == Type.VOID_TYPE && (levelOf(name) != UNKNOWN || "println".equals(name));
+    }
+    if (ANDROID_LOG_BRIDGE.equals(owner)) {
+      return returnType == Type.INT_TYPE && (levelOf(name) != UNKNOWN || "println".equals(name));
+    }
+    return false;
+  }
+
+  /**
+   * Whether the invocation of android.util.Log can be redirected to AndroidLogBridge.
+   */
+  static boolean isRedirectable(String owner, String name) {
+    if (!ANDROID_LOG.equals(owner)) {
+      return false;
+    }
+    switch (name) {
+      case "v":
+      case "d":
+      case "i":
+      case "w":
+      case "e":
+      case "wtf":
+      case "println":
+      case "isLoggable":
+      case "getStackTraceString":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Get the level of the log method.
+   *
+   * @param name the name of the log method
+   * @return the level, or {@link #UNKNOWN} if decided at runtime
+   */
+  static int levelOf(String name) {
+    switch (name) {
+      case "v":
+        return VERBOSE;
+      case "d":
+      case "json":
+      case "xml":
+        return DEBUG;
+      case "i":
+        return INFO;
+      case "w":
+        return WARN;
+      case "e":
+      case "wtf":
+        return ERROR;
+      default:
+        return UNKNOWN;
+    }
+  }
+
+  /**
+   * Parse the level name like "INFO" or "I".
+   *
+   * @return the level
+   * @throws IllegalArgumentException if not a level name
+   */
+  static int parseLevel(String level) {
+    switch (level.trim().toUpperCase()) {
+      case "V":
+      case "VERBOSE":
+        return VERBOSE;
+      case "D":
+      case "DEBUG":
+        return DEBUG;
+      case "I":
+      case "INFO":
+        return INFO;
+      case "W":
+      case "WARN":
+        return WARN;
+      case "E":
+      case "ERROR":
+        return ERROR;
+      default:
+        throw new IllegalArgumentException("Unknown log level " + level);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.pasc.lib.log.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The "pascLog" extension configuring {@link PascLogPlugin}, like:
+ * <pre>
+ * pascLog {
+ *   callSite true        // inject class, method, file and line into each log call
+ *   autoTag true         // use the simple class name as the tag of logs without tag
+ *   stripBelow 'INFO'    // remove log calls below INFO from non-debuggable variants
+ *   redirectAndroidLog true                // print logs of android.util.Log through PascLog
+ *   redirectIncludes = ['com.yourdomain']  // only redirect in these packages, all if empty
+ *   redirectExcludes = ['com.yourdomain.legacy']
+ * }
+ * </pre>
+ */
+public class PascLogExtension {
+
+  /**
+   * Whether to inject the call site into each log call, used by
+   * {@code LogConfiguration.Builder#callSiteEnable()} instead of walking the stack.
+   */
+  private boolean callSite = true;
+
+  /**
+   * Whether to inject the simple name of the calling class as the tag of logs without tag.
+   */
+  private boolean autoTag;
+
+  /**
+   * The log level name, log calls below which are removed from non-debuggable variants, null to
+   * keep all log calls.
+   */
+  private String stripBelow;
+
+  /**
+   * Whether to redirect calls to android.util.Log in app and library classes to PascLog.
+   */
+  private boolean redirectAndroidLog;
+
+  /**
+   * The packages, calls in which to android.util.Log are redirected, all packages if empty.
+   */
+  private List<String> redirectIncludes = new ArrayList<>();
+
+  /**
+   * The packages, calls in which to android.util.Log are not redirected, take precedence over
+   * {@link #redirectIncludes}.
+   */
+  private List<String> redirectExcludes = new ArrayList<>();
+
+  public boolean isCallSite() {
+    return callSite;
+  }
+
+  public void setCallSite(boolean callSite) {
+    this.callSite = callSite;
+  }
+
+  public void callSite(boolean callSite) {
+    this.callSite = callSite;
+  }
+
+  public boolean isAutoTag() {
+    return autoTag;
+  }
+
+  public void setAutoTag(boolean autoTag) {
+    this.autoTag = autoTag;
+  }
+
+  public void autoTag(boolean autoTag) {
+    this.autoTag = autoTag;
+  }
+
+  public String getStripBelow() {
+    return stripBelow;
+  }
+
+  public void setStripBelow(String stripBelow) {
+    this.stripBelow = stripBelow;
+  }
+
+  public void stripBelow(String stripBelow) {
+    this.stripBelow = stripBelow;
+  }
+
+  public boolean isRedirectAndroidLog() {
+    return redirectAndroidLog;
+  }
+
+  public void setRedirectAndroidLog(boolean redirectAndroidLog) {
+    this.redirectAndroidLog = redirectAndroidLog;
+  }
+
+  public void redirectAndroidLog(boolean redirectAndroidLog) {
+    this.redirectAndroidLog = redirectAndroidLog;
+  }
+
+  public List<String> getRedirectIncludes() {
+    return redirectIncludes;
+  }
+
+  public void setRedirectIncludes(List<String> redirectIncludes) {
+    this.redirectIncludes = redirectIncludes;
+  }
+
+  public void redirectInclude(String... packages) {
+    for (String pkg : packages) {
+      redirectIncludes.add(pkg);
+    }
+  }
+
+  public List<String> getRedirectExcludes() {
+    return redirectExcludes;
+  }
+
+  public void setRedirectExcludes(List<String> redirectExcludes) {
+    this.redirectExcludes = redirectExcludes;
+  }
+
+  public void redirectExclude(String... packages) {
+    for (String pkg : packages) {
+      redirectExcludes.add(pkg);
+    }
+  }
+}
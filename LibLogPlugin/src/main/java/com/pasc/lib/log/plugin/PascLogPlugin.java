@@ -0,0 +1,32 @@
+package com.pasc.lib.log.plugin;
+
+import com.android.build.gradle.AppExtension;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+
+/**
+ * Rewrite the log calls of PascLog at build time, should be applied to the application module
+ * after the "com.android.application" plugin:
+ * <pre>
+ * apply plugin: 'com.android.application'
+ * apply plugin: 'com.pasc.lib.log.plugin'
+ * </pre>
+ *
+ * @see PascLogExtension
+ */
+public class PascLogPlugin implements Plugin<Project> {
+
+  @Override
+  public void apply(Project project) {
+    PascLogExtension extension =
+        project.getExtensions().create("pascLog", PascLogExtension.class);
+    AppExtension android = project.getExtensions().findByType(AppExtension.class);
+    if (android == null) {
+      throw new GradleException("com.pasc.lib.log.plugin should be applied after the"
+          + " com.android.application plugin");
+    }
+    android.registerTransform(new PascLogTransform(android, extension));
+  }
+}
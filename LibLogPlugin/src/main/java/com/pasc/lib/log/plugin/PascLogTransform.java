@@ -0,0 +1,277 @@
+package com.pasc.lib.log.plugin;
+
+import com.android.build.api.transform.DirectoryInput;
+import com.android.build.api.transform.Format;
+import com.android.build.api.transform.JarInput;
+import com.android.build.api.transform.QualifiedContent;
+import com.android.build.api.transform.Transform;
+import com.android.build.api.transform.TransformException;
+import com.android.build.api.transform.TransformInput;
+import com.android.build.api.transform.TransformInvocation;
+import com.android.build.api.transform.TransformOutputProvider;
+import com.android.build.gradle.AppExtension;
+import com.android.build.gradle.api.ApplicationVariant;
+import com.android.build.gradle.internal.pipeline.TransformManager;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Rewrite the log calls in all classes of the application, see {@link CallSiteClassVisitor}.
+ */
+/*package*/ class PascLogTransform extends Transform {
+
+  private final AppExtension android;
+  private final PascLogExtension extension;
+
+  /*package*/ PascLogTransform(AppExtension android, PascLogExtension extension) {
+    this.android = android;
+    this.extension = extension;
+  }
+
+  @Override
+  public String getName() {
+    return "pascLog";
+  }
+
+  @Override
+  public Set<QualifiedContent.ContentType> getInputTypes() {
+    return TransformManager.CONTENT_CLASS;
+  }
+
+  @Override
+  public Set<? super QualifiedContent.Scope> getScopes() {
+    return TransformManager.SCOPE_FULL_PROJECT;
+  }
+
+  @Override
+  public boolean isIncremental() {
+    return false;
+  }
+
+  @Override
+  public void transform(TransformInvocation invocation)
+      throws TransformException, InterruptedException, IOException {
+    int stripBelow = stripLevel(invocation.getContext().getVariantName());
+    TransformOutputProvider outputProvider = invocation.getOutputProvider();
+    outputProvider.deleteAll();
+    for (TransformInput input : invocation.getInputs()) {
+      for (DirectoryInput directoryInput : input.getDirectoryInputs()) {
+        File dest = outputProvider.getContentLocation(directoryInput.getName(),
+            directoryInput.getContentTypes(), directoryInput.getScopes(), Format.DIRECTORY);
+        transformDirectory(directoryInput.getFile(), dest, stripBelow);
+      }
+      for (JarInput jarInput : input.getJarInputs()) {
+        File dest = outputProvider.getContentLocation(jarInput.getName(),
+            jarInput.getContentTypes(), jarInput.getScopes(), Format.JAR);
+        transformJar(jarInput.getFile(), dest, stripBelow);
+      }
+    }
+  }
+
+  /**
+   * Get the level, log calls below which should be removed from the variant.
+   *
+   * @return the level, or 0 if no log call should be removed
+   */
+  private int stripLevel(String variantName) {
+    String stripBelow = extension.getStripBelow();
+    if (stripBelow == null || stripBelow.trim().isEmpty()) {
+      return 0;
+    }
+    for (ApplicationVariant variant : android.getApplicationVariants()) {
+      if (variant.getName().equals(variantName)) {
+        return variant.getBuildType().isDebuggable() ? 0 : LogMethods.parseLevel(stripBelow);
+      }
+    }
+    return 0;
+  }
+
+  private void transformDirectory(File src, File dest, int stripBelow) throws IOException {
+    File[] files = src.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      File destFile = new File(dest, file.getName());
+      if (file.isDirectory()) {
+        transformDirectory(file, destFile, stripBelow);
+        continue;
+      }
+      byte[] bytes = readAll(new FileInputStream(file));
+      if (file.getName().endsWith(".class")) {
+        bytes = transformClass(bytes, stripBelow);
+      }
+      File parent = destFile.getParentFile();
+      if (!parent.exists() && !parent.mkdirs()) {
+        throw new IOException("Can not create folder " + parent);
+      }
+      OutputStream out = new FileOutputStream(destFile);
+      try {
+        out.write(bytes);
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  /**
+   * Transform the classes of a jar, the jar is copied as is if no class is changed.
+   */
+  private void transformJar(File src, File dest, int stripBelow) throws IOException {
+    File parent = dest.getParentFile();
+    if (!parent.exists() && !parent.mkdirs()) {
+      throw new IOException("Can not create folder " + parent);
+    }
+    Map<String, byte[]> changed = transformJarClasses(src, stripBelow);
+    if (changed.isEmpty()) {
+      Files.copy(src.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return;
+    }
+    JarInputStream in = new JarInputStream(new FileInputStream(src));
+    try {
+      // The manifest is never returned as an entry by JarInputStream.
+      Manifest manifest = in.getManifest();
+      FileOutputStream fileOut = new FileOutputStream(dest);
+      JarOutputStream out = manifest != null
+          ? new JarOutputStream(fileOut, manifest)
+          : new JarOutputStream(fileOut);
+      try {
+        Set<String> names = new HashSet<>();
+        JarEntry entry;
+        while ((entry = in.getNextJarEntry()) != null) {
+          String name = entry.getName();
+          if (entry.isDirectory() || !names.add(name)) {
+            continue;
+          }
+          byte[] bytes = changed.get(name);
+          if (bytes == null) {
+            bytes = readAll(in);
+          }
+          out.putNextEntry(new JarEntry(name));
+          out.write(bytes);
+          out.closeEntry();
+        }
+      } finally {
+        out.close();
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Transform the classes of a jar in memory.
+   *
+   * @return the transformed bytes of the changed classes, keyed by the entry names
+   */
+  private Map<String, byte[]> transformJarClasses(File src, int stripBelow) throws IOException {
+    Map<String, byte[]> changed = new HashMap<>();
+    JarInputStream in = new JarInputStream(new FileInputStream(src));
+    try {
+      JarEntry entry;
+      while ((entry = in.getNextJarEntry()) != null) {
+        String name = entry.getName();
+        if (entry.isDirectory() || !name.endsWith(".class") || changed.containsKey(name)) {
+          continue;
+        }
+        byte[] bytes = readAll(in);
+        byte[] transformed = transformClass(bytes, stripBelow);
+        if (transformed != bytes) {
+          changed.put(name, transformed);
+        }
+      }
+    } finally {
+      in.close();
+    }
+    return changed;
+  }
+
+  /**
+   * Transform a class.
+   *
+   * @return the transformed bytes, or the same bytes if nothing is changed
+   */
+  private byte[] transformClass(byte[] bytes, int stripBelow) {
+    ClassReader reader = new ClassReader(bytes);
+    if (reader.getClassName().startsWith(LogMethods.LIBRARY_PACKAGE)) {
+      return bytes;
+    }
+    ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+    CallSiteClassVisitor visitor = new CallSiteClassVisitor(writer, extension.isCallSite(),
+        extension.isAutoTag(), stripBelow, shouldRedirect(reader.getClassName()));
+    reader.accept(visitor, 0);
+    return visitor.isChanged() ? writer.toByteArray() : bytes;
+  }
+
+  /**
+   * Whether to redirect calls to android.util.Log in the class, according to the include and
+   * exclude packages.
+   *
+   * @param internalName the internal name of the class, like "com/yourdomain/MainActivity"
+   */
+  private boolean shouldRedirect(String internalName) {
+    if (!extension.isRedirectAndroidLog()) {
+      return false;
+    }
+    String className = internalName.replace('/', '.');
+    for (String pkg : extension.getRedirectExcludes()) {
+      if (inPackage(className, pkg)) {
+        return false;
+      }
+    }
+    List<String> includes = extension.getRedirectIncludes();
+    if (includes.isEmpty()) {
+      return true;
+    }
+    for (String pkg : includes) {
+      if (inPackage(className, pkg)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean inPackage(String className, String pkg) {
+    return className.startsWith(pkg)
+        && (className.length() == pkg.length() || className.charAt(pkg.length()) == '.');
+  }
+
+  /**
+   * Read all bytes of the stream, the stream is closed if it is a file stream.
+   */
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8 * 1024];
+    try {
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+      }
+    } finally {
+      if (in instanceof FileInputStream) {
+        in.close();
+      }
+    }
+    return out.toByteArray();
+  }
+}
@@ -59,8 +59,8 @@ public class App extends Application {
             .borderEnable()            // 指定边框格式化器，默认为 DefaultBorderFormatter
             .addObjectFormatter(AnyClass.class,                    // 为指定类添加格式化器
                     new AnyClassObjectFormatter())                 // 默认使用 Object.toString()
-            //.jsonFormatter(new MyJsonFormatter())                  // 指定 JSON 格式化器，默认为 DefaultJsonFormatter
-            //.xmlFormatter(new MyXmlFormatter())                    // 指定 XML 格式化器，默认为 DefaultXmlFormatter
+            //.jsonFormatter(new MyJsonFormatter())                  // 指定 JSON 格式化器，默认为 StreamingJsonFormatter
+            //.xmlFormatter(new MyXmlFormatter())                    // 指定 XML 格式化器，默认为 StreamingXmlFormatter
             //.throwableFormatter(new MyThrowableFormatter())        // 指定可抛出异常格式化器，默认为 DefaultThrowableFormatter
             //.threadFormatter(new MyThreadFormatter())              // 指定线程信息格式化器，默认为 DefaultThreadFormatter
             //.stackTraceFormatter(new MyStackTraceFormatter())      // 指定调用栈信息格式化器，默认为 DefaultStackTraceFormatter